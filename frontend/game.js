@@ -18,6 +18,10 @@ let gameEnded = false;
 let rematchRequested = false;
 let isSpectator = false;
 let wasOAlreadyPresent = false;
+let liveState = null;
+let messageCount = 0;
+let snapshotPending = false;
+let lastChatSeq = 0;
 
 const cells = document.querySelectorAll('.cell');
 const statusText = document.getElementById('status');
@@ -32,51 +36,103 @@ const sendBtn = document.getElementById('sendBtn');
 function connectWebSocket(id) {
     const socket = new SockJS(`${BASE_URL}/ws-tictactoe`);
     stompClient = Stomp.over(socket);
-    let messageCount = 0;
+    messageCount = 0;
+    liveState = null;
+    snapshotPending = false;
 
     stompClient.connect({}, () => {
         statusText.textContent = "Connected!";
 
-        stompClient.subscribe(`/topic/game/${id}`, (message) => {
-            const data = JSON.parse(message.body);
-            messageCount++;
-
-            if (messageCount === 1) {
-                if (playerRole === 'O' && data.playerXPresent && data.playerOPresent) {
-                    if (wasOAlreadyPresent) {
-                        isSpectator = true;
-                        playerRole = 'Spectator';
-                        identityText.textContent = "👁️ SPECTATOR MODE";
-                        statusText.textContent = "Both player slots are full";
-                    }
-                }
+        // Compact deltas; a full snapshot is fetched on join and on any gap.
+        stompClient.subscribe(`/topic/game/${id}/delta`, (message) => {
+            const delta = JSON.parse(message.body);
+            if (!liveState || delta.seq <= liveState.seq) return;
+            if (delta.seq !== liveState.seq + 1) {
+                requestSnapshot(id);
+                return;
             }
-
-            if (playerRole === 'X') {
-                opponentJoined = data.playerOPresent;
-            } else if (playerRole === 'O' && !isSpectator) {
-                opponentJoined = data.playerXPresent;
-            }
-
-            currentTurn = data.currentPlayer;
-            renderBoard(data.board);
-            updateUI(data);
+            applyDelta(delta);
         });
 
-        stompClient.subscribe(`/topic/game/${id}/chat`, (message) => {
-            const chatMsg = JSON.parse(message.body);
-            displayChatMessage(chatMsg);
+        // Chat arrives in batches; recent history is fetched once on join.
+        lastChatSeq = 0;
+        stompClient.subscribe(`/topic/game/${id}/chat/batch`, (message) => {
+            receiveChat(JSON.parse(message.body));
+        });
+        const history = stompClient.subscribe(`/app/game/${id}/chat`, (message) => {
+            history.unsubscribe();
+            receiveChat(JSON.parse(message.body));
         });
 
         stompClient.send(`/app/join/${id}`, {}, JSON.stringify({
             player: isSpectator ? 'Spectator' : playerRole,
             sessionId: sessionId
         }));
+        requestSnapshot(id);
 
         chatContainer.style.display = 'block';
     }, (error) => {
-        statusText.textContent = "❌ Connection Error";
+        // The seat is held for a while after a drop; reconnecting reclaims it.
+        statusText.textContent = "❌ Connection lost, reconnecting...";
+        setTimeout(() => connectWebSocket(id), 2000);
+    });
+}
+
+function requestSnapshot(id) {
+    if (snapshotPending) return;
+    snapshotPending = true;
+    const subscription = stompClient.subscribe(`/app/game/${id}/snapshot`, (message) => {
+        subscription.unsubscribe();
+        snapshotPending = false;
+        const data = JSON.parse(message.body);
+        data.board = data.board.map(row => row.split(''));
+        liveState = data;
+        onLiveState(data);
+    });
+}
+
+function applyDelta(delta) {
+    const state = liveState;
+    const size = state.board.length;
+    if (delta.reset) {
+        state.board = state.board.map(row => row.map(() => ' '));
+    }
+    delta.cells.forEach((cell, i) => {
+        state.board[Math.floor(cell / size)][cell % size] = delta.marks[i];
     });
+    state.seq = delta.seq;
+    state.status = delta.status;
+    state.currentPlayer = delta.turn;
+    state.playerXPresent = (delta.flags & 1) !== 0;
+    state.playerOPresent = (delta.flags & 2) !== 0;
+    state.playerXReady = (delta.flags & 4) !== 0;
+    state.playerOReady = (delta.flags & 8) !== 0;
+    onLiveState(state);
+}
+
+function onLiveState(data) {
+    messageCount++;
+
+    if (messageCount === 1) {
+        if (playerRole === 'O' && data.playerXPresent && data.playerOPresent) {
+            if (wasOAlreadyPresent) {
+                isSpectator = true;
+                playerRole = 'Spectator';
+                identityText.textContent = "👁️ SPECTATOR MODE";
+                statusText.textContent = "Both player slots are full";
+            }
+        }
+    }
+
+    if (playerRole === 'X') {
+        opponentJoined = data.playerOPresent;
+    } else if (playerRole === 'O' && !isSpectator) {
+        opponentJoined = data.playerXPresent;
+    }
+
+    currentTurn = data.currentPlayer;
+    renderBoard(data.board);
+    updateUI(data);
 }
 
 async function newGame(forceAiOff = false) {
@@ -202,6 +258,14 @@ function sendChatMessage() {
     }
 }
 
+function receiveChat(messages) {
+    [].concat(messages || []).forEach(chatMsg => {
+        if (chatMsg.seq && chatMsg.seq <= lastChatSeq) return;
+        lastChatSeq = chatMsg.seq || lastChatSeq;
+        displayChatMessage(chatMsg);
+    });
+}
+
 function displayChatMessage(chatMsg) {
     const msgDiv = document.createElement('div');
     const isOwn = (isSpectator && chatMsg.player === 'Spectator') || chatMsg.player === `Player ${playerRole}`;
@@ -0,0 +1,71 @@
+package com.tictactoe.bench;
+
+import com.tictactoe.model.AIMode;
+import com.tictactoe.model.AIPlayer;
+import com.tictactoe.model.Board;
+import com.tictactoe.model.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One AI reply per invocation, for every mode on the classic board and the
+ * 15x15 five-in-a-row board. The engines' transposition tables are shared
+ * across calls, as they are across games in production.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AIPlayerBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "PERFECT", "MINIMAX"})
+    public AIMode mode;
+
+    @Param({"3", "15"})
+    public int size;
+
+    @Param({"empty", "early", "mid"})
+    public String position;
+
+    private Board board;
+    private AIPlayer engine;
+    private Player side;
+
+    @Setup
+    public void setUp() {
+        board = size == 3 ? new Board() : new Board(size, 5);
+        // Cells as (row, col) offsets from the centre, alternating X and O.
+        int[][] script = switch (position) {
+            case "empty" -> new int[0][];
+            case "early" -> new int[][] {{0, 0}, {1, 1}};
+            case "mid" -> new int[][] {{0, 0}, {1, 1}, {-1, -1}, {1, 0}};
+            default -> throw new IllegalArgumentException(position);
+        };
+        int centre = size / 2;
+        Player player = Player.X;
+        for (int[] cell : script) {
+            board.place(centre + cell[0], centre + cell[1], player);
+            player = player == Player.X ? Player.O : Player.X;
+        }
+        side = player;
+        engine = mode.getPlayer(board);
+    }
+
+    @Benchmark
+    public AIPlayer.Move bestMove() {
+        return engine.getBestMove(board, side);
+    }
+}
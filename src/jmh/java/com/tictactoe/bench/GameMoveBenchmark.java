@@ -0,0 +1,64 @@
+package com.tictactoe.bench;
+
+import com.tictactoe.dto.GameHistory;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole game through {@link Game#makeMove}: X fills the first row while O
+ * answers on the second, so the last move is a win and every move runs the
+ * line check. Includes creating the game and recording its moves. Replay
+ * rebuilds marks and outcome from the recorded moves of such a game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameMoveBenchmark {
+
+    @Param({"3", "9", "15"})
+    public int size;
+
+    private int winLength;
+    private Game played;
+
+    @Setup
+    public void setUp() {
+        winLength = Math.min(size, 5);
+        played = playToWinGame();
+    }
+
+    @Benchmark
+    public GameStatus playToWin() {
+        return playToWinGame().getGameStatus();
+    }
+
+    @Benchmark
+    public GameHistory replay() {
+        return GameHistory.from("bench", played);
+    }
+
+    private Game playToWinGame() {
+        Game game = new Game(null, size, winLength);
+        for (int col = 0; col < winLength; col++) {
+            game.makeMove(0, col, null);
+            if (col < winLength - 1) game.makeMove(1, col, null);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,87 @@
+package com.tictactoe.bench;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.service.GameService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store reads and writes from six threads at once, over a fixed population
+ * of games, in both store modes. The {@code mixed} group runs readers and
+ * writers side by side; {@code lane} measures a round trip through a game's
+ * lane.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class GameServiceBenchmark {
+
+    private static final int GAMES = 10_000;
+
+    @Param({"object", "packed"})
+    public String storeMode;
+
+    private GameService service;
+    private String[] ids;
+    private Game template;
+
+    @Setup
+    public void setUp() {
+        service = new GameService(event -> { }, storeMode, 0, GAMES * 2, 600_000, 7_200_000);
+        template = new Game(null, 3, 3);
+        template.makeMove(1, 1, null);
+        ids = new String[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            ids[i] = service.newGameId(i % 1024);
+            service.saveGame(ids[i], new Game(null, 3, 3));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public Game get() {
+        return service.getGame(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void put() {
+        service.saveGame(randomId(), template);
+    }
+
+    @Benchmark
+    @Group("lane")
+    @GroupThreads(6)
+    public Integer execute() {
+        return service.execute(randomId(), game -> game.getBoard().getMoveCount()).join();
+    }
+}
@@ -0,0 +1,88 @@
+package com.tictactoe.bench;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.persistence.GameJournal;
+import com.tictactoe.service.GameService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log appends from four threads, as the lanes issue them.
+ * {@code append} only copies the record into the mapped segment;
+ * {@code appendAndForce} also forces it to disk, the cost a flush interval
+ * of zero would put on every move.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    private Path dir;
+    private GameService service;
+    private GameJournal journal;
+    private Game game;
+    private String[] ids;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        service = new GameService(event -> { }, "object", 0, 100_000, 600_000, 7_200_000);
+        journal = new GameJournal(service, dir.toString(), 4, 64 << 20);
+        journal.start();
+        game = new Game(null, 3, 3);
+        game.makeMove(1, 1, null);
+        ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = service.newGameId(i);
+        }
+    }
+
+    // The service holds no games, so this just drops the logs written so far.
+    @TearDown(Level.Iteration)
+    public void compact() throws IOException {
+        journal.snapshot();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.shutdown();
+        service.shutdown();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        journal.gameSaved(ids[ThreadLocalRandom.current().nextInt(ids.length)], game);
+    }
+
+    @Benchmark
+    public void appendAndForce() {
+        journal.gameSaved(ids[ThreadLocalRandom.current().nextInt(ids.length)], game);
+        journal.flush();
+    }
+}
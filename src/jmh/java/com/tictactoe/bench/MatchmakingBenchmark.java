@@ -0,0 +1,105 @@
+package com.tictactoe.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.dto.MatchRequest;
+import com.tictactoe.dto.MatchResponse;
+import com.tictactoe.metrics.GameMetrics;
+import com.tictactoe.model.Game;
+import com.tictactoe.service.AIMoveCache;
+import com.tictactoe.service.GameChangeListener;
+import com.tictactoe.service.GameService;
+import com.tictactoe.service.MatchmakingService;
+import com.tictactoe.service.PresenceTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Matchmaking requests from four threads at once, spread over one or four
+ * board variants. Every second request completes a pair: a game is created
+ * and saved, both seats are recorded for presence, and both players are
+ * notified (into a channel that drops the message). Games are deleted as
+ * soon as they are saved and seats forgotten as they are notified, so
+ * nothing grows over the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MatchmakingBenchmark {
+
+    @Param({"1", "4"})
+    public int variants;
+
+    private GameService gameService;
+    private MatchmakingService matchmaking;
+    private PresenceTracker presence;
+    private MatchRequest[] requests;
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private static final AtomicInteger threads = new AtomicInteger();
+        final String prefix = "t" + threads.incrementAndGet() + "-";
+        long next;
+    }
+
+    @Setup
+    public void setUp() {
+        gameService = new GameService(event -> { }, "object", 0, 100_000, 600_000, 7_200_000);
+        gameService.setChangeListener(new GameChangeListener() {
+            @Override public void gameSaved(String gameId, Game game) { gameService.deleteGame(gameId); }
+            @Override public void gameRemoved(String gameId) { }
+        });
+        ClusterMembership membership = new ClusterMembership(gameService, "", "");
+        GameMetrics metrics = new GameMetrics(new SimpleMeterRegistry(), gameService,
+                new AIMoveCache(false, 0, new String[0], 0), 10_000);
+        // The template's default converter passes the payload through unchanged.
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+            if (message.getPayload() instanceof MatchResponse response && response.getGameId() != null) {
+                presence.left(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()), response.getGameId());
+            }
+            return true;
+        });
+        presence = new PresenceTracker(null, membership, null, new ObjectMapper());
+        matchmaking = new MatchmakingService(gameService, template, membership, presence, metrics, 60_000);
+
+        requests = new MatchRequest[variants];
+        for (int i = 0; i < variants; i++) {
+            requests[i] = new MatchRequest();
+            requests[i].setSize(3 + i);
+            requests[i].setWinLength(3);
+            requests[i].setSessionId("player");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameService.shutdown();
+    }
+
+    @Benchmark
+    public void enqueue(Caller caller) {
+        long n = caller.next++;
+        matchmaking.enqueue(caller.prefix + n, requests[(int) (n % requests.length)]);
+    }
+}
@@ -0,0 +1,123 @@
+package com.tictactoe.bench;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.persistence.GameJournal;
+import com.tictactoe.service.GameService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup recovery: loading a snapshot of {@code games} games and replaying
+ * two moves per game logged after it, as a node that crashed between
+ * snapshots would. Nine in ten games are 3x3 in their second round; the rest
+ * are 9x9 mid-game, so records carry move histories of both sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    private static final int SEGMENT_BYTES = 64 << 20;
+
+    @Param({"10000", "100000"})
+    public int games;
+
+    private Path dir;
+    private GameService writer;
+    private GameService service;
+    private GameJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recovery-bench");
+        writer = new GameService(event -> { }, "object", 0, games * 2, 600_000, 7_200_000);
+        GameJournal writing = new GameJournal(writer, dir.toString(), 4, SEGMENT_BYTES);
+        writing.start();
+
+        String[] ids = new String[games];
+        for (int i = 0; i < games; i++) {
+            ids[i] = writer.newGameId(i);
+            writer.saveGame(ids[i], i % 10 == 0 ? bigGame() : rematchedGame());
+        }
+        writing.snapshot();
+
+        // On the lanes, so they are logged as moves on top of the snapshot.
+        for (int i = 0; i < games; i++) {
+            boolean big = i % 10 == 0;
+            writer.execute(ids[i], game -> game.makeMove(big ? 4 : 2, big ? 4 : 2, null)).join();
+            writer.execute(ids[i], game -> game.makeMove(big ? 4 : 0, big ? 8 : 2, null)).join();
+        }
+        // Left without its shutdown snapshot, as after a crash.
+        writing.flush();
+        writer.setChangeListener(null);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshService() {
+        service = new GameService(event -> { }, "object", 0, games * 2, 600_000, 7_200_000);
+        journal = new GameJournal(service, dir.toString(), 4, SEGMENT_BYTES);
+    }
+
+    @TearDown(Level.Invocation)
+    public void dropService() {
+        service.shutdown();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.shutdown();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        journal.recover();
+        return service.gameCount();
+    }
+
+    // A finished round won by X, then two moves of the rematch.
+    private static Game rematchedGame() {
+        Game game = new Game(null, 3, 3);
+        int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+        for (int[] move : moves) {
+            game.makeMove(move[0], move[1], null);
+        }
+        game.resetBoard();
+        game.makeMove(1, 1, null);
+        game.makeMove(0, 0, null);
+        return game;
+    }
+
+    // Twelve scattered moves on 9x9, five in a row to win.
+    private static Game bigGame() {
+        Game game = new Game(null, 9, 5);
+        for (int k = 0; k < 6; k++) {
+            game.makeMove(k < 4 ? 0 : 2, k % 4 * 2, null);
+            game.makeMove(k < 4 ? 8 : 6, k % 4 * 2, null);
+        }
+        return game;
+    }
+}
@@ -0,0 +1,104 @@
+package com.tictactoe.bench;
+
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.dto.GameDelta;
+import com.tictactoe.dto.GameResponse;
+import com.tictactoe.model.Game;
+import com.tictactoe.socket.SharedFrameStompEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding of the full state and of a delta, configured as Spring
+ * Boot configures its mapper, and the STOMP frame built from a delta for
+ * each subscriber, by Spring's encoder and by the one the app installs.
+ * {@code responseReusedBuffer} serializes into a kept buffer, as
+ * GameBroadcaster once did.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"3", "15"})
+    public int size;
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ByteArrayBuilder buffer = new ByteArrayBuilder(512);
+    private final StompEncoder encoder = new StompEncoder();
+    private final StompEncoder sharedEncoder = new SharedFrameStompEncoder();
+    private Game game;
+    private GameDelta delta;
+    private byte[] deltaPayload;
+    private Map<String, Object> messageHeaders;
+
+    @Setup
+    public void setUp() {
+        game = new Game(null, size, Math.min(size, 5));
+        game.makeMove(size / 2, size / 2, null);
+        game.makeMove(0, 0, null);
+        delta = GameDelta.of(1, false, new int[] {size * (size / 2) + size / 2, 0}, "XO", game);
+        try {
+            deltaPayload = mapper.writeValueAsBytes(delta);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setSubscriptionId("sub-0");
+        headers.setMessageId("a1b2c3d4-1");
+        headers.setDestination("/topic/game/bench/delta");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        messageHeaders = headers.getMessageHeaders();
+    }
+
+    @Benchmark
+    public byte[] response() throws IOException {
+        return mapper.writeValueAsBytes(GameResponse.from("bench", game, null));
+    }
+
+    @Benchmark
+    public byte[] responseReusedBuffer() throws IOException {
+        buffer.reset();
+        mapper.writeValue(buffer, GameResponse.from("bench", game, null));
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] delta() throws IOException {
+        return mapper.writeValueAsBytes(delta);
+    }
+
+    /** Paid per subscriber: the frame carries that session's subscription id. */
+    @Benchmark
+    public byte[] deltaStompFrame() {
+        return encoder.encode(messageHeaders, deltaPayload);
+    }
+
+    /** The same frame for every subscriber after the first. */
+    @Benchmark
+    public byte[] deltaStompFrameShared() {
+        return sharedEncoder.encode(messageHeaders, deltaPayload);
+    }
+}
@@ -0,0 +1,147 @@
+package com.tictactoe.bench;
+
+import com.tictactoe.TicTacToeApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * End to end: a STOMP move is sent to an embedded server and the clock
+ * stops when the delta reporting it arrives on the game's topic. The game
+ * is 15x15 with a win length of 15, filled row by row with alternating
+ * marks. Both diagonals hold a single mark and would complete on the last
+ * row, so a fresh game is started after 14 rows. Run with and without the
+ * broadcast coalescing window.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StompRoundTripBenchmark {
+
+    private static final int SIZE = 15;
+    private static final int MOVES_PER_GAME = SIZE * (SIZE - 1);
+
+    @Param({"0", "15"})
+    public int coalesceMs;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private final RestTemplate rest = new RestTemplate();
+    private WebSocketStompClient client;
+    private StompSession session;
+    private StompSession.Subscription subscription;
+    private final BlockingQueue<Map<?, ?>> deltas = new LinkedBlockingQueue<>();
+
+    private String gameId;
+    private int moves;
+
+    @Setup
+    public void start() throws Exception {
+        // Arguments rather than default properties, which application.properties would override.
+        context = new SpringApplicationBuilder(TicTacToeApplication.class)
+                .run("--server.port=0",
+                        "--game.broadcast.coalesce-ms=" + coalesceMs,
+                        "--logging.level.root=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+
+        client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        session = client.connectAsync("ws://localhost:" + port + "/ws-tictactoe/websocket",
+                new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+        newGame();
+    }
+
+    @TearDown
+    public void stop() {
+        // Closing the server first ends the session from its side.
+        context.close();
+        client.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextGameIfFull() throws Exception {
+        if (moves == MOVES_PER_GAME) newGame();
+    }
+
+    @Benchmark
+    public Map<?, ?> moveToDelta() throws Exception {
+        int cell = moves++;
+        String player = cell % 2 == 0 ? "X" : "O";
+        send("/app/move/" + gameId, Map.of("row", cell / SIZE, "column", cell % SIZE,
+                "player", player, "sessionId", "bench-" + player));
+        return awaitDelta(delta -> ((Number) delta.get("moves")).intValue() == moves);
+    }
+
+    private void newGame() throws Exception {
+        if (subscription != null) subscription.unsubscribe();
+        Map<?, ?> created = rest.postForObject(baseUrl + "/api/game/new?size={size}&winLength={size}",
+                null, Map.class, SIZE, SIZE);
+        gameId = (String) created.get("gameId");
+        moves = 0;
+        deltas.clear();
+        subscription = session.subscribe("/topic/game/" + gameId + "/delta", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                deltas.add((Map<?, ?>) payload);
+            }
+        });
+        send("/app/join/" + gameId, Map.of("player", "X", "sessionId", "bench-X"));
+        send("/app/join/" + gameId, Map.of("player", "O", "sessionId", "bench-O"));
+        // Presence flags 3: both players seated.
+        awaitDelta(delta -> ((Number) delta.get("flags")).intValue() == 3);
+    }
+
+    private void send(String destination, Map<String, ?> payload) {
+        StompHeaders headers = new StompHeaders();
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        session.send(headers, payload);
+    }
+
+    private Map<?, ?> awaitDelta(Predicate<Map<?, ?>> match) throws Exception {
+        while (true) {
+            Map<?, ?> delta = deltas.poll(5, TimeUnit.SECONDS);
+            if (delta == null) throw new TimeoutException("No delta for game " + gameId + " after move " + moves);
+            if (match.test(delta)) return delta;
+        }
+    }
+}
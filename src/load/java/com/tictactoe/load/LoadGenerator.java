@@ -0,0 +1,586 @@
+package com.tictactoe.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a running instance with simulated players and spectators. Each
+ * game is created over REST and gets two player sessions and
+ * {@code --spectators} watching sessions, all STOMP over SockJS (or raw
+ * WebSocket), or binary frames on {@code /ws-game}. Players join, play
+ * random or scripted moves after a think time, ask for a rematch when a
+ * game ends and optionally chat (not over the binary transport).
+ *
+ * Reported every interval and at the end: confirmed moves per second,
+ * move-to-delta latency as seen by the mover and by spectators (p50, p99,
+ * p99.9), deltas and chat received, errors, and drops (sequence gaps plus
+ * moves with no delta within {@code --move-timeout-ms}).
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:exec@load -Dload.args="--games 500 --spectators 4 --duration-s 120"
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final byte BINARY_JOIN = 0x01;
+    private static final byte BINARY_MOVE = 0x02;
+    private static final byte BINARY_REMATCH = 0x03;
+    private static final byte BINARY_DELTA = (byte) 0x82;
+
+    private final Options options;
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final WebSocketStompClient stompClient;
+    private final StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    private final Recorder moveLatency = new Recorder(3);
+    private final Recorder fanoutLatency = new Recorder(3);
+    private final Histogram moveTotal = new Histogram(3);
+    private final Histogram fanoutTotal = new Histogram(3);
+    private final LongAdder movesSent = new LongAdder();
+    private final LongAdder movesConfirmed = new LongAdder();
+    private final LongAdder deltasReceived = new LongAdder();
+    private final LongAdder chatSent = new LongAdder();
+    private final LongAdder chatReceived = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder sequenceGaps = new LongAdder();
+    private final LongAdder moveTimeouts = new LongAdder();
+    private final AtomicLong connected = new AtomicLong();
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(Options.parse(args)).run();
+        System.exit(0);
+    }
+
+    LoadGenerator(Options options) {
+        this.options = options;
+        WebSocketClient transport = new StandardWebSocketClient();
+        stompClient = new WebSocketStompClient(options.sockJs
+                ? new SockJsClient(List.of(new WebSocketTransport(transport)))
+                : transport);
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setPoolSize(2);
+        heartbeats.initialize();
+        stompClient.setTaskScheduler(heartbeats);
+    }
+
+    void run() throws Exception {
+        System.out.printf("Target %s: %d games, %d sessions (%s), %s moves, think %d ms, chat every %d ms, %d s%n",
+                options.url, options.games, options.games * (2 + options.spectators),
+                options.binary ? "binary WebSocket" : options.sockJs ? "SockJS" : "WebSocket", options.scripted ? "scripted" : "random",
+                options.thinkMillis, options.chatIntervalMillis, options.durationSeconds);
+
+        // Games are started at --ramp per second so connects do not arrive all at once.
+        long gapMicros = 1_000_000L / Math.max(1, options.ramp);
+        for (int i = 0; i < options.games; i++) {
+            int index = i;
+            scheduler.schedule(() -> startGame(index), i * gapMicros, TimeUnit.MICROSECONDS);
+        }
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        long started = System.nanoTime();
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(TimeUnit.SECONDS.toMillis(options.reportSeconds),
+                    TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()) + 1));
+            report(false, (System.nanoTime() - started) / 1e9);
+        }
+        // Totals first: closing sessions below surfaces errors that are not the server's.
+        report(true, (System.nanoTime() - started) / 1e9);
+        // Sessions are left to close with the JVM, as they would when clients vanish.
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    private void startGame(int index) {
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                            URI.create(options.url + "/api/game/new?size=" + options.size))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                error("POST /api/game/new returned " + response.statusCode(), null);
+                return;
+            }
+            String gameId = (String) mapper.readValue(response.body(), Map.class).get("gameId");
+            Game game = new Game(gameId, options.size);
+            new Player(game, 'X', "load-" + index + "-X").connect();
+            new Player(game, 'O', "load-" + index + "-O").connect();
+            for (int s = 0; s < options.spectators; s++) {
+                new Spectator(game).connect();
+            }
+        } catch (Exception e) {
+            error("Starting game " + index, e);
+        }
+    }
+
+    private long lastConfirmed, lastDeltas, lastChat, lastSent;
+    private double lastReport;
+
+    private void report(boolean total, double elapsedSeconds) {
+        Histogram moves = moveLatency.getIntervalHistogram();
+        Histogram fanout = fanoutLatency.getIntervalHistogram();
+        moveTotal.add(moves);
+        fanoutTotal.add(fanout);
+        long confirmed = movesConfirmed.sum(), deltas = deltasReceived.sum(), chat = chatReceived.sum(), sent = movesSent.sum();
+        double seconds = total ? elapsedSeconds : elapsedSeconds - lastReport;
+        lastReport = elapsedSeconds;
+
+        if (total) {
+            moves = moveTotal;
+            fanout = fanoutTotal;
+            System.out.printf("%n== Total over %.0f s ==%n", elapsedSeconds);
+        }
+        long deltaConfirmed = total ? confirmed : confirmed - lastConfirmed;
+        long deltaDeltas = total ? deltas : deltas - lastDeltas;
+        long deltaChat = total ? chat : chat - lastChat;
+        long deltaSent = total ? sent : sent - lastSent;
+        lastConfirmed = confirmed;
+        lastDeltas = deltas;
+        lastChat = chat;
+        lastSent = sent;
+
+        long drops = sequenceGaps.sum() + moveTimeouts.sum();
+        System.out.printf("[%5.0fs] sessions %d | moves %.0f/s (sent %.0f/s) | move ms p50 %.2f p99 %.2f p99.9 %.2f"
+                        + " | fan-out ms p50 %.2f p99 %.2f p99.9 %.2f | deltas %.0f/s | chat %.0f/s (sent %d)"
+                        + " | games finished %d | errors %d | drops %d (gaps %d, timeouts %d, %.3f%% of moves)%n",
+                elapsedSeconds, connected.get(),
+                deltaConfirmed / seconds, deltaSent / seconds,
+                millis(moves, 50), millis(moves, 99), millis(moves, 99.9),
+                millis(fanout, 50), millis(fanout, 99), millis(fanout, 99.9),
+                deltaDeltas / seconds, deltaChat / seconds, chatSent.sum(),
+                gamesFinished.sum(), errors.sum(), drops, sequenceGaps.sum(), moveTimeouts.sum(),
+                sent == 0 ? 0.0 : 100.0 * moveTimeouts.sum() / sent);
+    }
+
+    // Counts an error; the first few are printed so a run that fails is not silent.
+    private void error(String what, Throwable cause) {
+        errors.increment();
+        if (errors.sum() <= 5) {
+            System.err.println(what + ": " + (cause == null ? "" : cause));
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    /** Shared view of one game: the move in flight, for latency accounting. */
+    private static final class Game {
+        final String id;
+        final int size;
+        volatile long sentNanos;
+        volatile int targetMoves;
+        // Bumped after the two fields above for every move sent; unlike the
+        // move count it keeps rising across rematches.
+        volatile long serial;
+
+        Game(String id, int size) {
+            this.id = id;
+            this.size = size;
+        }
+    }
+
+    /** One delta, from the JSON topic or a binary frame. */
+    private record Delta(long seq, boolean reset, int moves, int[] cells, String marks, String status,
+                         char turn, int flags) {
+
+        static Delta of(Map<?, ?> json) {
+            List<?> cells = (List<?>) json.get("cells");
+            return new Delta(((Number) json.get("seq")).longValue(), Boolean.TRUE.equals(json.get("reset")),
+                    ((Number) json.get("moves")).intValue(),
+                    cells.stream().mapToInt(cell -> ((Number) cell).intValue()).toArray(),
+                    (String) json.get("marks"), (String) json.get("status"),
+                    String.valueOf(json.get("turn")).charAt(0), ((Number) json.get("flags")).intValue());
+        }
+
+        // See BinaryFrames on the server.
+        static Delta of(ByteBuffer frame) {
+            long seq = frame.getLong();
+            boolean reset = frame.get() != 0;
+            int moves = Short.toUnsignedInt(frame.getShort());
+            String status = BINARY_STATUS[frame.get()];
+            char turn = frame.get() == 1 ? 'X' : 'O';
+            int flags = frame.get();
+            int[] cells = new int[Short.toUnsignedInt(frame.getShort())];
+            StringBuilder marks = new StringBuilder(cells.length);
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = Byte.toUnsignedInt(frame.get());
+                marks.append(frame.get() == 1 ? 'X' : 'O');
+            }
+            return new Delta(seq, reset, moves, cells, marks.toString(), status, turn, flags);
+        }
+    }
+
+    private static final String[] BINARY_STATUS = {"IN_PROGRESS", "DRAW", "X_WON", "O_WON"};
+
+    /**
+     * A session following one game: STOMP subscribed to the game's delta
+     * and chat topics, or a /ws-game session with binary frames (no chat).
+     */
+    private abstract class Client extends StompSessionHandlerAdapter implements StompFrameHandler {
+        final Game game;
+        StompSession session;
+        WebSocketSession socket;
+        long lastSeq;
+        long lastTimed;
+
+        Client(Game game) {
+            this.game = game;
+        }
+
+        void connect() {
+            if (options.binary) {
+                WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+                headers.setSecWebSocketProtocol("tictactoe.v1");
+                webSocketClient.execute(new BinaryWebSocketHandler() {
+                    @Override
+                    public void afterConnectionEstablished(WebSocketSession session) {
+                        socket = session;
+                        connected.incrementAndGet();
+                        started();
+                    }
+
+                    @Override
+                    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+                        ByteBuffer frame = message.getPayload();
+                        if (frame.get() == BINARY_DELTA) {
+                            delta(Delta.of(frame));
+                        }
+                    }
+
+                    @Override
+                    public void handleTransportError(WebSocketSession session, Throwable exception) {
+                        if (running) error("Transport", exception);
+                    }
+                }, headers, URI.create(options.url.replaceFirst("^http", "ws") + "/ws-game")).exceptionally(e -> {
+                    error("Connect", e);
+                    return null;
+                });
+                return;
+            }
+            String endpoint = options.url + (options.sockJs ? "/ws-tictactoe" : "/ws-tictactoe/websocket");
+            stompClient.connectAsync(options.sockJs ? endpoint : endpoint.replaceFirst("^http", "ws"), this)
+                    .exceptionally(e -> {
+                        error("Connect", e);
+                        return null;
+                    });
+        }
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            this.session = session;
+            connected.incrementAndGet();
+            session.subscribe("/topic/game/" + game.id + "/delta", this);
+            session.subscribe("/topic/game/" + game.id + "/chat/batch", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return List.class;
+                }
+
+                // Messages arrive batched, as an array.
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    chatReceived.add(((List<?>) payload).size());
+                }
+            });
+            started();
+        }
+
+        void started() {
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            delta(Delta.of((Map<?, ?>) payload));
+        }
+
+        private void delta(Delta delta) {
+            long now = System.nanoTime();
+            deltasReceived.increment();
+            long seq = delta.seq();
+            if (lastSeq > 0 && seq > lastSeq + 1) sequenceGaps.add(seq - lastSeq - 1);
+            lastSeq = Math.max(lastSeq, seq);
+
+            long serial = game.serial;
+            if (serial > lastTimed && delta.moves() >= game.targetMoves) {
+                lastTimed = serial;
+                timed(now - game.sentNanos);
+            }
+            onDelta(delta);
+        }
+
+        abstract void timed(long nanos);
+
+        void onDelta(Delta delta) {
+        }
+
+        void join(String player, String sessionId) {
+            if (options.binary) {
+                byte[] id = game.id.getBytes(StandardCharsets.UTF_8);
+                byte role = (byte) (player.equals("X") ? 0 : player.equals("O") ? 1 : 2);
+                sendBinary(ByteBuffer.allocate(2 + id.length).put(BINARY_JOIN).put(role).put(id).array());
+            } else {
+                send("/app/join/" + game.id, Map.of("player", player, "sessionId", sessionId));
+            }
+        }
+
+        void send(String destination, Map<String, ?> payload) {
+            if (!running || session == null || !session.isConnected()) return;
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            // The WebSocket client allows one write at a time; chat and moves come from different threads.
+            try {
+                synchronized (this) {
+                    session.send(headers, payload);
+                }
+            } catch (RuntimeException e) {
+                if (running) error("Send to " + destination, e);
+            }
+        }
+
+        void sendBinary(byte[] frame) {
+            if (!running || socket == null || !socket.isOpen()) return;
+            try {
+                synchronized (this) {
+                    socket.sendMessage(new BinaryMessage(frame));
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running) error("Binary send", e);
+            }
+        }
+
+        @Override
+        public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                    byte[] payload, Throwable exception) {
+            if (running) error("Frame " + command, exception);
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            if (running) error("Transport", exception);
+        }
+    }
+
+    private final class Spectator extends Client {
+        Spectator(Game game) {
+            super(game);
+        }
+
+        // /ws-game sessions receive a game's frames once they join it.
+        @Override
+        void started() {
+            if (options.binary) join("Spectator", null);
+        }
+
+        @Override
+        void timed(long nanos) {
+            fanoutLatency.recordValue(nanos);
+        }
+    }
+
+    private final class Player extends Client {
+        final char mark;
+        final String sessionId;
+        final byte[] board;
+        final AtomicBoolean acting = new AtomicBoolean();
+        boolean rematchRequested;
+
+        Player(Game game, char mark, String sessionId) {
+            super(game);
+            this.mark = mark;
+            this.sessionId = sessionId;
+            this.board = new byte[game.size * game.size];
+        }
+
+        @Override
+        void started() {
+            join(String.valueOf(mark), sessionId);
+            if (options.chatIntervalMillis > 0 && !options.binary) {
+                long interval = options.chatIntervalMillis;
+                scheduler.scheduleAtFixedRate(() -> {
+                    send("/app/chat/" + game.id, Map.of("player", String.valueOf(mark), "message", "gl hf"));
+                    chatSent.increment();
+                }, ThreadLocalRandom.current().nextLong(interval), interval, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        // Only the player who moved owns the move's latency.
+        @Override
+        void timed(long nanos) {
+            if (acting.get()) {
+                moveLatency.recordValue(nanos);
+                movesConfirmed.increment();
+                acting.set(false);
+            }
+        }
+
+        @Override
+        void onDelta(Delta delta) {
+            if (delta.reset()) {
+                Arrays.fill(board, (byte) 0);
+                rematchRequested = false;
+            }
+            for (int i = 0; i < delta.cells().length; i++) {
+                board[delta.cells()[i]] = (byte) delta.marks().charAt(i);
+            }
+
+            boolean seated = (delta.flags() & 3) == 3;
+            if (!"IN_PROGRESS".equals(delta.status())) {
+                if (!rematchRequested) {
+                    rematchRequested = true;
+                    if (mark == 'X') gamesFinished.increment();
+                    scheduler.schedule(this::rematch, think(), TimeUnit.MILLISECONDS);
+                }
+            } else if (seated && delta.turn() == mark && acting.compareAndSet(false, true)) {
+                int moves = delta.moves();
+                scheduler.schedule(() -> move(moves), think(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void rematch() {
+            if (options.binary) {
+                sendBinary(new byte[] {BINARY_REMATCH});
+            } else {
+                send("/app/rematch/" + game.id, Map.of("player", String.valueOf(mark), "sessionId", sessionId));
+            }
+        }
+
+        private void move(int movesBefore) {
+            int cell = chooseCell();
+            if (cell < 0) {
+                acting.set(false);
+                return;
+            }
+            game.sentNanos = System.nanoTime();
+            game.targetMoves = movesBefore + 1;
+            long serial = ++game.serial;
+            movesSent.increment();
+            if (options.binary) {
+                sendBinary(new byte[] {BINARY_MOVE, (byte) (cell / game.size), (byte) (cell % game.size)});
+            } else {
+                send("/app/move/" + game.id, Map.of("row", cell / game.size, "column", cell % game.size,
+                        "player", String.valueOf(mark), "sessionId", sessionId));
+            }
+
+            scheduler.schedule(() -> {
+                // No delta for this move: count it and try again from the board as last seen.
+                if (acting.get() && game.serial == serial && lastTimed < serial) {
+                    moveTimeouts.increment();
+                    move(movesBefore);
+                }
+            }, options.moveTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private int chooseCell() {
+            if (options.scripted) {
+                for (int cell = 0; cell < board.length; cell++) {
+                    if (board[cell] == 0) return cell;
+                }
+                return -1;
+            }
+            int empty = 0;
+            for (byte b : board) if (b == 0) empty++;
+            if (empty == 0) return -1;
+            int pick = ThreadLocalRandom.current().nextInt(empty);
+            for (int cell = 0; cell < board.length; cell++) {
+                if (board[cell] == 0 && pick-- == 0) return cell;
+            }
+            return -1;
+        }
+
+        private long think() {
+            long think = options.thinkMillis;
+            return think <= 0 ? 0 : think / 2 + ThreadLocalRandom.current().nextLong(think);
+        }
+    }
+
+    /** Command-line options, each {@code --name value}. */
+    static final class Options {
+        String url = "http://localhost:5000";
+        int games = 100;
+        int spectators = 2;
+        int size = 3;
+        boolean scripted;
+        boolean sockJs = true;
+        boolean binary;
+        long thinkMillis = 200;
+        long chatIntervalMillis;
+        long moveTimeoutMillis = 5000;
+        int ramp = 50;
+        long durationSeconds = 60;
+        long reportSeconds = 5;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--url" -> o.url = value.replaceAll("/$", "");
+                    case "--games" -> o.games = Integer.parseInt(value);
+                    case "--spectators" -> o.spectators = Integer.parseInt(value);
+                    case "--size" -> o.size = Integer.parseInt(value);
+                    case "--moves" -> o.scripted = "scripted".equals(value);
+                    case "--transport" -> {
+                        o.sockJs = "sockjs".equals(value);
+                        o.binary = "binary".equals(value);
+                    }
+                    case "--think-ms" -> o.thinkMillis = Long.parseLong(value);
+                    case "--chat-interval-ms" -> o.chatIntervalMillis = Long.parseLong(value);
+                    case "--move-timeout-ms" -> o.moveTimeoutMillis = Long.parseLong(value);
+                    case "--ramp" -> o.ramp = Integer.parseInt(value);
+                    case "--duration-s" -> o.durationSeconds = Long.parseLong(value);
+                    case "--report-s" -> o.reportSeconds = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            return o;
+        }
+    }
+}
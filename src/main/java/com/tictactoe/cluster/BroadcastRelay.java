@@ -0,0 +1,25 @@
+package com.tictactoe.cluster;
+
+/**
+ * Carries broker traffic between nodes, so subscribers of a game's topics
+ * receive its messages whichever instance they are connected to. Every
+ * message published to a local {@code /topic} destination is handed to
+ * {@link #publish}; the relay delivers it to the other nodes' brokers
+ * through {@link LocalDelivery}.
+ *
+ * Without a relay bean (game.broker.mode=simple) the in-process simple
+ * broker serves a single node, as before.
+ */
+public interface BroadcastRelay {
+
+    void publish(RelayFrame frame);
+
+    /**
+     * Whether another node has subscribers for the destination, so a
+     * publisher can skip building a message nobody would receive. Relays
+     * that cannot tell say yes.
+     */
+    default boolean hasSubscribers(String destination) {
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+package com.tictactoe.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/** HTTP between nodes; every call carries the shared cluster secret. */
+@Component
+public class ClusterClient {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    /** Set on requests one node forwards to another, so they are never forwarded twice. */
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String secret;
+    private final ObjectMapper objectMapper;
+
+    public ClusterClient(@Value("${game.cluster.secret:}") String secret,
+                         @Value("${game.broker.mode:simple}") String brokerMode,
+                         @Value("${game.cluster.self:}") String self,
+                         ObjectMapper objectMapper) {
+        // The /internal endpoints trust any caller holding the secret, so an empty one would trust everyone.
+        if (secret.isBlank() && ("peer".equalsIgnoreCase(brokerMode) || !self.isBlank())) {
+            throw new IllegalStateException(
+                    "game.cluster.secret must be set when game.broker.mode=peer or game.cluster.self is set");
+        }
+        this.secret = secret;
+        this.objectMapper = objectMapper;
+    }
+
+    /** A blank secret, configured or presented, is never accepted. */
+    public boolean accepts(String presentedSecret) {
+        if (secret.isBlank() || presentedSecret == null || presentedSecret.isBlank()) return false;
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public HttpRequest.Builder request(String node, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+                .timeout(Duration.ofSeconds(5))
+                .header(SECRET_HEADER, secret)
+                .header(FORWARDED_HEADER, "1");
+    }
+
+    public HttpResponse<byte[]> send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Sends the request and passes each line of a 200 reply to {@code lines}
+     * as it arrives. Completes with the status code once the body has ended.
+     */
+    public CompletableFuture<Integer> streamLines(HttpRequest request, Consumer<String> lines) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofLines()).thenApply(response -> {
+            try (var body = response.body()) {
+                if (response.statusCode() == 200) body.forEach(lines);
+            }
+            return response.statusCode();
+        });
+    }
+
+    /** The owner's REST view of a game as a JSON tree, or null if it does not know the game. */
+    public CompletableFuture<JsonNode> fetchGame(String node, String gameId) {
+        return fetchJson(node, "/api/game/" + URLEncoder.encode(gameId, StandardCharsets.UTF_8));
+    }
+
+    /** GETs a JSON document from the node; completes with null unless it answers 200. */
+    public CompletableFuture<JsonNode> fetchJson(String node, String path) {
+        return sendAsync(request(node, path).GET().build())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) return null;
+                    try {
+                        return objectMapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    public HttpResponse<byte[]> post(String node, String path, byte[] body) throws Exception {
+        return send(request(node, path)
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build());
+    }
+}
@@ -0,0 +1,173 @@
+package com.tictactoe.cluster;
+
+import com.tictactoe.service.GameService;
+import com.tictactoe.service.GameStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The nodes of the cluster and which of them owns each game. Game ids carry
+ * one of {@link GameStore#SHARDS} shards; shards are placed on a
+ * consistent-hash ring of the nodes, so a node joining or leaving only moves
+ * the shards next to it.
+ *
+ * {@code game.cluster.peers} seeds the other members, which the broker
+ * relay also publishes to. Sharding is on when {@code game.cluster.self}
+ * names this node's base URL; without it every game is local.
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterMembership.class);
+
+    private static final int VIRTUAL_NODES = 128;
+
+    private final GameService gameService;
+    private final String self;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Ring ring;
+
+    /** Immutable view: members plus the owner of every shard. */
+    private record Ring(List<String> nodes, String[] owners, int[] localShards) {}
+
+    public ClusterMembership(GameService gameService,
+                             @Value("${game.cluster.self:}") String self,
+                             @Value("${game.cluster.peers:}") String peers) {
+        this.gameService = gameService;
+        this.self = normalize(self);
+        TreeSet<String> nodes = new TreeSet<>();
+        if (!this.self.isEmpty()) nodes.add(this.self);
+        Arrays.stream(peers.split(",")).map(ClusterMembership::normalize)
+                .filter(peer -> !peer.isEmpty()).forEach(nodes::add);
+        this.ring = build(nodes);
+    }
+
+    public static String normalize(String node) {
+        return node == null ? "" : node.trim().replaceAll("/+$", "");
+    }
+
+    public boolean isSharded() {
+        return !self.isEmpty();
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public List<String> getNodes() {
+        return ring.nodes;
+    }
+
+    public List<String> getPeers() {
+        List<String> peers = new ArrayList<>(ring.nodes);
+        peers.remove(self);
+        return peers;
+    }
+
+    public String ownerOf(String gameId) {
+        return isSharded() ? ring.owners[gameService.shardOf(gameId)] : self;
+    }
+
+    public boolean isLocal(String gameId) {
+        return !isSharded() || self.equals(ownerOf(gameId));
+    }
+
+    /** A random shard owned by this node, for minting new game ids. */
+    public int localShard() {
+        int[] shards = ring.localShards;
+        if (shards.length == 0) {
+            return ThreadLocalRandom.current().nextInt(GameStore.SHARDS);
+        }
+        return shards[ThreadLocalRandom.current().nextInt(shards.length)];
+    }
+
+    /** Adds members; returns true if the ring changed. */
+    public synchronized boolean join(List<String> nodes) {
+        TreeSet<String> members = new TreeSet<>(ring.nodes);
+        boolean changed = false;
+        for (String node : nodes) {
+            String member = normalize(node);
+            if (!member.isEmpty()) changed |= members.add(member);
+        }
+        if (changed) update(members);
+        return changed;
+    }
+
+    public synchronized boolean leave(String node) {
+        TreeSet<String> members = new TreeSet<>(ring.nodes);
+        boolean changed = members.remove(normalize(node));
+        if (changed) update(members);
+        return changed;
+    }
+
+    /** Called after every ring change, e.g. to hand off games that moved. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private void update(TreeSet<String> members) {
+        ring = build(members);
+        log.info("Cluster ring now has {} nodes: {}", members.size(), members);
+        listeners.forEach(Runnable::run);
+    }
+
+    private Ring build(TreeSet<String> members) {
+        String[] owners = new String[GameStore.SHARDS];
+        if (members.isEmpty()) {
+            return new Ring(List.of(), owners, new int[0]);
+        }
+
+        List<String> nodes = new ArrayList<>(members);
+        long[] points = new long[nodes.size() * VIRTUAL_NODES];
+        int[] pointOwner = new int[points.length];
+        Integer[] order = new Integer[points.length];
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                int i = n * VIRTUAL_NODES + v;
+                points[i] = hash(nodes.get(n) + "#" + v);
+                pointOwner[i] = n;
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(points[a], points[b]));
+        long[] sorted = new long[points.length];
+        for (int i = 0; i < order.length; i++) sorted[i] = points[order[i]];
+
+        List<Integer> local = new ArrayList<>();
+        for (int shard = 0; shard < owners.length; shard++) {
+            long h = hash("shard-" + shard);
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (Long.compareUnsigned(sorted[mid], h) < 0) lo = mid + 1; else hi = mid;
+            }
+            owners[shard] = nodes.get(pointOwner[order[lo == sorted.length ? 0 : lo]]);
+            if (owners[shard].equals(self)) local.add(shard);
+        }
+        return new Ring(List.copyOf(nodes), owners, local.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // FNV-1a, then a finalizer so nearby strings spread over the ring.
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,59 @@
+package com.tictactoe.cluster;
+
+import com.tictactoe.service.TopicSubscriptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-JVM stand-in for a cluster: application contexts started in one
+ * process with the same {@code game.cluster.name} relay to each other
+ * directly, which is enough to exercise several nodes on one machine.
+ * Frames only go to members with subscribers for their destination.
+ */
+@Component
+@ConditionalOnProperty(name = "game.broker.mode", havingValue = "embedded")
+public class EmbeddedRelay implements BroadcastRelay {
+
+    private static final Map<String, Set<EmbeddedRelay>> CLUSTERS = new ConcurrentHashMap<>();
+
+    private final String cluster;
+    private final LocalDelivery delivery;
+    private final TopicSubscriptions subscriptions;
+
+    public EmbeddedRelay(LocalDelivery delivery, TopicSubscriptions subscriptions,
+                         @Value("${game.cluster.name:local}") String cluster) {
+        this.delivery = delivery;
+        this.subscriptions = subscriptions;
+        this.cluster = cluster;
+        CLUSTERS.computeIfAbsent(cluster, name -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void publish(RelayFrame frame) {
+        for (EmbeddedRelay member : CLUSTERS.getOrDefault(cluster, Set.of())) {
+            if (member != this && member.subscriptions.hasSubscribers(frame.destination())) {
+                member.delivery.deliver(frame);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers(String destination) {
+        for (EmbeddedRelay member : CLUSTERS.getOrDefault(cluster, Set.of())) {
+            if (member != this && member.subscriptions.hasSubscribers(destination)) return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void leave() {
+        Set<EmbeddedRelay> members = CLUSTERS.get(cluster);
+        if (members != null) members.remove(this);
+    }
+}
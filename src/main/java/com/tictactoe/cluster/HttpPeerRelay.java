@@ -0,0 +1,187 @@
+package com.tictactoe.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays broker traffic to the other cluster members by POSTing batches to
+ * their {@code /internal/relay} endpoint. A frame only goes to the peers
+ * that have subscribers for its destination: each peer's {@link InterestLog}
+ * is followed with long polls, so a new subscriber there starts receiving
+ * within about one round trip. Each peer has a bounded queue drained by its
+ * own sender thread, so a slow or dead peer never holds up publishing;
+ * frames that do not fit are dropped and counted, and clients recover
+ * through a snapshot on the next sequence gap.
+ */
+@Component
+@ConditionalOnProperty(name = "game.broker.mode", havingValue = "peer")
+public class HttpPeerRelay implements BroadcastRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpPeerRelay.class);
+
+    private static final int MAX_BATCH = 256;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    private final int queueCapacity;
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final class Peer {
+        final String node;
+        final BlockingQueue<RelayFrame> queue;
+        // Destinations the peer has subscribers for, as of its last poll.
+        final Set<String> interest = ConcurrentHashMap.newKeySet();
+        private Thread sender;
+        private Thread follower;
+
+        Peer(String node) {
+            this.node = node;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("relay-" + node).start(this::run);
+            follower = Thread.ofVirtual().name("relay-interest-" + node).start(this::follow);
+        }
+
+        void stop() {
+            sender.interrupt();
+            follower.interrupt();
+        }
+
+        private void run() {
+            List<RelayFrame> batch = new ArrayList<>(MAX_BATCH);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                try {
+                    HttpResponse<byte[]> response = client.post(node, "/internal/relay", RelayFrame.encode(batch));
+                    if (response.statusCode() / 100 != 2) {
+                        dropped.addAndGet(batch.size());
+                        log.warn("Relay to {} rejected: HTTP {}", node, response.statusCode());
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    dropped.addAndGet(batch.size());
+                    log.warn("Relay to {} failed: {}", node, e.toString());
+                }
+                batch.clear();
+            }
+        }
+
+        // While the peer is unreachable its last known interest is kept.
+        private void follow() {
+            long epoch = 0, version = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    HttpResponse<byte[]> response = client.send(client.request(node,
+                            "/internal/relay/interest?epoch=" + epoch + "&version=" + version).GET().build());
+                    if (response.statusCode() != 200) {
+                        log.warn("Interest poll of {} rejected: HTTP {}", node, response.statusCode());
+                        Thread.sleep(RETRY_MILLIS);
+                        continue;
+                    }
+                    InterestLog.Update update = InterestLog.Update.decode(response.body());
+                    if (update.full()) {
+                        Set<String> current = new HashSet<>(update.added());
+                        interest.retainAll(current);
+                        interest.addAll(current);
+                    } else {
+                        interest.addAll(update.added());
+                        update.removed().forEach(interest::remove);
+                    }
+                    epoch = update.epoch();
+                    version = update.version();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    log.debug("Interest poll of {} failed: {}", node, e.toString());
+                    try {
+                        Thread.sleep(RETRY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    public HttpPeerRelay(ClusterMembership membership, ClusterClient client,
+                         @Value("${game.cluster.queue-capacity:10000}") int queueCapacity) {
+        this.membership = membership;
+        this.client = client;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @PostConstruct
+    public void start() {
+        syncPeers();
+        membership.addListener(this::syncPeers);
+    }
+
+    @Override
+    public void publish(RelayFrame frame) {
+        for (Peer peer : peers.values()) {
+            if (peer.interest.contains(frame.destination()) && !peer.queue.offer(frame)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers(String destination) {
+        for (Peer peer : peers.values()) {
+            if (peer.interest.contains(destination)) return true;
+        }
+        return false;
+    }
+
+    // Peers are started and stopped only here, never inside a map operation.
+    private synchronized void syncPeers() {
+        List<String> members = membership.getPeers();
+        peers.values().removeIf(peer -> {
+            if (members.contains(peer.node)) return false;
+            peer.stop();
+            return true;
+        });
+        for (String node : members) {
+            if (!peers.containsKey(node)) {
+                Peer peer = new Peer(node);
+                peer.start();
+                peers.put(node, peer);
+            }
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        peers.values().forEach(Peer::stop);
+    }
+}
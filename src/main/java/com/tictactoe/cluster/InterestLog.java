@@ -0,0 +1,149 @@
+package com.tictactoe.cluster;
+
+import com.tictactoe.service.TopicSubscriptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code /topic} destinations this node has subscribers for, versioned
+ * so that peers can follow it: {@link HttpPeerRelay} on every other node
+ * long-polls {@link #poll} and relays only the frames someone here wants.
+ * A peer that is behind gets the changes since its version; one that is too
+ * far behind, or saw an earlier run of this node, gets the whole set.
+ */
+@Component
+@ConditionalOnProperty(name = "game.broker.mode", havingValue = "peer")
+public class InterestLog {
+
+    /** How long a poll waits for a change; below the cluster request timeout. */
+    static final long HOLD_MILLIS = 3000;
+    private static final int MAX_CHANGES = 4096;
+
+    /** Destinations gained and lost since a version; {@code full} replaces the set. */
+    public record Update(long epoch, long version, boolean full, List<String> added, List<String> removed) {
+
+        /** Layout: epoch, version, full flag, then both lists as counts of short-prefixed UTF-8. */
+        public byte[] encode() {
+            List<byte[]> strings = new ArrayList<>(added.size() + removed.size());
+            int size = 8 + 8 + 1 + 4 + 4;
+            for (String destination : added) size += add(strings, destination);
+            for (String destination : removed) size += add(strings, destination);
+            ByteBuffer out = ByteBuffer.allocate(size);
+            out.putLong(epoch).putLong(version).put((byte) (full ? 1 : 0));
+            out.putInt(added.size());
+            for (int i = 0; i < added.size(); i++) put(out, strings.get(i));
+            out.putInt(removed.size());
+            for (int i = added.size(); i < strings.size(); i++) put(out, strings.get(i));
+            return out.array();
+        }
+
+        public static Update decode(byte[] body) {
+            ByteBuffer in = ByteBuffer.wrap(body);
+            long epoch = in.getLong();
+            long version = in.getLong();
+            boolean full = in.get() != 0;
+            List<String> added = strings(in);
+            return new Update(epoch, version, full, added, strings(in));
+        }
+
+        private static int add(List<byte[]> strings, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            strings.add(bytes);
+            return 2 + bytes.length;
+        }
+
+        private static void put(ByteBuffer out, byte[] bytes) {
+            out.putShort((short) bytes.length).put(bytes);
+        }
+
+        private static List<String> strings(ByteBuffer in) {
+            int count = in.getInt();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[in.getShort()];
+                in.get(bytes);
+                values.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return values;
+        }
+    }
+
+    private record Change(long version, String destination, boolean subscribed) {}
+
+    // Never 0, which a peer sends before its first poll.
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final Set<String> destinations = new HashSet<>();
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private long version;
+
+    public InterestLog(TopicSubscriptions subscriptions) {
+        subscriptions.addListener(this::changed);
+    }
+
+    private void changed(String destination, boolean subscribed) {
+        if (!destination.startsWith("/topic/")) return;
+        List<CompletableFuture<Void>> woken;
+        synchronized (this) {
+            if (subscribed ? !destinations.add(destination) : !destinations.remove(destination)) return;
+            changes.addLast(new Change(++version, destination, subscribed));
+            if (changes.size() > MAX_CHANGES) changes.removeFirst();
+            woken = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        woken.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Completes with what changed after {@code version} of {@code epoch}:
+     * at once if anything has, else on the next change or after
+     * {@link #HOLD_MILLIS} with nothing.
+     */
+    public CompletableFuture<Update> poll(long peerEpoch, long peerVersion) {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        synchronized (this) {
+            if (peerEpoch != epoch || peerVersion != version) {
+                return CompletableFuture.completedFuture(since(peerEpoch, peerVersion));
+            }
+            waiters.add(waiter);
+        }
+        return waiter.completeOnTimeout(null, HOLD_MILLIS, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> {
+                    synchronized (this) {
+                        waiters.remove(waiter);
+                        return since(peerEpoch, peerVersion);
+                    }
+                });
+    }
+
+    // Caller holds the lock.
+    private Update since(long peerEpoch, long peerVersion) {
+        boolean known = peerEpoch == epoch && peerVersion <= version
+                && (peerVersion == version || (!changes.isEmpty() && changes.getFirst().version() <= peerVersion + 1));
+        if (!known) {
+            return new Update(epoch, version, true, List.copyOf(destinations), List.of());
+        }
+        // Only the last change of each destination matters.
+        Map<String, Boolean> latest = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (change.version() > peerVersion) latest.put(change.destination(), change.subscribed());
+        }
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        latest.forEach((destination, subscribed) -> (subscribed ? added : removed).add(destination));
+        return new Update(epoch, version, false, added, removed);
+    }
+}
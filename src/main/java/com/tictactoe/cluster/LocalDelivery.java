@@ -0,0 +1,36 @@
+package com.tictactoe.cluster;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/** Hands frames relayed from other nodes to this node's broker. */
+@Component
+public class LocalDelivery {
+
+    /** Marks relayed messages so {@link RelayInterceptor} does not send them back out. */
+    static final String RELAYED_HEADER = "relayed";
+
+    // Looked up lazily: the template depends on the broker channel, which
+    // is configured with the relay that depends on this class.
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    public LocalDelivery(ObjectProvider<SimpMessagingTemplate> messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    public void deliver(RelayFrame frame) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (frame.contentType() != null) {
+            headers.setContentType(MimeType.valueOf(frame.contentType()));
+        }
+        headers.setHeader(RELAYED_HEADER, Boolean.TRUE);
+        headers.setLeaveMutable(true);
+        messagingTemplate.getObject().send(frame.destination(),
+                MessageBuilder.createMessage(frame.payload(), headers.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,51 @@
+package com.tictactoe.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** One broker message on the wire between nodes. */
+public record RelayFrame(String destination, String contentType, byte[] payload) {
+
+    /** Batch layout: per frame, destination and content type as short-prefixed UTF-8, then int-prefixed payload. */
+    public static byte[] encode(List<RelayFrame> frames) {
+        List<byte[]> strings = new ArrayList<>(frames.size() * 2);
+        int size = 0;
+        for (RelayFrame frame : frames) {
+            byte[] destination = frame.destination.getBytes(StandardCharsets.UTF_8);
+            byte[] contentType = frame.contentType == null ? new byte[0] : frame.contentType.getBytes(StandardCharsets.UTF_8);
+            strings.add(destination);
+            strings.add(contentType);
+            size += 8 + destination.length + contentType.length + frame.payload.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        for (int i = 0; i < frames.size(); i++) {
+            byte[] destination = strings.get(2 * i);
+            byte[] contentType = strings.get(2 * i + 1);
+            out.putShort((short) destination.length).put(destination);
+            out.putShort((short) contentType.length).put(contentType);
+            out.putInt(frames.get(i).payload.length).put(frames.get(i).payload);
+        }
+        return out.array();
+    }
+
+    public static List<RelayFrame> decode(byte[] batch) {
+        ByteBuffer in = ByteBuffer.wrap(batch);
+        List<RelayFrame> frames = new ArrayList<>();
+        while (in.hasRemaining()) {
+            String destination = string(in);
+            String contentType = string(in);
+            byte[] payload = new byte[in.getInt()];
+            in.get(payload);
+            frames.add(new RelayFrame(destination, contentType.isEmpty() ? null : contentType, payload));
+        }
+        return frames;
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
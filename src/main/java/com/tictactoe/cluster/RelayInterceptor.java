@@ -0,0 +1,47 @@
+package com.tictactoe.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.util.MimeType;
+
+/**
+ * Sits on the broker channel and copies every locally published
+ * {@code /topic} message to the relay. Catches {@code convertAndSend} and
+ * {@code @SendTo} alike.
+ */
+public class RelayInterceptor implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayInterceptor.class);
+
+    private final BroadcastRelay relay;
+
+    public RelayInterceptor(BroadcastRelay relay) {
+        this.relay = relay;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (headers == null
+                || headers.getMessageType() != SimpMessageType.MESSAGE
+                || headers.getHeader(LocalDelivery.RELAYED_HEADER) != null
+                || headers.getDestination() == null
+                || !headers.getDestination().startsWith("/topic/")
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        MimeType contentType = headers.getContentType();
+        try {
+            relay.publish(new RelayFrame(headers.getDestination(),
+                    contentType == null ? null : contentType.toString(), payload));
+        } catch (RuntimeException e) {
+            log.warn("Relay of {} failed", headers.getDestination(), e);
+        }
+        return message;
+    }
+}
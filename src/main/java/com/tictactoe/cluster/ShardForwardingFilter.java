@@ -0,0 +1,111 @@
+package com.tictactoe.cluster;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Proxies REST calls for a game owned by another node to that node, so
+ * clients can hit any instance behind the load balancer.
+ */
+@Component
+public class ShardForwardingFilter extends OncePerRequestFilter {
+
+    private static final Pattern GAME_PATH = Pattern.compile("^/api/game/([^/]+)(/.*)?$");
+    private static final Set<String> NOT_GAME_IDS = Set.of("new", "stats", "batch");
+    private static final List<String> REQUEST_HEADERS = List.of("Content-Type", "Accept", "Origin", "If-None-Match");
+    private static final List<String> RESPONSE_HEADERS = List.of("Content-Type", "ETag",
+            "Access-Control-Allow-Origin", "Access-Control-Expose-Headers", "Vary");
+    private static final long FORWARD_MARGIN_MILLIS = 5000;
+
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    private final long pollTimeoutMillis;
+
+    public ShardForwardingFilter(ClusterMembership membership, ClusterClient client,
+                                 @Value("${game.poll.timeout-ms:30000}") long pollTimeoutMillis) {
+        this.membership = membership;
+        this.client = client;
+        this.pollTimeoutMillis = pollTimeoutMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !membership.isSharded()
+                || request.getHeader(ClusterClient.FORWARDED_HEADER) != null
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Matcher matcher = GAME_PATH.matcher(request.getRequestURI());
+        if (!matcher.matches() || NOT_GAME_IDS.contains(matcher.group(1)) || membership.isLocal(matcher.group(1))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String owner = membership.ownerOf(matcher.group(1));
+        String target = request.getRequestURI() + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+        HttpRequest.Builder forward = client.request(owner, target)
+                .method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(request.getInputStream().readAllBytes()));
+        for (String header : REQUEST_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null) forward.header(header, value);
+        }
+
+        if (request.getParameter("sinceVersion") != null) {
+            // A long-poll: waits on the owner without holding a thread here.
+            forward.timeout(Duration.ofMillis(pollTimeoutMillis + FORWARD_MARGIN_MILLIS));
+            AsyncContext async = request.startAsync();
+            async.setTimeout(pollTimeoutMillis + 2 * FORWARD_MARGIN_MILLIS);
+            client.sendAsync(forward.build()).whenComplete((reply, error) -> {
+                try {
+                    relay(owner, reply, error, response);
+                } catch (IOException e) {
+                    // Client gone.
+                } finally {
+                    async.complete();
+                }
+            });
+            return;
+        }
+
+        HttpResponse<byte[]> reply = null;
+        Exception error = null;
+        try {
+            reply = client.send(forward.build());
+        } catch (Exception e) {
+            error = e;
+        }
+        relay(owner, reply, error, response);
+    }
+
+    private static void relay(String owner, HttpResponse<byte[]> reply, Throwable error, HttpServletResponse response)
+            throws IOException {
+        if (error != null) {
+            response.sendError(HttpStatus.BAD_GATEWAY.value(), "Owner " + owner + " unreachable");
+            return;
+        }
+        response.setStatus(reply.statusCode());
+        for (String header : RESPONSE_HEADERS) {
+            reply.headers().firstValue(header).ifPresent(value -> response.setHeader(header, value));
+        }
+        response.getOutputStream().write(reply.body());
+    }
+}
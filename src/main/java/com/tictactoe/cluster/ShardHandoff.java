@@ -0,0 +1,233 @@
+package com.tictactoe.cluster;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameCodec;
+import com.tictactoe.service.AIMoveService;
+import com.tictactoe.service.GameService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves games to their owner whenever the ring changes. A starting node
+ * announces itself to its peers, which then push it the games of the shards
+ * it took over; a node shutting down announces its departure and pushes all
+ * its games to their new owners before the context is torn down.
+ *
+ * Requests are forwarded to the new owner as soon as the ring changes, so a
+ * game in transit is briefly unknown there. The receiver restarts the AI
+ * reply of games that still owe one. Games a push failed for stay here,
+ * unreachable since requests go to the owner, and are pushed again every
+ * {@code game.cluster.handoff-retry-ms} until the owner takes them.
+ */
+@Component
+public class ShardHandoff {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardHandoff.class);
+
+    private static final int BATCH = 500;
+
+    private final GameService gameService;
+    private final AIMoveService aiMoveService;
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("shard-handoff").factory());
+    private final AtomicBoolean rebalanceQueued = new AtomicBoolean();
+    // Set while games whose owner is elsewhere are stuck here after a failed push.
+    private final AtomicBoolean retryPending = new AtomicBoolean();
+    // Not a monitor: the worker is a virtual thread and blocks on lane futures
+    // while holding this, which would pin its carrier.
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+    public ShardHandoff(GameService gameService, AIMoveService aiMoveService,
+                        ClusterMembership membership, ClusterClient client) {
+        this.gameService = gameService;
+        this.aiMoveService = aiMoveService;
+        this.membership = membership;
+        this.client = client;
+        membership.addListener(this::queueRebalance);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void announce() {
+        if (!membership.isSharded()) return;
+        for (String peer : membership.getPeers()) {
+            try {
+                HttpResponse<byte[]> response = client.send(client.request(peer, "/internal/cluster/join")
+                        .POST(HttpRequest.BodyPublishers.ofString(membership.getSelf()))
+                        .build());
+                if (response.statusCode() / 100 == 2) {
+                    membership.join(List.of(new String(response.body(), StandardCharsets.UTF_8).split("\n")));
+                }
+            } catch (Exception e) {
+                log.warn("Could not announce to {}: {}", peer, e.toString());
+            }
+        }
+        // Games recovered from the journal may belong elsewhere by now.
+        queueRebalance();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void depart() {
+        if (!membership.isSharded() || membership.getNodes().size() < 2) return;
+        List<String> peers = membership.getPeers();
+        for (String peer : peers) {
+            try {
+                client.send(client.request(peer, "/internal/cluster/leave")
+                        .POST(HttpRequest.BodyPublishers.ofString(membership.getSelf()))
+                        .build());
+            } catch (Exception e) {
+                log.warn("Could not announce departure to {}: {}", peer, e.toString());
+            }
+        }
+        membership.leave(membership.getSelf());
+        rebalance();
+        worker.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${game.cluster.handoff-retry-ms:5000}")
+    public void retryFailedHandoffs() {
+        if (retryPending.get()) queueRebalance();
+    }
+
+    private void queueRebalance() {
+        if (worker.isShutdown()) return;
+        if (rebalanceQueued.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                rebalanceQueued.set(false);
+                rebalance();
+            });
+        }
+    }
+
+    /** Pushes every local game this node no longer owns to its owner. */
+    public void rebalance() {
+        if (!membership.isSharded()) return;
+        rebalanceLock.lock();
+        try {
+            retryPending.set(false);
+            moveForeignGames();
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    private void moveForeignGames() {
+        Map<String, List<String>> moving = new HashMap<>();
+        gameService.forEachGame((gameId, game) -> {
+            String owner = membership.ownerOf(gameId);
+            if (!owner.equals(membership.getSelf())) {
+                moving.computeIfAbsent(owner, node -> new ArrayList<>()).add(gameId);
+            }
+        });
+
+        int moved = 0;
+        for (Map.Entry<String, List<String>> entry : moving.entrySet()) {
+            List<String> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += BATCH) {
+                moved += send(entry.getKey(), ids.subList(from, Math.min(ids.size(), from + BATCH)));
+            }
+        }
+        if (moved > 0) {
+            log.info("Handed off {} games to {}", moved, moving.keySet());
+        }
+    }
+
+    private int send(String owner, List<String> ids) {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        Map<String, Game> sent = new LinkedHashMap<>();
+        for (String gameId : ids) {
+            // Encoded and removed in one lane task: a command queued behind it
+            // finds no game, rather than changing a copy that is already gone.
+            Game taken = gameService.query(gameId, game -> {
+                if (game == null) return null;
+                batch.writeBytes(encode(gameId, game));
+                gameService.deleteGame(gameId);
+                return game;
+            }).join();
+            if (taken != null) sent.put(gameId, taken);
+        }
+        if (sent.isEmpty()) return 0;
+
+        try {
+            HttpResponse<byte[]> response = client.post(owner, "/internal/cluster/handoff", batch.toByteArray());
+            if (response.statusCode() / 100 == 2) return sent.size();
+            log.warn("Handoff to {} rejected: HTTP {}", owner, response.statusCode());
+        } catch (Exception e) {
+            log.warn("Handoff to {} failed: {}", owner, e.toString());
+        }
+        // Kept here until the retry, or a ring change, moves them.
+        retryPending.set(true);
+        sent.forEach((gameId, game) -> gameService.query(gameId, current -> {
+            if (current == null) gameService.saveGame(gameId, game);
+            return null;
+        }).join());
+        return 0;
+    }
+
+    /** Stores games pushed by another node; returns how many were taken. */
+    public int receive(byte[] batch) {
+        ByteBuffer in = ByteBuffer.wrap(batch);
+        List<CompletableFuture<Boolean>> installs = new ArrayList<>();
+        while (in.hasRemaining()) {
+            byte[] id = new byte[in.getShort()];
+            in.get(id);
+            int length = in.getInt();
+            ByteBuffer record = in.slice(in.position(), length);
+            in.position(in.position() + record.remaining());
+            String gameId = new String(id, StandardCharsets.UTF_8);
+            Game game = GameCodec.read(record);
+
+            // Installed on the lane, so it cannot race a command for the game.
+            installs.add(gameService.query(gameId, existing -> {
+                // A copy that moved away and back must not overwrite newer state.
+                if (existing != null && existing.getVersion() > game.getVersion()) return false;
+                gameService.saveGame(gameId, game);
+                return true;
+            }).thenApply(installed -> {
+                if (installed && game.isAITurn()) {
+                    gameService.execute(gameId, current -> current == null ? null : aiMoveService.scheduleMove(gameId, current));
+                }
+                return installed;
+            }));
+        }
+        int taken = 0;
+        for (CompletableFuture<Boolean> install : installs) {
+            if (install.join()) taken++;
+        }
+        return taken;
+    }
+
+    private static byte[] encode(String gameId, Game game) {
+        byte[] id = gameId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(6 + id.length + GameCodec.maxBytes(game));
+        record.putShort((short) id.length).put(id);
+        int lengthAt = record.position();
+        record.position(lengthAt + 4);
+        GameCodec.write(game, record);
+        record.putInt(lengthAt, record.position() - lengthAt - 4);
+        return Arrays.copyOf(record.array(), record.position());
+    }
+}
@@ -0,0 +1,91 @@
+package com.tictactoe.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sits on the client inbound channel and sends game commands for games
+ * owned elsewhere to the owner, which handles them as if they had arrived
+ * there; the resulting broadcasts come back through the broker relay.
+ * Commands for one game are sent one at a time, in order; different games
+ * do not wait for each other, even on the same owner.
+ */
+@Component
+public class StompForwardingInterceptor implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(StompForwardingInterceptor.class);
+
+    private static final Pattern GAME_COMMAND = Pattern.compile("^/app/(join|move|rematch|leave|chat)/([^/]+)$");
+
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    // game id -> its last forwarded command, while one is in flight
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public StompForwardingInterceptor(ClusterMembership membership, ClusterClient client) {
+        this.membership = membership;
+        this.client = client;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!membership.isSharded()) return message;
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (headers == null
+                || headers.getMessageType() != SimpMessageType.MESSAGE
+                || headers.getHeader(ClusterClient.FORWARDED_HEADER) != null
+                || headers.getDestination() == null
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        Matcher matcher = GAME_COMMAND.matcher(headers.getDestination());
+        if (!matcher.matches() || membership.isLocal(matcher.group(2))) {
+            return message;
+        }
+
+        MimeType contentType = headers.getContentType();
+        forward(matcher.group(2), headers.getDestination(), contentType == null ? null : contentType.toString(), payload);
+        return null;
+    }
+
+    /**
+     * Sends a command for the game to its owner, to be handled there as if
+     * it had arrived over STOMP. Completes once the owner has accepted it;
+     * commands for one game are delivered in the order they were forwarded.
+     */
+    public CompletableFuture<Void> forward(String gameId, String destination, String contentType, byte[] payload) {
+        String owner = membership.ownerOf(gameId);
+        String query = "?destination=" + URLEncoder.encode(destination, StandardCharsets.UTF_8)
+                + (contentType == null ? "" : "&contentType=" + URLEncoder.encode(contentType, StandardCharsets.UTF_8));
+        HttpRequest request = client.request(owner, "/internal/cluster/stomp" + query)
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+        // Chained per game so e.g. a join still arrives before the move after it.
+        CompletableFuture<Void> next = tails.compute(gameId, (id, tail) ->
+                (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail)
+                        .thenCompose(ignored -> client.sendAsync(request))
+                        .handle((reply, e) -> {
+                            if (e != null) log.warn("Forwarding {} to {} failed: {}", destination, owner, e.toString());
+                            return null;
+                        }));
+        next.whenComplete((ignored, e) -> tails.remove(gameId, next));
+        return next;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tictactoe.config;
+
+import com.tictactoe.socket.BinaryGameHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+// Native WebSocket with binary frames, next to the STOMP/SockJS endpoint.
+@Configuration
+@EnableWebSocket
+public class BinarySocketConfig implements WebSocketConfigurer {
+
+    private final BinaryGameHandler handler;
+
+    public BinarySocketConfig(BinaryGameHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(handler, "/ws-game").setAllowedOriginPatterns("*");
+    }
+}
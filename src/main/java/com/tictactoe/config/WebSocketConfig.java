@@ -1,23 +1,104 @@
 package com.tictactoe.config;
 
+import com.tictactoe.cluster.BroadcastRelay;
+import com.tictactoe.cluster.RelayInterceptor;
+import com.tictactoe.cluster.StompForwardingInterceptor;
+import com.tictactoe.metrics.OutboundMessageMetrics;
+import com.tictactoe.service.ChatRateLimiter;
+import com.tictactoe.service.PresenceTracker;
+import com.tictactoe.socket.BinarySessions;
+import com.tictactoe.socket.SharedFrameStompEncoder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ObjectProvider<BroadcastRelay> relay;
+    private final StompForwardingInterceptor forwarding;
+    private final ChatRateLimiter chatRateLimiter;
+    private final OutboundMessageMetrics outboundMetrics;
+    private final BinarySessions binarySessions;
+    private final PresenceTracker presenceTracker;
+    private final long heartbeatMillis;
+
+    public WebSocketConfig(ObjectProvider<BroadcastRelay> relay, StompForwardingInterceptor forwarding,
+                           ChatRateLimiter chatRateLimiter, OutboundMessageMetrics outboundMetrics,
+                           BinarySessions binarySessions, PresenceTracker presenceTracker,
+                           @Value("${game.presence.heartbeat-ms:10000}") long heartbeatMillis) {
+        this.relay = relay;
+        this.forwarding = forwarding;
+        this.chatRateLimiter = chatRateLimiter;
+        this.outboundMetrics = outboundMetrics;
+        this.binarySessions = binarySessions;
+        this.presenceTracker = presenceTracker;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    // Chat is rate limited and joins are recorded where the session lives;
+    // commands for games owned by another node are then sent there.
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(chatRateLimiter, presenceTracker, forwarding);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(outboundMetrics);
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // Heartbeats both ways, for clients that ask for them: a silent client
+        // is disconnected, which frees its seats; see PresenceTracker.
+        // /queue carries per-session replies such as matchmaking results.
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[] {heartbeatMillis, heartbeatMillis})
+                .setTaskScheduler(stompHeartbeatScheduler());
         config.setApplicationDestinationPrefixes("/app");
+
+        // Game topics are also fanned out to /ws-game sessions as binary frames.
+        config.configureBrokerChannel().interceptors(binarySessions);
+        // game.broker.mode other than "simple": share /topic traffic with the other nodes.
+        BroadcastRelay broadcastRelay = relay.getIfAvailable();
+        if (broadcastRelay != null) {
+            config.configureBrokerChannel().interceptors(new RelayInterceptor(broadcastRelay));
+        }
+    }
+
+    // A bean, so the context starts and shuts it down with the broker.
+    @Bean
+    public ThreadPoolTaskScheduler stompHeartbeatScheduler() {
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setThreadNamePrefix("stomp-heartbeat-");
+        return heartbeats;
+    }
+
+    // The registry offers no encoder setting, so it is swapped in once the
+    // handler exists, before the server starts taking connections.
+    @Bean
+    public SmartInitializingSingleton stompEncoderInstaller(ObjectProvider<SubProtocolWebSocketHandler> handler) {
+        return () -> handler.ifAvailable(webSocketHandler -> webSocketHandler.getProtocolHandlers().stream()
+                .filter(StompSubProtocolHandler.class::isInstance)
+                .forEach(stomp -> ((StompSubProtocolHandler) stomp).setEncoder(new SharedFrameStompEncoder())));
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // A client's join must be handled before its snapshot subscription.
+        registry.setPreserveReceiveOrder(true);
         registry.addEndpoint("/ws-tictactoe")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
@@ -0,0 +1,175 @@
+package com.tictactoe.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.dto.BatchMoveRequest;
+import com.tictactoe.dto.BatchResult;
+import com.tictactoe.dto.GameResponse;
+import com.tictactoe.service.GameService;
+import com.tictactoe.service.MoveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Many games per request, for bots and tournament runners. Each endpoint
+ * takes a JSON array and streams back one {@link BatchResult} per game as
+ * newline-delimited JSON, in the order the games finish. Games run in
+ * parallel on their own lanes; with sharding, the games owned by another
+ * node are sent there as one batch and its lines relayed as they arrive.
+ */
+@RestController
+@RequestMapping("/api/game/batch")
+@CrossOrigin(origins = "*")
+public class BatchController {
+
+    private final GameService gameService;
+    private final MoveService moveService;
+    private final ClusterMembership membership;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+    private final int maxGames;
+    private final long timeoutMillis;
+
+    public BatchController(GameService gameService, MoveService moveService, ClusterMembership membership,
+                           ClusterClient clusterClient, ObjectMapper objectMapper,
+                           @Value("${game.batch.max-games:1000}") int maxGames,
+                           @Value("${game.batch.timeout-ms:60000}") long timeoutMillis) {
+        this.gameService = gameService;
+        this.moveService = moveService;
+        this.membership = membership;
+        this.clusterClient = clusterClient;
+        this.objectMapper = objectMapper;
+        this.maxGames = maxGames;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Plays each entry's moves in order, each after the previous one's AI
+     * reply, stopping at the first refused move. Entries for different games
+     * proceed in parallel.
+     */
+    @PostMapping(value = "/moves", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> moves(@RequestBody List<BatchMoveRequest> batch,
+                                                     @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwarded) {
+        return run(batch, BatchMoveRequest::getGameId, "/api/game/batch/moves", forwarded, entry -> {
+            String gameId = entry.getGameId();
+            return moveService.playAll(gameId, entry.getMoves() == null ? List.of() : entry.getMoves())
+                    .thenCompose(sequence -> {
+                        if (!sequence.stopped() && sequence.last() == null) {
+                            return state(gameId);
+                        }
+                        GameResponse last = sequence.last();
+                        return CompletableFuture.completedFuture(new BatchResult(gameId, sequence.applied(),
+                                last == null ? "Game not found" : last.getError(), last));
+                    });
+        });
+    }
+
+    @PostMapping(value = "/state", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> state(@RequestBody List<String> gameIds,
+                                                     @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwarded) {
+        return run(gameIds, Function.identity(), "/api/game/batch/state", forwarded, this::state);
+    }
+
+    private CompletableFuture<BatchResult> state(String gameId) {
+        return gameService.query(gameId, game -> game == null
+                ? new BatchResult(gameId, 0, "Game not found", null)
+                : new BatchResult(gameId, 0, null, GameResponse.from(gameId, game, null)));
+    }
+
+    private <T> ResponseEntity<ResponseBodyEmitter> run(List<T> batch, Function<T, String> gameIdOf, String path,
+                                                        String forwarded,
+                                                        Function<T, CompletableFuture<BatchResult>> local) {
+        if (batch.size() > maxGames) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxGames + " games per batch");
+        }
+        LineEmitter emitter = new LineEmitter(timeoutMillis);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        Map<String, List<T>> remote = new LinkedHashMap<>();
+
+        for (T entry : batch) {
+            String gameId = gameIdOf.apply(entry);
+            if (gameId == null) {
+                emitter.line(new BatchResult(null, 0, "gameId is required", null));
+            } else if (forwarded != null || membership.isLocal(gameId)) {
+                pending.add(local.apply(entry)
+                        .exceptionally(e -> new BatchResult(gameId, 0, "Failed: "
+                                + (e.getCause() != null ? e.getCause() : e).getMessage(), null))
+                        .thenAccept(emitter::line));
+            } else {
+                remote.computeIfAbsent(membership.ownerOf(gameId), owner -> new ArrayList<>()).add(entry);
+            }
+        }
+        remote.forEach((owner, entries) -> pending.add(relay(owner, path, entries, gameIdOf, emitter)));
+
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> emitter.complete());
+        // Set here: the headers are sent before the first line is.
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    // Sends the owner its share as one batch and passes its lines through.
+    private <T> CompletableFuture<?> relay(String owner, String path, List<T> entries, Function<T, String> gameIdOf,
+                                           LineEmitter emitter) {
+        HttpRequest request;
+        try {
+            request = clusterClient.request(owner, path)
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(entries)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return clusterClient.streamLines(request, emitter::raw)
+                .handle((status, error) -> {
+                    if (error != null || status != 200) {
+                        String reason = "Owner " + owner + (error != null ? " unreachable" : " returned " + status);
+                        entries.forEach(entry -> emitter.line(new BatchResult(gameIdOf.apply(entry), 0, reason, null)));
+                    }
+                    return null;
+                });
+    }
+
+    /** Writes whole lines; a client that has gone away just stops receiving them. */
+    private final class LineEmitter extends ResponseBodyEmitter {
+
+        LineEmitter(long timeoutMillis) {
+            super(timeoutMillis);
+        }
+
+        void line(BatchResult result) {
+            try {
+                raw(objectMapper.writeValueAsString(result));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void raw(String json) {
+            try {
+                send(json + "\n", MediaType.APPLICATION_NDJSON);
+            } catch (IOException | IllegalStateException e) {
+                // Disconnected or timed out.
+            }
+        }
+    }
+}
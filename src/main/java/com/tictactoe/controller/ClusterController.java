@@ -0,0 +1,84 @@
+package com.tictactoe.controller;
+
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.cluster.ShardHandoff;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+
+/** Node-to-node endpoints for ring membership, game handoff and forwarded STOMP commands. */
+@RestController
+@RequestMapping("/internal/cluster")
+@ConditionalOnExpression("!'${game.cluster.self:}'.isEmpty()")
+public class ClusterController {
+
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    private final ShardHandoff handoff;
+    private final MessageChannel clientInboundChannel;
+
+    public ClusterController(ClusterMembership membership, ClusterClient client, ShardHandoff handoff,
+                             @Qualifier("clientInboundChannel") MessageChannel clientInboundChannel) {
+        this.membership = membership;
+        this.client = client;
+        this.handoff = handoff;
+        this.clientInboundChannel = clientInboundChannel;
+    }
+
+    /** Adds the caller to the ring and answers with every member this node knows. */
+    @PostMapping("/join")
+    public ResponseEntity<String> join(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+                                       @RequestBody String node) {
+        if (!client.accepts(secret)) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        membership.join(List.of(node));
+        return ResponseEntity.ok(String.join("\n", membership.getNodes()));
+    }
+
+    @PostMapping("/leave")
+    public ResponseEntity<Void> leave(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+                                      @RequestBody String node) {
+        if (!client.accepts(secret)) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        membership.leave(node);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(value = "/handoff", consumes = "application/octet-stream")
+    public ResponseEntity<Integer> handoff(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+                                           @RequestBody byte[] batch) {
+        if (!client.accepts(secret)) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        return ResponseEntity.ok(handoff.receive(batch));
+    }
+
+    /** Replays a STOMP command another node received for a game owned here. */
+    @PostMapping(value = "/stomp", consumes = "application/octet-stream")
+    public ResponseEntity<Void> stomp(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+                                      @RequestParam String destination,
+                                      @RequestParam(required = false) String contentType,
+                                      @RequestBody byte[] payload) {
+        if (!client.accepts(secret)) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        headers.setSessionId("cluster-forward");
+        headers.setSessionAttributes(new HashMap<>());
+        if (contentType != null) headers.setContentType(MimeType.valueOf(contentType));
+        headers.setHeader(ClusterClient.FORWARDED_HEADER, Boolean.TRUE);
+        clientInboundChannel.send(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -1,80 +1,187 @@
 package com.tictactoe.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.dto.AICacheStats;
+import com.tictactoe.dto.ChatMessage;
+import com.tictactoe.dto.GameHistory;
 import com.tictactoe.dto.GameResponse;
+import com.tictactoe.dto.GameStoreStats;
 import com.tictactoe.dto.MoveRequest;
+import com.tictactoe.model.AIMode;
 import com.tictactoe.model.Game;
+import com.tictactoe.service.AIMoveService;
+import com.tictactoe.service.ChatService;
 import com.tictactoe.service.GameService;
+import com.tictactoe.service.MoveService;
+import com.tictactoe.service.StatePolls;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.UUID;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/game")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class GameController {
 
     private final GameService gameService;
+    private final MoveService moveService;
+    private final AIMoveService aiMoveService;
+    private final ChatService chatService;
+    private final StatePolls polls;
+    private final ClusterMembership membership;
+    private final ObjectMapper objectMapper;
 
-    public GameController(GameService gameService) {
+    public GameController(GameService gameService, MoveService moveService, AIMoveService aiMoveService,
+                          ChatService chatService, StatePolls polls, ClusterMembership membership,
+                          ObjectMapper objectMapper) {
         this.gameService = gameService;
+        this.moveService = moveService;
+        this.aiMoveService = aiMoveService;
+        this.chatService = chatService;
+        this.polls = polls;
+        this.membership = membership;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/new")
-    public GameResponse newGame(@RequestParam(required = false, defaultValue = "false") boolean aiMode) {
-        String gameId = UUID.randomUUID().toString();
-        Game game = new Game(aiMode);
+    public GameResponse newGame(@RequestParam(required = false, defaultValue = "false") String aiMode,
+                                @RequestParam(required = false, defaultValue = "3") int size,
+                                @RequestParam(required = false) Integer winLength) {
+        AIMode mode;
+        try {
+            mode = AIMode.parse(aiMode);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown aiMode: " + aiMode);
+        }
+
+        Game game;
+        try {
+            game = new Game(mode, size, winLength != null ? winLength : Math.min(size, 5));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        // Minted in a shard this node owns, so the game is created where it lives.
+        String gameId = gameService.newGameId(membership.localShard());
         gameService.saveGame(gameId, game);
 
         return createResponse(gameId, game, null);
     }
 
+    // Completes after the AI reply (if any) so REST clients still get it in
+    // one round trip, without holding the servlet thread during the search.
     @PostMapping("/{gameId}/move")
-    public GameResponse makeMove(@PathVariable String gameId, @RequestBody MoveRequest move) {
-        Game game = gameService.getGame(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
-
-        boolean success = game.makeMove(move.getRow(), move.getColumn(), move.getPlayer());
-
-        return createResponse(gameId, game, success ? null : "Invalid move");
+    public CompletableFuture<GameResponse> makeMove(@PathVariable String gameId, @RequestBody MoveRequest move) {
+        return moveService.play(gameId, move).thenApply(response -> {
+            if (response == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+            return response;
+        });
     }
 
+    // Answers 304 without building the response when the client's tag is current.
     @GetMapping("/{gameId}")
-    public GameResponse getGame(@PathVariable String gameId) {
-        Game game = gameService.getGame(gameId);
-        if (game == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
-        }
+    public CompletableFuture<ResponseEntity<GameResponse>> getGame(@PathVariable String gameId,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return gameService.query(gameId, game -> {
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+            String tag = game.stateTag();
+            if (matches(ifNoneMatch, tag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+            }
+            return StatePolls.response(gameId, game);
+        });
+    }
 
-        return createResponse(gameId, game, null);
+    /**
+     * Long-poll: answers once the game has a version above
+     * {@code sinceVersion} (its {@code seq}), or 304 after
+     * {@code game.poll.timeout-ms}.
+     */
+    @GetMapping(value = "/{gameId}", params = "sinceVersion")
+    public DeferredResult<ResponseEntity<GameResponse>> pollGame(@PathVariable String gameId,
+                                                                 @RequestParam long sinceVersion) {
+        return polls.await(gameId, sinceVersion);
     }
 
 
     private GameResponse createResponse(String gameId, Game game, String error) {
-        return new GameResponse(
-                gameId,
-                game.getBoard().getCells(),
-                game.getGameStatus(),
-                game.getCurrentPlayer().toString(),
-                error,
-                game.isPlayerXPresent(),
-                game.isPlayerOPresent(),
-                game.isPlayerXReady(),
-                game.isPlayerOReady(),
-                game.getStartingPlayer().toString()
-        );
+        return GameResponse.from(gameId, game, error);
     }
 
+    /** The game's recent chat, oldest first. */
+    @GetMapping("/{gameId}/chat")
+    public CompletableFuture<List<ChatMessage>> getChat(@PathVariable String gameId) {
+        return chatService.history(gameId).thenApply(history -> {
+            if (history == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+            return history;
+        });
+    }
+
+    /** The game's moves, round by round, for replay. */
+    @GetMapping("/{gameId}/history")
+    public CompletableFuture<GameHistory> getHistory(@PathVariable String gameId) {
+        return gameService.query(gameId, game -> {
+            if (game == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found");
+            }
+            return GameHistory.from(gameId, game);
+        });
+    }
+
+    // Serialized on the lane, so the body and its tag describe the same state.
     @GetMapping("/{gameId}/state")
-    public ResponseEntity<Game> getGameState(@PathVariable String gameId) {
-        Game game = gameService.getGame(gameId);
-        if (game == null) {
-            return ResponseEntity.notFound().build();
+    public CompletableFuture<ResponseEntity<byte[]>> getGameState(@PathVariable String gameId,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return gameService.query(gameId, game -> {
+            if (game == null) {
+                return ResponseEntity.notFound().<byte[]>build();
+            }
+            String tag = game.stateTag();
+            if (matches(ifNoneMatch, tag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).<byte[]>build();
+            }
+            try {
+                return ResponseEntity.ok().eTag(tag).contentType(MediaType.APPLICATION_JSON)
+                        .body(objectMapper.writeValueAsBytes(game));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+            if (candidate.equals(tag) || candidate.equals("*")) return true;
         }
-        return ResponseEntity.ok(game);
+        return false;
+    }
+
+    @GetMapping("/stats")
+    public GameStoreStats getStats() {
+        return gameService.getStats();
+    }
+
+    @GetMapping("/stats/ai-cache")
+    public AICacheStats getAICacheStats() {
+        return aiMoveService.getCacheStats();
     }
-}
\ No newline at end of file
+}
@@ -1,109 +1,114 @@
 package com.tictactoe.controller;
 
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.cluster.ClusterMembership;
 import com.tictactoe.dto.ChatMessage;
+import com.tictactoe.dto.GameHistory;
 import com.tictactoe.dto.GameResponse;
 import com.tictactoe.dto.MoveRequest;
 import com.tictactoe.dto.JoinRequest;
-import com.tictactoe.model.Game;
-import com.tictactoe.model.Player;
+import com.tictactoe.dto.MatchRequest;
+import com.tictactoe.service.ChatService;
 import com.tictactoe.service.GameService;
-import com.tictactoe.dto.JoinResponse;
+import com.tictactoe.service.LiveGameService;
+import com.tictactoe.service.MatchmakingService;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
 @Controller
 public class LiveGameController {
 
     private final GameService gameService;
-    private final SimpMessagingTemplate messagingTemplate;
-
-    public LiveGameController(GameService gameService, SimpMessagingTemplate messagingTemplate) {
+    private final LiveGameService liveGameService;
+    private final ChatService chatService;
+    private final MatchmakingService matchmaking;
+    private final ClusterMembership membership;
+    private final ClusterClient clusterClient;
+
+    public LiveGameController(GameService gameService, LiveGameService liveGameService, ChatService chatService,
+                              MatchmakingService matchmaking, ClusterMembership membership,
+                              ClusterClient clusterClient) {
         this.gameService = gameService;
-        this.messagingTemplate = messagingTemplate;
+        this.liveGameService = liveGameService;
+        this.chatService = chatService;
+        this.matchmaking = matchmaking;
+        this.membership = membership;
+        this.clusterClient = clusterClient;
     }
 
     @MessageMapping("/join/{gameId}")
     public void handleJoin(@DestinationVariable String gameId, JoinRequest request) {
-        Game game = gameService.getGame(gameId);
-        if (game != null) {
-            String sessionId = request.getSessionId();
-            Player requestedPlayer = "X".equals(request.getPlayer()) ? Player.X : Player.O;
-
-            boolean wasSpectator = !game.canJoinAsPlayer(sessionId, requestedPlayer);
-
-            if (!wasSpectator) {
-                game.assignPlayer(sessionId, requestedPlayer);
+        liveGameService.join(gameId, request);
+    }
 
-                if (requestedPlayer == Player.X) {
-                    game.setPlayerXPresent(true);
-                } else {
-                    game.setPlayerOPresent(true);
-                }
+    @MessageMapping("/move/{gameId}")
+    public void handleMove(@DestinationVariable String gameId, MoveRequest move) {
+        liveGameService.move(gameId, move);
+    }
 
-                System.out.println("Player " + request.getPlayer() + " (Session: " + sessionId + ") joined session: " + gameId);
-            } else {
-                System.out.println("Session " + sessionId + " joined as spectator in game: " + gameId);
-            }
+    @MessageMapping("/rematch/{gameId}")
+    public void handleRematch(@DestinationVariable String gameId, JoinRequest request) {
+        liveGameService.rematch(gameId, request);
+    }
 
-            broadcastState(gameId, game);
-        }
+    @MessageMapping("/leave/{gameId}")
+    public void handleLeave(@DestinationVariable String gameId, JoinRequest request) {
+        liveGameService.leave(gameId, request);
     }
 
-    @MessageMapping("/move/{gameId}")
-    public void handleMove(@DestinationVariable String gameId, MoveRequest move) {
-        Game game = gameService.getGame(gameId);
-        if (game != null) {
-            String sessionId = move.getSessionId();
+    // The outcome goes to this session only, on /user/queue/match.
+    @MessageMapping("/match")
+    public void handleMatch(MatchRequest request, SimpMessageHeaderAccessor headers) {
+        matchmaking.enqueue(headers.getSessionId(), request);
+    }
 
+    @MessageMapping("/match/cancel")
+    public void handleMatchCancel(SimpMessageHeaderAccessor headers) {
+        matchmaking.cancel(headers.getSessionId());
+    }
 
-            if (!game.isSpectator(sessionId)) {
-                boolean success = game.makeMove(move.getRow(), move.getColumn(), move.getPlayer());
-                if (success) {
-                    broadcastState(gameId, game);
-                }
-            } else {
-                System.out.println("Spectator " + sessionId + " tried to make a move - blocked");
-            }
+    // Full state sent once to the subscriber; clients of the delta topic
+    // fetch it on join and whenever they see a gap in the sequence.
+    @SubscribeMapping("/game/{gameId}/snapshot")
+    public CompletableFuture<?> snapshot(@DestinationVariable String gameId) {
+        if (!membership.isLocal(gameId)) {
+            return clusterClient.fetchGame(membership.ownerOf(gameId), gameId);
         }
+        return gameService.query(gameId, game -> game == null
+                ? null
+                : GameResponse.from(gameId, game, null));
     }
 
-    @MessageMapping("/rematch/{gameId}")
-    public void handleRematch(@DestinationVariable String gameId, JoinRequest request) {
-        Game game = gameService.getGame(gameId);
-        if (game != null) {
-            if ("X".equals(request.getPlayer())) game.setPlayerXReady(true);
-            if ("O".equals(request.getPlayer())) game.setPlayerOReady(true);
-
-            if (game.isPlayerXReady() && game.isPlayerOReady()) {
-                game.resetBoard();
-            }
-            broadcastState(gameId, game);
+    // Moves so far, sent once to the subscriber: a spectator arriving
+    // mid-game replays them, then follows the delta topic from this seq.
+    @SubscribeMapping("/game/{gameId}/history")
+    public CompletableFuture<?> history(@DestinationVariable String gameId) {
+        if (!membership.isLocal(gameId)) {
+            return clusterClient.fetchJson(membership.ownerOf(gameId),
+                    "/api/game/" + URLEncoder.encode(gameId, StandardCharsets.UTF_8) + "/history");
         }
+        return gameService.query(gameId, game -> game == null ? null : GameHistory.from(gameId, game));
     }
 
     @MessageMapping("/chat/{gameId}")
-    @SendTo("/topic/game/{gameId}/chat")
-    public ChatMessage handleChat(@DestinationVariable String gameId, ChatMessage message) {
-        message.setTimestamp(System.currentTimeMillis());
-        return message;
+    public void handleChat(@DestinationVariable String gameId, ChatMessage message) {
+        chatService.post(gameId, message);
     }
 
-    private void broadcastState(String gameId, Game game) {
-        GameResponse response = new GameResponse(
-                gameId,
-                game.getBoard().getCells(),
-                game.getGameStatus(),
-                game.getCurrentPlayer().toString(),
-                null,
-                game.isPlayerXPresent(),
-                game.isPlayerOPresent(),
-                game.isPlayerXReady(),
-                game.isPlayerOReady(),
-                game.getStartingPlayer().toString()
-        );
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, response);
+    // Recent chat, sent once to the subscriber; live messages follow on the chat topic.
+    @SubscribeMapping("/game/{gameId}/chat")
+    public CompletableFuture<?> chatHistory(@DestinationVariable String gameId) {
+        if (!membership.isLocal(gameId)) {
+            return clusterClient.fetchJson(membership.ownerOf(gameId),
+                    "/api/game/" + URLEncoder.encode(gameId, StandardCharsets.UTF_8) + "/chat");
+        }
+        return chatService.history(gameId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.tictactoe.controller;
+
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.cluster.HttpPeerRelay;
+import com.tictactoe.cluster.InterestLog;
+import com.tictactoe.cluster.LocalDelivery;
+import com.tictactoe.cluster.RelayFrame;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Receiving end of {@link HttpPeerRelay}: delivers frames published on a
+ * peer node, and tells peers which destinations to send.
+ */
+@RestController
+@ConditionalOnProperty(name = "game.broker.mode", havingValue = "peer")
+public class RelayController {
+
+    private final ClusterClient client;
+    private final LocalDelivery delivery;
+    private final InterestLog interest;
+
+    public RelayController(ClusterClient client, LocalDelivery delivery, InterestLog interest) {
+        this.client = client;
+        this.delivery = delivery;
+        this.interest = interest;
+    }
+
+    @PostMapping(value = "/internal/relay", consumes = "application/octet-stream")
+    public ResponseEntity<Void> receive(@RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+                                        @RequestBody byte[] batch) {
+        if (!client.accepts(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        for (RelayFrame frame : RelayFrame.decode(batch)) {
+            delivery.deliver(frame);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Long poll: changes to this node's subscribed destinations after the given version. */
+    @GetMapping(value = "/internal/relay/interest", produces = "application/octet-stream")
+    public CompletableFuture<ResponseEntity<byte[]>> interest(
+            @RequestHeader(value = ClusterClient.SECRET_HEADER, required = false) String secret,
+            @RequestParam(defaultValue = "0") long epoch, @RequestParam(defaultValue = "0") long version) {
+        if (!client.accepts(secret)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return interest.poll(epoch, version).thenApply(update -> ResponseEntity.ok(update.encode()));
+    }
+}
@@ -0,0 +1,64 @@
+package com.tictactoe.controller;
+
+import com.tictactoe.dto.TournamentRequest;
+import com.tictactoe.dto.TournamentStatus;
+import com.tictactoe.tournament.TournamentService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Engine-vs-engine tournaments as asynchronous jobs: POST starts one and
+ * answers 202 with its location, which is polled for progress and the
+ * results so far. Jobs live on the instance that accepted them.
+ */
+@RestController
+@RequestMapping("/api/tournaments")
+@CrossOrigin(origins = "*")
+public class TournamentController {
+
+    private final TournamentService tournamentService;
+
+    public TournamentController(TournamentService tournamentService) {
+        this.tournamentService = tournamentService;
+    }
+
+    @PostMapping
+    public ResponseEntity<TournamentStatus> start(@RequestBody TournamentRequest request) {
+        TournamentStatus status;
+        try {
+            status = tournamentService.start(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        return ResponseEntity.accepted().location(URI.create("/api/tournaments/" + status.getId())).body(status);
+    }
+
+    @GetMapping
+    public List<TournamentStatus> list() {
+        return tournamentService.list();
+    }
+
+    @GetMapping("/{id}")
+    public TournamentStatus status(@PathVariable String id) {
+        return found(tournamentService.status(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public TournamentStatus cancel(@PathVariable String id) {
+        return found(tournamentService.cancel(id));
+    }
+
+    private static TournamentStatus found(TournamentStatus status) {
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tournament not found");
+        }
+        return status;
+    }
+}
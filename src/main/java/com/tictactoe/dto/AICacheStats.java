@@ -0,0 +1,30 @@
+package com.tictactoe.dto;
+
+public class AICacheStats {
+    private final int entries;
+    private final int bookEntries;
+    private final int maxEntries;
+    private final long hits;
+    private final long misses;
+    private final long evicted;
+    private final double hitRate;
+
+    public AICacheStats(int entries, int bookEntries, int maxEntries, long hits, long misses,
+                        long evicted, double hitRate) {
+        this.entries = entries;
+        this.bookEntries = bookEntries;
+        this.maxEntries = maxEntries;
+        this.hits = hits;
+        this.misses = misses;
+        this.evicted = evicted;
+        this.hitRate = hitRate;
+    }
+
+    public int getEntries() { return entries; }
+    public int getBookEntries() { return bookEntries; }
+    public int getMaxEntries() { return maxEntries; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvicted() { return evicted; }
+    public double getHitRate() { return hitRate; }
+}
@@ -0,0 +1,15 @@
+package com.tictactoe.dto;
+
+import java.util.List;
+
+/** Moves for one game, played in order; see BatchController. */
+public class BatchMoveRequest {
+    private String gameId;
+    private List<MoveRequest> moves;
+
+    public String getGameId() { return gameId; }
+    public void setGameId(String gameId) { this.gameId = gameId; }
+
+    public List<MoveRequest> getMoves() { return moves; }
+    public void setMoves(List<MoveRequest> moves) { this.moves = moves; }
+}
@@ -0,0 +1,23 @@
+package com.tictactoe.dto;
+
+/** One line of a batch response: the outcome for one game. */
+public class BatchResult {
+    private final String gameId;
+    private final int movesApplied;
+    private final String error;
+    private final GameResponse game;
+
+    public BatchResult(String gameId, int movesApplied, String error, GameResponse game) {
+        this.gameId = gameId;
+        this.movesApplied = movesApplied;
+        this.error = error;
+        this.game = game;
+    }
+
+    public String getGameId() { return gameId; }
+    public int getMovesApplied() { return movesApplied; }
+    /** Why the batch stopped for this game, or null if every move was applied. */
+    public String getError() { return error; }
+    /** State after the last move tried; null for an unknown game. */
+    public GameResponse getGame() { return game; }
+}
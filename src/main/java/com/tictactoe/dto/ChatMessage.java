@@ -4,6 +4,7 @@ public class ChatMessage {
     private String player;
     private String message;
     private long timestamp;
+    private long seq;
 
     public ChatMessage() {}
 
@@ -20,4 +21,6 @@ public class ChatMessage {
     public void setMessage(String message) { this.message = message; }
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
 }
\ No newline at end of file
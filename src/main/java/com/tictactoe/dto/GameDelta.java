@@ -0,0 +1,51 @@
+package com.tictactoe.dto;
+
+import com.tictactoe.model.Game;
+
+/**
+ * Compact state update sent to /topic/game/{gameId}/delta. Carries the moves
+ * made since the previous delta (several when broadcasts were coalesced)
+ * plus the small absolute fields, so a client holding state
+ * {@code seq - 1} can apply it; on a gap it re-subscribes to
+ * /app/game/{gameId}/snapshot for a full {@link GameResponse}.
+ */
+public class GameDelta {
+    private final long seq;
+    private final boolean reset;
+    private final int[] cells;
+    private final String marks;
+    private final int moves;
+    private final String status;
+    private final char turn;
+    private final int flags;
+
+    public GameDelta(long seq, boolean reset, int[] cells, String marks, int moves,
+                     String status, char turn, int flags) {
+        this.seq = seq;
+        this.reset = reset;
+        this.cells = cells;
+        this.marks = marks;
+        this.moves = moves;
+        this.status = status;
+        this.turn = turn;
+        this.flags = flags;
+    }
+
+    public static GameDelta of(long seq, boolean reset, int[] cells, String marks, Game game) {
+        return new GameDelta(seq, reset, cells, marks, game.getBoard().getMoveCount(),
+                game.getGameStatus().name(), game.getCurrentPlayer().toString().charAt(0), game.presenceFlags());
+    }
+
+    public long getSeq() { return seq; }
+    /** True when the board was cleared for a rematch before {@link #getCells()} were played. */
+    public boolean isReset() { return reset; }
+    /** Row-major indexes of the new marks, in move order. */
+    public int[] getCells() { return cells; }
+    /** One character per entry of {@link #getCells()}. */
+    public String getMarks() { return marks; }
+    public int getMoves() { return moves; }
+    public String getStatus() { return status; }
+    public char getTurn() { return turn; }
+    /** 1 = X present, 2 = O present, 4 = X ready, 8 = O ready. */
+    public int getFlags() { return flags; }
+}
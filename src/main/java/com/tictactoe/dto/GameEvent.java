@@ -0,0 +1,15 @@
+package com.tictactoe.dto;
+
+/** Out-of-band notice for a game's subscribers, sent to /topic/game/{gameId}/events. */
+public class GameEvent {
+    private final String type;
+    private final String detail;
+
+    public GameEvent(String type, String detail) {
+        this.type = type;
+        this.detail = detail;
+    }
+
+    public String getType() { return type; }
+    public String getDetail() { return detail; }
+}
@@ -0,0 +1,88 @@
+package com.tictactoe.dto;
+
+import com.tictactoe.model.Board;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameStatus;
+import com.tictactoe.model.MoveHistory;
+import com.tictactoe.model.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves of a game, round by round, oldest first; the last round is the one
+ * on the board. Sent once to subscribers of /app/game/{gameId}/history and
+ * served at GET /api/game/{gameId}/history. {@code seq} is the version of
+ * the game it was taken at, as in {@link GameResponse}.
+ */
+public class GameHistory {
+
+    /** One round: the cells played, in order, one mark per cell. */
+    public static class Round {
+        private final int round;
+        private final int[] cells;
+        private final String marks;
+        private final GameStatus status;
+
+        public Round(int round, int[] cells, String marks, GameStatus status) {
+            this.round = round;
+            this.cells = cells;
+            this.marks = marks;
+            this.status = status;
+        }
+
+        public int getRound() { return round; }
+        /** Row-major indexes of the moves. */
+        public int[] getCells() { return cells; }
+        public String getMarks() { return marks; }
+        public GameStatus getStatus() { return status; }
+    }
+
+    private final String gameId;
+    private final int size;
+    private final int winLength;
+    private final long seq;
+    private final List<Round> rounds;
+
+    public GameHistory(String gameId, int size, int winLength, long seq, List<Round> rounds) {
+        this.gameId = gameId;
+        this.size = size;
+        this.winLength = winLength;
+        this.seq = seq;
+        this.rounds = rounds;
+    }
+
+    /** Replays each round on a scratch board to recover its marks and outcome. */
+    public static GameHistory from(String gameId, Game game) {
+        int size = game.getBoard().getSize();
+        int winLength = game.getBoard().getWinLength();
+        MoveHistory history = game.history();
+        List<Round> rounds = new ArrayList<>(history == null ? 0 : history.roundCount());
+        for (int r = 0; history != null && r < history.roundCount(); r++) {
+            int[] cells = history.cells(r);
+            char[] marks = new char[cells.length];
+            Board board = new Board(size, winLength);
+            Player player = history.starter(r);
+            GameStatus status = GameStatus.IN_PROGRESS;
+            for (int i = 0; i < cells.length; i++) {
+                int row = cells[i] / size, column = cells[i] % size;
+                board.place(row, column, player);
+                marks[i] = player.toString().charAt(0);
+                if (board.completesLine(row, column, player)) {
+                    status = player == Player.X ? GameStatus.X_WON : GameStatus.O_WON;
+                } else if (board.isFull()) {
+                    status = GameStatus.DRAW;
+                }
+                player = player == Player.X ? Player.O : Player.X;
+            }
+            rounds.add(new Round(history.roundNumber(r), cells, new String(marks), status));
+        }
+        return new GameHistory(gameId, size, winLength, game.getVersion(), rounds);
+    }
+
+    public String getGameId() { return gameId; }
+    public int getSize() { return size; }
+    public int getWinLength() { return winLength; }
+    public long getSeq() { return seq; }
+    public List<Round> getRounds() { return rounds; }
+}
@@ -1,10 +1,16 @@
 package com.tictactoe.dto;
 
+import com.tictactoe.model.Board;
+import com.tictactoe.model.Game;
 import com.tictactoe.model.GameStatus;
+import com.tictactoe.model.Player;
 
 public class GameResponse {
     private String gameId;
-    private char[][] board;
+    private int size;
+    private int winLength;
+    private long[] xBits;
+    private long[] oBits;
     private GameStatus status;
     private String currentPlayer;
     private String error;
@@ -15,12 +21,16 @@ public class GameResponse {
     private boolean playerXReady;
     private boolean playerOReady;
     private String startingPlayer;
+    private long seq;
 
-    public GameResponse(String gameId, char[][] board, GameStatus status, String currentPlayer,
+    public GameResponse(String gameId, Board board, GameStatus status, String currentPlayer,
                         String error, boolean playerXPresent, boolean playerOPresent,
-                        boolean playerXReady, boolean playerOReady, String startingPlayer) {
+                        boolean playerXReady, boolean playerOReady, String startingPlayer, long seq) {
         this.gameId = gameId;
-        this.board = board;
+        this.size = board.getSize();
+        this.winLength = board.getWinLength();
+        this.xBits = board.copyBits(Player.X);
+        this.oBits = board.copyBits(Player.O);
         this.status = status;
         this.currentPlayer = currentPlayer;
         this.error = error;
@@ -29,11 +39,30 @@ public class GameResponse {
         this.playerXReady = playerXReady;
         this.playerOReady = playerOReady;
         this.startingPlayer = startingPlayer;
+        this.seq = seq;
+    }
+
+    public static GameResponse from(String gameId, Game game, String error) {
+        return new GameResponse(
+                gameId,
+                game.getBoard(),
+                game.getGameStatus(),
+                game.getCurrentPlayer().toString(),
+                error,
+                game.isPlayerXPresent(),
+                game.isPlayerOPresent(),
+                game.isPlayerXReady(),
+                game.isPlayerOReady(),
+                game.getStartingPlayer().toString(),
+                game.getVersion()
+        );
     }
 
     // Getters
     public String getGameId() { return gameId; }
-    public char[][] getBoard() { return board; }
+    public char[][] getBoard() { return Board.toCells(size, xBits, oBits); }
+    public int getSize() { return size; }
+    public int getWinLength() { return winLength; }
     public GameStatus getStatus() { return status; }
     public String getCurrentPlayer() { return currentPlayer; }
     public String getError() { return error; }
@@ -42,4 +71,5 @@ public class GameResponse {
     public boolean isPlayerXReady() { return playerXReady; }
     public boolean isPlayerOReady() { return playerOReady; }
     public String getStartingPlayer() {return startingPlayer; }
+    public long getSeq() { return seq; }
 }
\ No newline at end of file
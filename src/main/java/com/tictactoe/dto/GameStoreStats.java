@@ -0,0 +1,30 @@
+package com.tictactoe.dto;
+
+public class GameStoreStats {
+    private final int liveGames;
+    private final int maxGames;
+    private final long evictedFinished;
+    private final long evictedIdle;
+    private final long evictedCapacity;
+    private final long evictedAbandoned;
+    private final long approxBytesPerGame;
+
+    public GameStoreStats(int liveGames, int maxGames, long evictedFinished, long evictedIdle,
+                          long evictedCapacity, long evictedAbandoned, long approxBytesPerGame) {
+        this.liveGames = liveGames;
+        this.maxGames = maxGames;
+        this.evictedFinished = evictedFinished;
+        this.evictedIdle = evictedIdle;
+        this.evictedCapacity = evictedCapacity;
+        this.evictedAbandoned = evictedAbandoned;
+        this.approxBytesPerGame = approxBytesPerGame;
+    }
+
+    public int getLiveGames() { return liveGames; }
+    public int getMaxGames() { return maxGames; }
+    public long getEvictedFinished() { return evictedFinished; }
+    public long getEvictedIdle() { return evictedIdle; }
+    public long getEvictedCapacity() { return evictedCapacity; }
+    public long getEvictedAbandoned() { return evictedAbandoned; }
+    public long getApproxBytesPerGame() { return approxBytesPerGame; }
+}
@@ -3,10 +3,15 @@ package com.tictactoe.dto;
 public class JoinRequest {
     private String player;
     private String sessionId;
+    // Set by the server to the connection the request came over; see PresenceTracker.
+    private String connectionId;
 
     public String getPlayer() { return player; }
     public void setPlayer(String player) { this.player = player; }
 
     public String getSessionId() { return sessionId; }
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
-}
\ No newline at end of file
+
+    public String getConnectionId() { return connectionId; }
+    public void setConnectionId(String connectionId) { this.connectionId = connectionId; }
+}
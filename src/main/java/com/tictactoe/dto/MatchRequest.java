@@ -0,0 +1,18 @@
+package com.tictactoe.dto;
+
+/** A player asking to be paired with a stranger; see MatchmakingService. */
+public class MatchRequest {
+    private String sessionId;
+    private int size = 3;
+    private Integer winLength;
+
+    /** The client's id, as sent with joins; the seat is assigned to it. */
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public Integer getWinLength() { return winLength; }
+    public void setWinLength(Integer winLength) { this.winLength = winLength; }
+}
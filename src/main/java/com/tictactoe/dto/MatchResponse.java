@@ -0,0 +1,22 @@
+package com.tictactoe.dto;
+
+/** Outcome of a match request, sent to the requesting session on /user/queue/match. */
+public class MatchResponse {
+    private final String status;
+    private final String gameId;
+    private final String player;
+    private final long waitedMillis;
+
+    public MatchResponse(String status, String gameId, String player, long waitedMillis) {
+        this.status = status;
+        this.gameId = gameId;
+        this.player = player;
+        this.waitedMillis = waitedMillis;
+    }
+
+    /** MATCHED, TIMEOUT or INVALID. */
+    public String getStatus() { return status; }
+    public String getGameId() { return gameId; }
+    public String getPlayer() { return player; }
+    public long getWaitedMillis() { return waitedMillis; }
+}
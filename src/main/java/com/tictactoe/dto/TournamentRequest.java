@@ -0,0 +1,29 @@
+package com.tictactoe.dto;
+
+import java.util.List;
+
+/** A batch of engine-vs-engine games; see TournamentController. */
+public class TournamentRequest {
+    private List<String> engines;
+    private int gamesPerPairing = 100;
+    private int size = 3;
+    private Integer winLength;
+    private int randomOpening = 1;
+
+    /** Engine names: an AI mode, "random", or "depth-N" for a fixed-depth search. */
+    public List<String> getEngines() { return engines; }
+    public void setEngines(List<String> engines) { this.engines = engines; }
+
+    public int getGamesPerPairing() { return gamesPerPairing; }
+    public void setGamesPerPairing(int gamesPerPairing) { this.gamesPerPairing = gamesPerPairing; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public Integer getWinLength() { return winLength; }
+    public void setWinLength(Integer winLength) { this.winLength = winLength; }
+
+    /** Random moves played before the engines take over, so deterministic engines do not repeat one game. */
+    public int getRandomOpening() { return randomOpening; }
+    public void setRandomOpening(int randomOpening) { this.randomOpening = randomOpening; }
+}
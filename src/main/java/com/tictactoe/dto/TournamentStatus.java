@@ -0,0 +1,75 @@
+package com.tictactoe.dto;
+
+import java.util.List;
+
+public class TournamentStatus {
+
+    public enum State { RUNNING, DONE, CANCELLED, FAILED }
+
+    /** Results of one pairing; each engine plays X in half of the games. */
+    public static class Pairing {
+        private final String first;
+        private final String second;
+        private final long games;
+        private final long firstWins;
+        private final long secondWins;
+        private final long draws;
+        private final double averageMoves;
+
+        public Pairing(String first, String second, long games, long firstWins, long secondWins, long draws,
+                       double averageMoves) {
+            this.first = first;
+            this.second = second;
+            this.games = games;
+            this.firstWins = firstWins;
+            this.secondWins = secondWins;
+            this.draws = draws;
+            this.averageMoves = averageMoves;
+        }
+
+        public String getFirst() { return first; }
+        public String getSecond() { return second; }
+        public long getGames() { return games; }
+        public long getFirstWins() { return firstWins; }
+        public long getSecondWins() { return secondWins; }
+        public long getDraws() { return draws; }
+        /** Points per game for the first engine: a win is 1, a draw 0.5. */
+        public double getFirstScore() { return games == 0 ? 0 : (firstWins + draws / 2.0) / games; }
+        public double getAverageMoves() { return averageMoves; }
+    }
+
+    private final String id;
+    private final State state;
+    private final int size;
+    private final int winLength;
+    private final long gamesPlayed;
+    private final long gamesTotal;
+    private final long elapsedMillis;
+    private final List<Pairing> pairings;
+    private final String error;
+
+    public TournamentStatus(String id, State state, int size, int winLength, long gamesPlayed, long gamesTotal,
+                            long elapsedMillis, List<Pairing> pairings, String error) {
+        this.id = id;
+        this.state = state;
+        this.size = size;
+        this.winLength = winLength;
+        this.gamesPlayed = gamesPlayed;
+        this.gamesTotal = gamesTotal;
+        this.elapsedMillis = elapsedMillis;
+        this.pairings = pairings;
+        this.error = error;
+    }
+
+    public String getId() { return id; }
+    public State getState() { return state; }
+    public int getSize() { return size; }
+    public int getWinLength() { return winLength; }
+    public long getGamesPlayed() { return gamesPlayed; }
+    public long getGamesTotal() { return gamesTotal; }
+    public double getProgress() { return gamesTotal == 0 ? 1 : (double) gamesPlayed / gamesTotal; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public double getGamesPerSecond() { return elapsedMillis == 0 ? 0 : gamesPlayed * 1000.0 / elapsedMillis; }
+    public List<Pairing> getPairings() { return pairings; }
+    public String getError() { return error; }
+}
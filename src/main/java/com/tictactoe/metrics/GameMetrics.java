@@ -0,0 +1,191 @@
+package com.tictactoe.metrics;
+
+import com.tictactoe.model.AIMode;
+import com.tictactoe.model.AIPlayer;
+import com.tictactoe.service.AIMoveCache;
+import com.tictactoe.service.GameService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Game-level meters, exported under {@code /actuator/prometheus}. Timers
+ * cover the move, AI and broadcast paths; the player gauge comes from a
+ * scan of the store that is repeated at most once per
+ * {@code game.metrics.census-interval-ms}, however often it is scraped.
+ * Spectators are counted as they join and leave the games owned here.
+ */
+@Component
+public class GameMetrics {
+
+    public static final String TOPIC_PREFIX = "/topic/game/";
+
+    private final MeterRegistry registry;
+    private final GameService gameService;
+    private final long censusIntervalMillis;
+
+    private final Timer moves;
+    private final Counter illegalMoves;
+    private final Counter spectatorMoves;
+    private final Counter playerJoins;
+    private final Counter spectatorJoins;
+    private final Counter rematches;
+    private final Counter seatsReleased;
+    private final Counter matchesMade;
+    private final Counter chatMessages;
+    private final Counter chatDroppedRate;
+    private final Counter chatDroppedLength;
+    private final Timer broadcastState;
+    private final Timer broadcastPublish;
+
+    private volatile long censusAt;
+    private volatile int seatedPlayers;
+    private final AtomicInteger spectators = new AtomicInteger();
+    private final AtomicInteger matchWaiting = new AtomicInteger();
+
+    public GameMetrics(MeterRegistry registry, GameService gameService, AIMoveCache aiCache,
+                       @Value("${game.metrics.census-interval-ms:10000}") long censusIntervalMillis) {
+        this.registry = registry;
+        this.gameService = gameService;
+        this.censusIntervalMillis = censusIntervalMillis;
+
+        moves = Timer.builder("game.move").description("Applying a player's move").register(registry);
+        illegalMoves = Counter.builder("game.moves.invalid").tag("reason", "illegal").register(registry);
+        spectatorMoves = Counter.builder("game.moves.invalid").tag("reason", "spectator").register(registry);
+        playerJoins = Counter.builder("game.joins").tag("role", "player").register(registry);
+        spectatorJoins = Counter.builder("game.joins").tag("role", "spectator").register(registry);
+        rematches = Counter.builder("game.rematches").register(registry);
+        seatsReleased = Counter.builder("game.seats.released")
+                .description("Seats freed after their player stayed away for the grace period").register(registry);
+        matchesMade = Counter.builder("game.match.pairs").description("Games created by matchmaking").register(registry);
+        chatMessages = Counter.builder("game.chat.messages").register(registry);
+        chatDroppedRate = Counter.builder("game.chat.dropped").tag("reason", "rate").register(registry);
+        chatDroppedLength = Counter.builder("game.chat.dropped").tag("reason", "length").register(registry);
+        broadcastState = Timer.builder("game.broadcast").tag("phase", "state").register(registry);
+        broadcastPublish = Timer.builder("game.broadcast").tag("phase", "publish").register(registry);
+
+        Gauge.builder("game.live", gameService, GameService::gameCount)
+                .description("Games held by this instance").register(registry);
+        Gauge.builder("game.players", this, m -> m.census())
+                .description("Seated players over all games").register(registry);
+        Gauge.builder("game.spectators", spectators, AtomicInteger::get)
+                .description("Sessions watching a game without a seat").register(registry);
+        Gauge.builder("game.match.waiting", matchWaiting, AtomicInteger::get)
+                .description("Sessions queued for matchmaking").register(registry);
+        FunctionCounter.builder("game.ai.cache.requests", aiCache, AIMoveCache::hits)
+                .tag("result", "hit").description("AI replies served from the shared cache").register(registry);
+        FunctionCounter.builder("game.ai.cache.requests", aiCache, AIMoveCache::misses)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("game.ai.cache.entries", aiCache, AIMoveCache::size)
+                .description("Cached AI replies, opening book included").register(registry);
+    }
+
+    /** Runs the move, timing it and counting it if it was refused. */
+    public boolean timeMove(BooleanSupplier move) {
+        long start = System.nanoTime();
+        boolean valid = move.getAsBoolean();
+        moves.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!valid) illegalMoves.increment();
+        return valid;
+    }
+
+    public void spectatorMoveBlocked() {
+        spectatorMoves.increment();
+    }
+
+    public void joined(boolean asPlayer) {
+        (asPlayer ? playerJoins : spectatorJoins).increment();
+    }
+
+    public void spectatorsChanged(int delta) {
+        spectators.addAndGet(delta);
+    }
+
+    public void seatReleased() {
+        seatsReleased.increment();
+    }
+
+    public void matchQueued(int delta) {
+        matchWaiting.addAndGet(delta);
+    }
+
+    public void matchMade() {
+        matchesMade.increment();
+    }
+
+    /**
+     * Records how long a matchmaking ticket waited.
+     *
+     * @param outcome matched, timeout or cancelled
+     */
+    public void matchWait(String outcome, long nanos) {
+        Timer.builder("game.match.wait").tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rematchRequested() {
+        rematches.increment();
+    }
+
+    public void chatMessage() {
+        chatMessages.increment();
+    }
+
+    /** @param reason rate or length */
+    public void chatDropped(String reason) {
+        ("rate".equals(reason) ? chatDroppedRate : chatDroppedLength).increment();
+    }
+
+    public Timer broadcastState() {
+        return broadcastState;
+    }
+
+    public Timer broadcastPublish() {
+        return broadcastPublish;
+    }
+
+    /**
+     * Records one AI reply: the time from scheduling until a move was
+     * chosen, and the nodes the engine searched for it.
+     *
+     * @param outcome search, cache, timeout, error or saturated (no permit, fallback played at once)
+     */
+    public void aiMove(AIMode mode, boolean classic, String outcome, long nanos, AIPlayer.Move move) {
+        String board = classic ? "classic" : "grid";
+        Timer.builder("game.ai.move")
+                .tag("mode", mode.name()).tag("board", board).tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (move != null && move.nodes > 0) {
+            DistributionSummary.builder("game.ai.nodes")
+                    .tag("mode", mode.name()).tag("board", board)
+                    .register(registry)
+                    .record(move.nodes);
+        }
+    }
+
+    private int census() {
+        long now = System.currentTimeMillis();
+        if (now - censusAt >= censusIntervalMillis) {
+            synchronized (this) {
+                if (now - censusAt >= censusIntervalMillis) {
+                    int[] players = new int[1];
+                    gameService.forEachGame((gameId, game) -> players[0] += Integer.bitCount(game.presenceFlags() & 3));
+                    seatedPlayers = players[0];
+                    censusAt = now;
+                }
+            }
+        }
+        return seatedPlayers;
+    }
+}
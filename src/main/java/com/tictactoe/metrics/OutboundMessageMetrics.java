@@ -0,0 +1,79 @@
+package com.tictactoe.metrics;
+
+import com.tictactoe.service.MatchmakingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts frames and payload bytes sent to WebSocket clients, per
+ * destination. Game ids are folded out of the destination so the number of
+ * series stays bounded: {@code /topic/game/abc/delta} counts as
+ * {@code /topic/game/{id}/delta}. Binary frames are counted under
+ * {@code /ws-game}.
+ */
+@Component
+public class OutboundMessageMetrics implements ChannelInterceptor {
+
+    private static final String BINARY_ENDPOINT = "/ws-game";
+    private static final Set<String> KNOWN_SUFFIXES = Set.of("", "/delta", "/events", "/chat", "/chat/batch", "/snapshot", "/history");
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter[]> meters = new ConcurrentHashMap<>();
+
+    public OutboundMessageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        Counter[] counters = meters.computeIfAbsent(normalize(destination), this::register);
+        counters[0].increment();
+        if (message.getPayload() instanceof byte[] payload) {
+            counters[1].increment(payload.length);
+        }
+        return message;
+    }
+
+    /** Counts a frame written to a {@code /ws-game} session, which bypasses the outbound channel. */
+    public void binary(int bytes) {
+        Counter[] counters = meters.computeIfAbsent(BINARY_ENDPOINT, this::register);
+        counters[0].increment();
+        counters[1].increment(bytes);
+    }
+
+    private Counter[] register(String destination) {
+        return new Counter[] {
+                Counter.builder("game.messages.outbound").tag("destination", destination).register(registry),
+                Counter.builder("game.messages.outbound.bytes").baseUnit("bytes")
+                        .tag("destination", destination).register(registry)
+        };
+    }
+
+    // Other destinations are client-chosen and would let clients mint series.
+    static String normalize(String destination) {
+        // Per-session queues are addressed as /queue/match-user{session}.
+        if (destination != null && destination.startsWith(MatchmakingService.QUEUE)) return MatchmakingService.QUEUE;
+        String prefix = destination == null ? null
+                : destination.startsWith(GameMetrics.TOPIC_PREFIX) ? GameMetrics.TOPIC_PREFIX
+                : destination.startsWith("/app/game/") ? "/app/game/"
+                : null;
+        if (prefix == null) return "other";
+        int idEnd = destination.indexOf('/', prefix.length());
+        String suffix = idEnd < 0 ? "" : destination.substring(idEnd);
+        return KNOWN_SUFFIXES.contains(suffix) ? prefix + "{id}" + suffix : "other";
+    }
+}
@@ -0,0 +1,48 @@
+package com.tictactoe.model;
+
+import java.util.Locale;
+
+/**
+ * Selectable AI strength. Weaker tiers search less, so they also cost less.
+ * Each mode shares one engine per board family across all games; an
+ * engine's transposition table is its own, so tiers stay apart.
+ */
+public enum AIMode {
+    EASY(new AlphaBetaAIPlayer(1), new GridAIPlayer(1, 50)),
+    MEDIUM(new AlphaBetaAIPlayer(3, 2_000, 0), new GridAIPlayer(2, 100)),
+    HARD(new AlphaBetaAIPlayer(AlphaBetaAIPlayer.UNLIMITED_DEPTH, 0, 50), new GridAIPlayer(6, 300)),
+    PERFECT(new TableAIPlayer(), new GridAIPlayer(12, 600)),
+    MINIMAX(new MinimaxAIPlayer(), new GridAIPlayer(6, 300));
+
+    private final AIPlayer classicPlayer;
+    private final AIPlayer gridPlayer;
+
+    AIMode(AIPlayer classicPlayer, AIPlayer gridPlayer) {
+        this.classicPlayer = classicPlayer;
+        this.gridPlayer = gridPlayer;
+    }
+
+    public AIPlayer getPlayer() { return classicPlayer; }
+
+    /** Engine for the given board; larger variants always use a bounded search. */
+    public AIPlayer getPlayer(Board board) {
+        return board.isClassic() ? classicPlayer : gridPlayer;
+    }
+
+    /**
+     * Parses the {@code aiMode} request parameter. "true" and "false" are
+     * still accepted and mean perfect play and no AI respectively.
+     *
+     * @return the mode, or null for a game between two humans
+     * @throws IllegalArgumentException for an unknown mode name
+     */
+    public static AIMode parse(String value) {
+        if (value == null || value.isBlank() || "false".equalsIgnoreCase(value)) {
+            return null;
+        }
+        if ("true".equalsIgnoreCase(value)) {
+            return PERFECT;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,194 @@
+package com.tictactoe.model;
+
+/**
+ * Iterative-deepening negamax with alpha-beta pruning. Moves are tried centre
+ * first, then corners, then edges, and positions are stored in a
+ * transposition table under their symmetry-reduced key, so rotated or
+ * mirrored positions are only searched once. Each instance has its own
+ * table: entries from a deeper search would otherwise make a weaker tier
+ * play as well as a stronger one.
+ *
+ * Strength is controlled by a ply limit and optional node and time budgets.
+ * When a budget runs out the move from the last completed iteration is used.
+ */
+public class AlphaBetaAIPlayer implements AIPlayer {
+
+    public static final int UNLIMITED_DEPTH = 9;
+
+    private static final int WIN = 100;
+    private static final int MATE_BOUND = 50;
+    private static final int INFINITY = 1000;
+
+    private static final int[] MOVE_ORDER = {4, 0, 2, 6, 8, 1, 3, 5, 7};
+
+    // Entry layout: score + 128 in bits 0-7, remaining depth in bits 8-11,
+    // bound type in bits 12-13. Zero means empty. Racing writers are harmless
+    // because each entry is a single int.
+    private static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    private final int maxDepth;
+    private final long nodeBudget;
+    private final long timeBudgetNanos;
+    private final int[] table = new int[BoardKeys.POSITIONS];
+
+    public AlphaBetaAIPlayer(int maxDepth) {
+        this(maxDepth, 0, 0);
+    }
+
+    /**
+     * @param maxDepth        plies to look ahead, {@link #UNLIMITED_DEPTH} for a full solve
+     * @param nodeBudget      nodes per move, 0 for no limit
+     * @param timeBudgetMillis wall-clock time per move, 0 for no limit
+     */
+    public AlphaBetaAIPlayer(int maxDepth, long nodeBudget, long timeBudgetMillis) {
+        this.maxDepth = maxDepth;
+        this.nodeBudget = nodeBudget;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+    }
+
+    private final class Search {
+        final long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+        long nodes;
+        boolean aborted;
+
+        boolean outOfBudget() {
+            nodes++;
+            if ((nodeBudget > 0 && nodes > nodeBudget)
+                    || ((nodes & 255) == 0 && System.nanoTime() > deadline)) {
+                aborted = true;
+            }
+            return aborted;
+        }
+    }
+
+    @Override
+    public Move getBestMove(Board board, Player aiPlayer) {
+        Player humanPlayer = (aiPlayer == Player.X) ? Player.O : Player.X;
+        int own = board.bits(aiPlayer);
+        int opp = board.bits(humanPlayer);
+        int occupied = own | opp;
+        if (occupied == Board.FULL_MASK || board.evaluate() != GameStatus.IN_PROGRESS) {
+            return null;
+        }
+
+        int empties = 9 - Integer.bitCount(occupied);
+        Search search = new Search();
+        int bestCell = firstFree(occupied);
+
+        for (int depth = 1; depth <= Math.min(maxDepth, empties); depth++) {
+            int cell = searchRoot(search, own, opp, depth, bestCell);
+            if (search.aborted) break;
+            bestCell = cell;
+        }
+        return new Move(bestCell / 3, bestCell % 3, search.nodes);
+    }
+
+    private int searchRoot(Search search, int own, int opp, int depth, int previousBest) {
+        int occupied = own | opp;
+        int alpha = -INFINITY;
+        int bestCell = -1;
+        int[] seen = new int[9];
+        int seenCount = 0;
+
+        for (int i = -1; i < MOVE_ORDER.length; i++) {
+            // The previous iteration's choice goes first so it survives ties.
+            int cell = i < 0 ? previousBest : MOVE_ORDER[i];
+            if (i >= 0 && cell == previousBest) continue;
+            int bit = 1 << cell;
+            if ((occupied & bit) != 0) continue;
+
+            int next = own | bit;
+            int childKey = BoardKeys.canonicalKey(opp, next);
+            if (contains(seen, seenCount, childKey)) continue;
+            seen[seenCount++] = childKey;
+
+            int value = scoreMove(search, next, opp, depth, alpha, INFINITY);
+            if (search.aborted) return bestCell;
+            if (value > alpha) {
+                alpha = value;
+                bestCell = cell;
+            }
+        }
+        return bestCell;
+    }
+
+    private int search(Search search, int own, int opp, int depth, int alpha, int beta) {
+        if (search.outOfBudget()) return 0;
+
+        int occupied = own | opp;
+        depth = Math.min(depth, 9 - Integer.bitCount(occupied));
+        int key = BoardKeys.canonicalKey(own, opp);
+        int entry = table[key];
+        if (entry != 0 && ((entry >>> 8) & 0xF) >= depth) {
+            int value = (entry & 0xFF) - 128;
+            int bound = entry >>> 12;
+            if (bound == EXACT
+                    || (bound == LOWER && value >= beta)
+                    || (bound == UPPER && value <= alpha)) {
+                return value;
+            }
+        }
+        if (depth == 0) {
+            return evaluate(own, opp);
+        }
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        for (int cell : MOVE_ORDER) {
+            int bit = 1 << cell;
+            if ((occupied & bit) != 0) continue;
+
+            int value = scoreMove(search, own | bit, opp, depth, alpha, beta);
+            if (search.aborted) return 0;
+            if (value > best) best = value;
+            if (best > alpha) alpha = best;
+            if (alpha >= beta) break;
+        }
+
+        int bound = best <= alphaOrig ? UPPER : best >= beta ? LOWER : EXACT;
+        table[key] = (best + 128) | (depth << 8) | (bound << 12);
+        return best;
+    }
+
+    /** Value of the position after the mover has played into {@code next}. */
+    private int scoreMove(Search search, int next, int opp, int depth, int alpha, int beta) {
+        if (Board.hasLine(next)) return WIN;
+        if ((next | opp) == Board.FULL_MASK) return 0;
+        int child = search(search, opp, next, depth - 1, toChild(-beta), toChild(-alpha));
+        return -toParent(child);
+    }
+
+    // Win scores shrink by one per ply, so they are stored relative to the
+    // position they belong to and shifted when passed between plies.
+    private static int toParent(int value) {
+        return value > MATE_BOUND ? value - 1 : value < -MATE_BOUND ? value + 1 : value;
+    }
+
+    private static int toChild(int value) {
+        return value > MATE_BOUND ? value + 1 : value < -MATE_BOUND ? value - 1 : value;
+    }
+
+    // Lines still open to one side only, weighted by how many marks they hold.
+    private static int evaluate(int own, int opp) {
+        int score = 0;
+        for (short line : Board.WIN_MASKS) {
+            if ((line & opp) == 0) score += Integer.bitCount(line & own);
+            if ((line & own) == 0) score -= Integer.bitCount(line & opp);
+        }
+        return score;
+    }
+
+    private static int firstFree(int occupied) {
+        for (int cell : MOVE_ORDER) {
+            if ((occupied & (1 << cell)) == 0) return cell;
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] keys, int count, int key) {
+        for (int i = 0; i < count; i++) {
+            if (keys[i] == key) return true;
+        }
+        return false;
+    }
+}
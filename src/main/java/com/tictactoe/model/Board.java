@@ -1,42 +1,205 @@
 package com.tictactoe.model;
 
+import java.util.Arrays;
+
 public class Board {
-    private final char[][] cells = new char[3][3];
 
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 15;
 
-    public Board() {
-        for(int r=0; r<3; r++) {
-            for(int c=0; c<3; c++) {
-                cells[r][c] = ' ';
-            }
+    // On the classic board cell (row, col) is bit row * 3 + col of a player's mask.
+    public static final int FULL_MASK = 0b111_111_111;
+
+    static final short[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,   // rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100,   // columns
+            0b100_010_001, 0b001_010_100                   // diagonals
+    };
+
+    // Row/column steps for the four line directions through a cell.
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int size;
+    private final int winLength;
+
+    // One bit per cell (row * size + col), packed into longs.
+    private final long[] xBits;
+    private final long[] oBits;
+    private int moves;
+
+    public Board() { this(3, 3); }
+
+    public Board(int size, int winLength) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE);
+        }
+        if (winLength < 3 || winLength > size) {
+            throw new IllegalArgumentException("Win length must be between 3 and the board size");
+        }
+        this.size = size;
+        this.winLength = winLength;
+        int words = (size * size + 63) / 64;
+        this.xBits = new long[words];
+        this.oBits = new long[words];
+    }
+
+    public Board(Board other) {
+        this.size = other.size;
+        this.winLength = other.winLength;
+        this.xBits = other.xBits.clone();
+        this.oBits = other.oBits.clone();
+        this.moves = other.moves;
+    }
+
+    // Rebuilds a board from stored bit words; see PackedGame.
+    Board(int size, int winLength, long[] xBits, long[] oBits) {
+        this(size, winLength);
+        System.arraycopy(xBits, 0, this.xBits, 0, this.xBits.length);
+        System.arraycopy(oBits, 0, this.oBits, 0, this.oBits.length);
+        for (int i = 0; i < this.xBits.length; i++) {
+            moves += Long.bitCount(this.xBits[i]) + Long.bitCount(this.oBits[i]);
         }
     }
 
+    /** Empties the board in place, so a worker can reuse it for the next game. */
+    public void clear() {
+        Arrays.fill(xBits, 0);
+        Arrays.fill(oBits, 0);
+        moves = 0;
+    }
+
     public boolean place(int row, int column, Player player) {
-        if(cells[row][column] != ' ') {
-            System.out.println("Wrong move!");
-            print();
+        if (row < 0 || row >= size || column < 0 || column >= size) {
             return false;
         }
-        else {
-            cells[row][column] = player == Player.X ? 'X' : 'O';
-            return true;
+        int index = row * size + column;
+        if (isOccupied(index)) {
+            return false;
         }
+        long[] target = player == Player.X ? xBits : oBits;
+        target[index >>> 6] |= 1L << index;
+        moves++;
+        return true;
+    }
 
+    /** True if the mark just placed at (row, column) completes a line for its owner. */
+    public boolean completesLine(int row, int column, Player player) {
+        if (isClassic()) {
+            return hasLine(bits(player));
+        }
+        long[] own = player == Player.X ? xBits : oBits;
+        for (int[] d : DIRECTIONS) {
+            int run = 1
+                    + countRun(own, row, column, d[0], d[1])
+                    + countRun(own, row, column, -d[0], -d[1]);
+            if (run >= winLength) return true;
+        }
+        return false;
     }
 
-    public char [][] getCells() {
-        return cells;
+    private int countRun(long[] own, int row, int column, int dr, int dc) {
+        int run = 0;
+        for (int r = row + dr, c = column + dc;
+             r >= 0 && r < size && c >= 0 && c < size && test(own, r * size + c);
+             r += dr, c += dc) {
+            run++;
+        }
+        return run;
+    }
+
+    public boolean samePosition(Board other) {
+        return size == other.size && winLength == other.winLength
+                && Arrays.equals(xBits, other.xBits) && Arrays.equals(oBits, other.oBits);
     }
 
-    public void print() {
-        for(int r = 0; r < 3; r++) {
-            for(int c = 0; c < 3; c++) {
-                System.out.print("[" + cells[r][c] + "]"); // Wrap in brackets
+    /** 64-bit hash of the marks, for change detection. */
+    public long positionHash() {
+        long hash = size * 31L + winLength;
+        for (int i = 0; i < xBits.length; i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + xBits[i];
+            hash = hash * 0x9E3779B97F4A7C15L + oBits[i];
+        }
+        return hash;
+    }
+
+    public boolean isClassic() {
+        return size == 3 && winLength == 3;
+    }
+
+    public boolean isFull() {
+        return moves == size * size;
+    }
+
+    public boolean isOccupied(int index) {
+        return test(xBits, index) || test(oBits, index);
+    }
+
+    /** Owner of the cell, or null when it is empty. */
+    public Player get(int row, int column) {
+        int index = row * size + column;
+        return test(xBits, index) ? Player.X : test(oBits, index) ? Player.O : null;
+    }
+
+    /** Mask of the player's cells. Only meaningful on the classic 3x3 board. */
+    public int bits(Player player) {
+        return (int) (player == Player.X ? xBits[0] : oBits[0]);
+    }
+
+    public int occupied() {
+        return (int) (xBits[0] | oBits[0]);
+    }
+
+    public int getMoveCount() { return moves; }
+    public int getSize() { return size; }
+    public int getWinLength() { return winLength; }
+
+    /** Full rescan; the move path uses {@link #completesLine} instead. */
+    public GameStatus evaluate() {
+        if (isClassic()) {
+            return evaluate(bits(Player.X), bits(Player.O));
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                Player owner = get(r, c);
+                if (owner != null && completesLine(r, c, owner)) {
+                    return owner == Player.X ? GameStatus.X_WON : GameStatus.O_WON;
+                }
             }
-            System.out.println(); // New line after each row
         }
-        System.out.println(); // Separator between boards
+        return isFull() ? GameStatus.DRAW : GameStatus.IN_PROGRESS;
     }
 
+    public char[][] getCells() {
+        return toCells(size, xBits, oBits);
+    }
+
+    public long[] copyBits(Player player) {
+        return Arrays.copyOf(player == Player.X ? xBits : oBits, xBits.length);
+    }
+
+    public static boolean hasLine(int bits) {
+        for (short mask : WIN_MASKS) {
+            if ((bits & mask) == mask) return true;
+        }
+        return false;
+    }
+
+    public static GameStatus evaluate(int xBits, int oBits) {
+        if (hasLine(xBits)) return GameStatus.X_WON;
+        if (hasLine(oBits)) return GameStatus.O_WON;
+        return (xBits | oBits) == FULL_MASK ? GameStatus.DRAW : GameStatus.IN_PROGRESS;
+    }
+
+    // The char[][] view is only materialised for serialization.
+    public static char[][] toCells(int size, long[] xBits, long[] oBits) {
+        char[][] cells = new char[size][size];
+        for (int i = 0; i < size * size; i++) {
+            cells[i / size][i % size] = test(xBits, i) ? 'X' : test(oBits, i) ? 'O' : ' ';
+        }
+        return cells;
+    }
+
+    private static boolean test(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
 }
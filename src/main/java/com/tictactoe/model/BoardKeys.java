@@ -0,0 +1,72 @@
+package com.tictactoe.model;
+
+/**
+ * Integer encodings of a 3x3 position from the side to move's point of view
+ * (own = 1, opponent = 2, base 3), plus canonicalisation over the eight
+ * rotations and reflections of the board.
+ */
+public final class BoardKeys {
+
+    public static final int POSITIONS = 19683; // 3^9
+
+    // Base-3 weight of every 9-bit mask, so encoding a board is two lookups.
+    private static final int[] TERNARY = new int[1 << 9];
+
+    // SYMMETRY[t][mask] is mask with the t-th D4 transform applied.
+    private static final short[][] SYMMETRY = new short[8][1 << 9];
+
+    static {
+        for (int mask = 1; mask < TERNARY.length; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            TERNARY[mask] = TERNARY[mask & (mask - 1)] + pow3(low);
+        }
+
+        for (int t = 0; t < 8; t++) {
+            int[] target = new int[9];
+            for (int cell = 0; cell < 9; cell++) {
+                int r = cell / 3, c = cell % 3;
+                // t & 3 quarter turns, then a mirror when t >= 4
+                for (int i = 0; i < (t & 3); i++) {
+                    int nr = c;
+                    c = 2 - r;
+                    r = nr;
+                }
+                if (t >= 4) c = 2 - c;
+                target[cell] = r * 3 + c;
+            }
+            for (int mask = 0; mask < (1 << 9); mask++) {
+                int mapped = 0;
+                for (int rest = mask; rest != 0; rest &= rest - 1) {
+                    mapped |= 1 << target[Integer.numberOfTrailingZeros(rest)];
+                }
+                SYMMETRY[t][mask] = (short) mapped;
+            }
+        }
+    }
+
+    private BoardKeys() {}
+
+    public static int key(int own, int opp) {
+        return TERNARY[own] + 2 * TERNARY[opp];
+    }
+
+    /** Smallest key over all symmetric images of the position. */
+    public static int canonicalKey(int own, int opp) {
+        int best = key(own, opp);
+        for (int t = 1; t < 8; t++) {
+            int k = key(SYMMETRY[t][own], SYMMETRY[t][opp]);
+            if (k < best) best = k;
+        }
+        return best;
+    }
+
+    public static int transform(int t, int mask) {
+        return SYMMETRY[t][mask];
+    }
+
+    private static int pow3(int n) {
+        int p = 1;
+        for (int i = 0; i < n; i++) p *= 3;
+        return p;
+    }
+}
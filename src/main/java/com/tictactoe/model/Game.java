@@ -1,13 +1,14 @@
 package com.tictactoe.model;
 
+import java.util.Objects;
+
 public class Game {
-    private Board board = new Board();
+    private Board board;
     private Player currentPlayer = Player.X;
     private GameStatus gameStatus = GameStatus.IN_PROGRESS;
 
-    private boolean isAIMode = false;
+    private AIMode aiMode;
     private final Player aiPlayer = Player.O;
-    private final AIPlayer ai = new AIPlayer();
 
 
     private boolean playerXPresent = false;
@@ -19,31 +20,81 @@ public class Game {
     private String playerXId = null;
     private String playerOId = null;
 
+    // Connection that last took each seat, and how many times each seat's
+    // player has gone away, so a release can tell whether the absence it
+    // was scheduled for is still the current one. Not persisted: a restored
+    // game accepts a leave from any connection of the seat's session.
+    private String playerXConnection;
+    private String playerOConnection;
+    private int playerXAbsences;
+    private int playerOAbsences;
+
 
     private Player startingPlayer = Player.X;
 
+    // Bumped once per broadcast state; clients use it to order deltas.
+    private long version;
+    /** {@link #takeLastMove} result after a rematch cleared the board. */
+    public static final int BOARD_RESET = -2;
+
+    // Cell of the last move not yet broadcast, -1 or BOARD_RESET. Not persisted.
+    private int lastMove = -1;
+
+    // Created with the first move, so games nobody plays cost nothing.
+    private MoveHistory history;
+
     public Game() { this(false); }
 
-    public Game(boolean aiMode) {
-        this.isAIMode = aiMode;
+    public Game(boolean aiMode) { this(aiMode ? AIMode.PERFECT : null); }
+
+    public Game(AIMode aiMode) { this(aiMode, 3, 3); }
+
+    public Game(AIMode aiMode, int size, int winLength) {
+        this.board = new Board(size, winLength);
+        this.aiMode = aiMode;
         this.playerXPresent = true;
-        if (aiMode) {
+        if (aiMode != null) {
             this.playerOPresent = true;
         }
     }
 
+    // Rebuilds a game from stored state; see PackedGame.
+    Game(Board board, AIMode aiMode, Player currentPlayer, Player startingPlayer, GameStatus gameStatus,
+         int presenceFlags, String playerXId, String playerOId, long version, MoveHistory history) {
+        this.board = board;
+        this.aiMode = aiMode;
+        this.currentPlayer = currentPlayer;
+        this.startingPlayer = startingPlayer;
+        this.gameStatus = gameStatus;
+        this.playerXPresent = (presenceFlags & 1) != 0;
+        this.playerOPresent = (presenceFlags & 2) != 0;
+        this.playerXReady = (presenceFlags & 4) != 0;
+        this.playerOReady = (presenceFlags & 8) != 0;
+        this.playerXId = playerXId;
+        this.playerOId = playerOId;
+        this.version = version;
+        this.history = history;
+    }
+
+    /** 1 = X present, 2 = O present, 4 = X ready, 8 = O ready. */
+    public int presenceFlags() {
+        return (playerXPresent ? 1 : 0) | (playerOPresent ? 2 : 0) | (playerXReady ? 4 : 0) | (playerOReady ? 8 : 0);
+    }
+
     public boolean isReadyToStart() {
-        if (this.isAIMode) return true;
+        if (isAiMode()) return true;
         return (playerXPresent && playerOPresent) || (!playerXPresent && !playerOPresent);
     }
 
     public void resetBoard() {
-        this.board = new Board();
+        this.board = new Board(board.getSize(), board.getWinLength());
         this.gameStatus = GameStatus.IN_PROGRESS;
+        this.lastMove = BOARD_RESET;
 
 
         this.startingPlayer = (this.startingPlayer == Player.X) ? Player.O : Player.X;
         this.currentPlayer = this.startingPlayer;
+        if (history != null) history.startRound(startingPlayer);
 
 
         this.playerXReady = false;
@@ -55,7 +106,7 @@ public class Game {
     }
 
     public boolean canMove(String playerSymbol) {
-        if (isAIMode) return true;
+        if (isAiMode()) return true;
         if (playerSymbol == null) return true;
 
         return isReadyToStart() && currentPlayer.toString().equals(playerSymbol);
@@ -82,6 +133,73 @@ public class Game {
         return !sessionId.equals(playerXId) && !sessionId.equals(playerOId);
     }
 
+    /** Seat held by the session, or null. */
+    public Player seatOf(String sessionId) {
+        if (sessionId == null) return null;
+        if (sessionId.equals(playerXId)) return Player.X;
+        if (sessionId.equals(playerOId)) return Player.O;
+        return null;
+    }
+
+    public boolean isPresent(Player player) {
+        return player == Player.X ? playerXPresent : playerOPresent;
+    }
+
+    public void setPresent(Player player, boolean present) {
+        if (player == Player.X) {
+            playerXPresent = present;
+        } else {
+            playerOPresent = present;
+        }
+    }
+
+    /** The seat's player is here, over the given connection, which alone may now leave it. */
+    public void occupy(Player player, String connectionId) {
+        setPresent(player, true);
+        if (player == Player.X) {
+            playerXConnection = connectionId;
+        } else {
+            playerOConnection = connectionId;
+        }
+    }
+
+    /** False for a leave over a connection the seat has since been taken over by another. */
+    public boolean isHeldBy(Player player, String connectionId) {
+        String holder = player == Player.X ? playerXConnection : playerOConnection;
+        return holder == null || connectionId == null || holder.equals(connectionId);
+    }
+
+    /** Marks the seat's player away; returns the absence {@link #isAwaySince} checks for. */
+    public int markAway(Player player) {
+        setPresent(player, false);
+        return player == Player.X ? ++playerXAbsences : ++playerOAbsences;
+    }
+
+    /** Whether the seat's player is still away, without having been back since that absence began. */
+    public boolean isAwaySince(Player player, int absence) {
+        return !isPresent(player) && absence == (player == Player.X ? playerXAbsences : playerOAbsences);
+    }
+
+    /** Frees the seat for anyone to join; its player is gone for good. */
+    public void releaseSeat(Player player) {
+        if (player == Player.X) {
+            playerXConnection = null;
+            playerXId = null;
+            playerXPresent = false;
+            playerXReady = false;
+        } else {
+            playerOConnection = null;
+            playerOId = null;
+            playerOPresent = aiMode != null;
+            playerOReady = false;
+        }
+    }
+
+    /** No human holds a seat; an AI opponent does not count. */
+    public boolean isAbandoned() {
+        return playerXId == null && playerOId == null;
+    }
+
     public boolean makeMove(int row, int column, String playerSymbol) {
 
         if (playerSymbol != null && !isReadyToStart()) {
@@ -92,88 +210,108 @@ public class Game {
             return false;
         }
 
+        if (isAITurn()) {
+            return false;
+        }
+
         if (gameStatus != GameStatus.IN_PROGRESS || !board.place(row, column, currentPlayer)) {
             return false;
         }
 
-        processTurn();
+        processTurn(row, column);
+        return true;
+    }
+
+    /** True when the computer opponent owes a move; callers schedule it via AIMoveService. */
+    public boolean isAITurn() {
+        return gameStatus == GameStatus.IN_PROGRESS && isAiMode() && currentPlayer == aiPlayer;
+    }
 
-        if (gameStatus == GameStatus.IN_PROGRESS && isAIMode && currentPlayer == aiPlayer) {
-            makeAIMove();
+    /**
+     * Applies a move computed off-thread against {@code searchedBoard}. The
+     * move is dropped if the position has changed since, e.g. after a
+     * rematch, or it is no longer the AI's turn.
+     */
+    public boolean applyAIMove(Board searchedBoard, AIPlayer.Move aiMove) {
+        if (aiMove == null || !board.samePosition(searchedBoard) || !isAITurn()) {
+            return false;
         }
+        if (!board.place(aiMove.row, aiMove.col, currentPlayer)) {
+            return false;
+        }
+        processTurn(aiMove.row, aiMove.col);
         return true;
     }
 
 
-    private void processTurn() {
-        checkWinner();
+    private void processTurn(int row, int column) {
+        lastMove = row * board.getSize() + column;
+        if (history == null) history = new MoveHistory(board.getSize(), startingPlayer);
+        history.record(lastMove);
+        checkWinner(row, column);
         if (gameStatus == GameStatus.IN_PROGRESS) {
             switchPlayer();
         }
     }
 
-    private void checkWinner() {
-        char[][] cells = board.getCells();
-
-        for (int i = 0; i < 3; i++) {
-            if (cells[i][0] != ' ' && cells[i][0] == cells[i][1] && cells[i][1] == cells[i][2]) {
-                setWinner(cells[i][0]);
-                return;
-            }
-            if (cells[0][i] != ' ' && cells[0][i] == cells[1][i] && cells[1][i] == cells[2][i]) {
-                setWinner(cells[0][i]);
-                return;
-            }
-        }
-
-        if (cells[1][1] != ' ') {
-            if (cells[0][0] == cells[1][1] && cells[1][1] == cells[2][2]) {
-                setWinner(cells[0][0]);
-                return;
-            }
-            if (cells[0][2] == cells[1][1] && cells[1][1] == cells[2][0]) {
-                setWinner(cells[0][2]);
-                return;
-            }
-        }
-
-        if (isBoardFull()) {
+    // Only the lines through the last move can have changed.
+    private void checkWinner(int row, int column) {
+        if (board.completesLine(row, column, currentPlayer)) {
+            gameStatus = (currentPlayer == Player.X) ? GameStatus.X_WON : GameStatus.O_WON;
+        } else if (board.isFull()) {
             gameStatus = GameStatus.DRAW;
         }
     }
 
-    private boolean isBoardFull() {
-        for (char[] row : board.getCells()) {
-            for (char cell : row) {
-                if (cell == ' ') return false;
-            }
-        }
-        return true;
+    private void switchPlayer() {
+        currentPlayer = (currentPlayer == Player.X) ? Player.O : Player.X;
     }
 
-    private void setWinner(char p) {
-        gameStatus = (p == 'X') ? GameStatus.X_WON : GameStatus.O_WON;
+    public long advanceVersion() {
+        return ++version;
     }
 
-    private void switchPlayer() {
-        currentPlayer = (currentPlayer == Player.X) ? Player.O : Player.X;
+    /**
+     * Entity tag for conditional requests. Changes are reported before the
+     * version that publishes them is taken, so the tag also hashes what
+     * clients can see.
+     */
+    public String stateTag() {
+        long hash = board.positionHash();
+        hash = hash * 31 + gameStatus.ordinal();
+        hash = hash * 31 + currentPlayer.ordinal();
+        hash = hash * 31 + startingPlayer.ordinal();
+        hash = hash * 31 + presenceFlags();
+        hash = hash * 31 + (aiMode == null ? -1 : aiMode.ordinal());
+        hash = hash * 31 + Objects.hash(playerXId, playerOId);
+        return "\"" + version + "-" + Long.toHexString(hash) + "\"";
     }
 
-    private void makeAIMove() {
-        AIPlayer.Move aiMove = ai.getBestMove(board.getCells(), aiPlayer);
-        if (aiMove != null) {
-            board.place(aiMove.row, aiMove.col, currentPlayer);
-            processTurn();
-        }
+    /**
+     * Returns the cell of the last unbroadcast move, {@link #BOARD_RESET} if
+     * the board was cleared since, or -1; then clears it.
+     */
+    public int takeLastMove() {
+        int cell = lastMove;
+        lastMove = -1;
+        return cell;
+    }
+
+    /** Moves of this and earlier rounds, or null before the first move. */
+    public MoveHistory history() {
+        return history;
     }
 
     // Getters and Setters
+    public long getVersion() { return version; }
     public GameStatus getGameStatus() { return gameStatus; }
     public Board getBoard() { return board; }
     public Player getCurrentPlayer() { return currentPlayer; }
+    public Player getAiPlayer() { return aiPlayer; }
     public Player getStartingPlayer() { return startingPlayer; }
-    public boolean isAiMode() { return isAIMode; }
-    public void setAiMode(boolean aiMode) { this.isAIMode = aiMode; }
+    public boolean isAiMode() { return aiMode != null; }
+    public void setAiMode(boolean aiMode) { this.aiMode = aiMode ? AIMode.PERFECT : null; }
+    public AIMode getAiLevel() { return aiMode; }
     public boolean isPlayerXPresent() { return playerXPresent; }
     public void setPlayerXPresent(boolean pX) { this.playerXPresent = pX; }
     public boolean isPlayerOPresent() { return playerOPresent; }
@@ -0,0 +1,141 @@
+package com.tictactoe.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of a whole game, any board size, for persistence and
+ * transfer between nodes. Unlike {@link PackedGame} it carries session ids.
+ * An update encoding carries only the moves not yet logged in place of the
+ * whole history, and is read on top of the game's previous state.
+ */
+public final class GameCodec {
+
+    // Version 2 added the game's broadcast version, 3 the move history, 4
+    // the update encoding, which only the journal writes and reads.
+    private static final byte VERSION = 3;
+    private static final byte UPDATE_VERSION = 4;
+    private static final byte NO_HISTORY = 0, HISTORY = 1, UNLOGGED_MOVES = 2;
+    private static final AIMode[] MODES = AIMode.values();
+
+    private GameCodec() {}
+
+    /** Upper bound on the encoded size of the game. */
+    public static int maxBytes(Game game) {
+        return stateBytes(game) + (game.history() == null ? 0 : game.history().encodedBytes());
+    }
+
+    /** Upper bound on the size of {@link #writeUpdate}'s output. */
+    public static int maxUpdateBytes(Game game) {
+        return stateBytes(game) + (game.history() == null ? 0 : game.history().unloggedBytes());
+    }
+
+    private static int stateBytes(Game game) {
+        int words = (game.getBoard().getSize() * game.getBoard().getSize() + 63) / 64;
+        return 25 + 16 * words + stringBytes(game.getPlayerXId()) + stringBytes(game.getPlayerOId());
+    }
+
+    public static void write(Game game, ByteBuffer out) {
+        writeState(game, out, VERSION);
+        out.put(game.history() == null ? NO_HISTORY : HISTORY);
+        if (game.history() != null) game.history().write(out);
+    }
+
+    /**
+     * Like {@link #write}, but with only the moves recorded since the game's
+     * last update in place of its history; marks them logged.
+     */
+    public static void writeUpdate(Game game, ByteBuffer out) {
+        writeState(game, out, UPDATE_VERSION);
+        out.put(game.history() == null ? NO_HISTORY : UNLOGGED_MOVES);
+        if (game.history() != null) game.history().writeUnlogged(out);
+    }
+
+    private static void writeState(Game game, ByteBuffer out, byte version) {
+        Board board = game.getBoard();
+        long[] x = board.copyBits(Player.X);
+        long[] o = board.copyBits(Player.O);
+
+        out.put(version);
+        out.put((byte) board.getSize());
+        out.put((byte) board.getWinLength());
+        out.put((byte) (game.getAiLevel() == null ? 0 : game.getAiLevel().ordinal() + 1));
+        out.put((byte) game.getGameStatus().ordinal());
+        out.put((byte) game.getCurrentPlayer().ordinal());
+        out.put((byte) game.getStartingPlayer().ordinal());
+        out.put((byte) game.presenceFlags());
+        out.putLong(game.getVersion());
+        for (int i = 0; i < x.length; i++) {
+            out.putLong(x[i]);
+            out.putLong(o[i]);
+        }
+        putString(out, game.getPlayerXId());
+        putString(out, game.getPlayerOId());
+    }
+
+    public static Game read(ByteBuffer in) {
+        return read(in, null);
+    }
+
+    /**
+     * Reads either encoding; an update's moves are added to the previous
+     * state's history, which is changed in place, or start a new one.
+     */
+    public static Game readUpdate(ByteBuffer in, Game previous) {
+        return read(in, previous == null ? null : previous.history());
+    }
+
+    private static Game read(ByteBuffer in, MoveHistory previous) {
+        byte version = in.get();
+        if (version < 1 || version > UPDATE_VERSION) {
+            throw new IllegalArgumentException("Unsupported game encoding version " + version);
+        }
+        int size = in.get();
+        int winLength = in.get();
+        int mode = in.get();
+        GameStatus status = GameStatus.values()[in.get()];
+        Player current = Player.values()[in.get()];
+        Player starting = Player.values()[in.get()];
+        int flags = in.get();
+        long gameVersion = version >= 2 ? in.getLong() : 0;
+
+        int words = (size * size + 63) / 64;
+        long[] x = new long[words];
+        long[] o = new long[words];
+        for (int i = 0; i < words; i++) {
+            x[i] = in.getLong();
+            o[i] = in.getLong();
+        }
+        String playerXId = getString(in);
+        String playerOId = getString(in);
+        byte historyKind = version >= 3 ? in.get() : NO_HISTORY;
+        MoveHistory history = historyKind == HISTORY ? MoveHistory.read(in, size)
+                : historyKind == UNLOGGED_MOVES ? MoveHistory.merge(previous, in, size)
+                : null;
+
+        return new Game(new Board(size, winLength, x, o), mode == 0 ? null : MODES[mode - 1],
+                current, starting, status, flags, playerXId, playerOId, gameVersion, history);
+    }
+
+    private static int stringBytes(String value) {
+        return 2 + (value == null ? 0 : value.length() * 3);
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
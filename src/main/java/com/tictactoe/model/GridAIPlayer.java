@@ -0,0 +1,315 @@
+package com.tictactoe.model;
+
+import java.util.Random;
+
+/**
+ * Bounded search for boards larger than 3x3, where an exhaustive search can
+ * never finish. Iterative-deepening alpha-beta over cells next to existing
+ * marks, with a window-count evaluation that is updated incrementally per
+ * move and a Zobrist-hashed transposition table shared by the searches of
+ * this instance, so tiers do not read each other's entries. The move from
+ * the last completed iteration is played when the time budget runs out.
+ */
+public class GridAIPlayer implements AIPlayer {
+
+    private static final int WIN = 1 << 28;
+    private static final int MATE_BOUND = 1 << 27;
+    private static final int INFINITY = 1 << 29;
+    private static final int MAX_CELLS = Board.MAX_SIZE * Board.MAX_SIZE;
+
+    // Value of an open window holding n marks of one side, capped so that a
+    // full-board sum stays well below MATE_BOUND.
+    private static final int[] WINDOW_WEIGHT = new int[Board.MAX_SIZE + 1];
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private static final long[][] ZOBRIST = new long[3][MAX_CELLS];
+    private static final long[] SIZE_KEYS = new long[Board.MAX_SIZE + 1];
+    private static final long SIDE_KEY;
+
+    // Lockless table: keys[i] holds hash ^ data so a torn write is detected
+    // as a miss. Data layout: best cell + 1 in bits 0-7, depth in bits 8-15,
+    // bound in bits 16-17, score in the high 32 bits.
+    private static final int MAX_TABLE_BITS = 17;
+    private static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    static {
+        int weight = 1;
+        for (int n = 1; n <= Board.MAX_SIZE; n++) {
+            WINDOW_WEIGHT[n] = weight;
+            weight = Math.min(weight * 10, 1 << 16);
+        }
+        Random random = new Random(0x5EED);
+        for (long[] keys : ZOBRIST) {
+            for (int i = 0; i < keys.length; i++) keys[i] = random.nextLong();
+        }
+        for (int i = 0; i < SIZE_KEYS.length; i++) SIZE_KEYS[i] = random.nextLong();
+        SIDE_KEY = random.nextLong();
+    }
+
+    private final int maxDepth;
+    private final long timeBudgetNanos;
+    private final int tableMask;
+    private final long[] tableKeys;
+    private final long[] tableData;
+
+    public GridAIPlayer(int maxDepth, long timeBudgetMillis) {
+        this.maxDepth = maxDepth;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+        // Shallow searches visit few positions and get a smaller table.
+        int tableBits = Math.min(MAX_TABLE_BITS, 10 + 2 * Math.min(maxDepth, 4));
+        this.tableMask = (1 << tableBits) - 1;
+        this.tableKeys = new long[1 << tableBits];
+        this.tableData = new long[1 << tableBits];
+    }
+
+    @Override
+    public Move getBestMove(Board board, Player aiPlayer) {
+        if (board.isFull()) return null;
+
+        Search search = new Search(board, aiPlayer, System.nanoTime() + timeBudgetNanos);
+        int[] candidates = search.candidates();
+
+        // Take an immediate win, or block the opponent's, without searching.
+        for (int cell : candidates) {
+            if (search.wouldComplete(cell, 1)) return search.toMove(cell);
+        }
+        for (int cell : candidates) {
+            if (search.wouldComplete(cell, 2)) return search.toMove(cell);
+        }
+
+        int bestCell = candidates[0];
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int cell = search.root(depth, bestCell);
+            if (search.aborted) break;
+            bestCell = cell;
+        }
+        return search.toMove(bestCell);
+    }
+
+    private final class Search {
+        final int size;
+        final int k;
+        final int cellCount;
+        final byte[] cells;   // 0 empty, 1 AI, 2 opponent
+        final long deadline;
+        long hash;
+        int eval;             // from the AI's point of view
+        int stones;
+        long nodes;
+        boolean aborted;
+
+        Search(Board board, Player aiPlayer, long deadline) {
+            this.size = board.getSize();
+            this.k = board.getWinLength();
+            this.cellCount = size * size;
+            this.cells = new byte[cellCount];
+            this.deadline = deadline;
+            this.hash = SIZE_KEYS[size] ^ (k * 0x9E3779B97F4A7C15L);
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    Player owner = board.get(r, c);
+                    if (owner != null) place(r * size + c, owner == aiPlayer ? 1 : 2);
+                }
+            }
+        }
+
+        Move toMove(int cell) {
+            return new Move(cell / size, cell % size, nodes);
+        }
+
+        int root(int depth, int previousBest) {
+            int alpha = -INFINITY;
+            int bestCell = previousBest;
+            int[] moves = ordered(1, previousBest);
+            for (int cell : moves) {
+                place(cell, 1);
+                int value = scoreAfter(cell, 1, depth, alpha, INFINITY);
+                remove(cell, 1);
+                if (aborted) return bestCell;
+                if (value > alpha) {
+                    alpha = value;
+                    bestCell = cell;
+                }
+            }
+            return bestCell;
+        }
+
+        /** Negamax value for {@code side} to move. */
+        int search(int side, int depth, int alpha, int beta) {
+            nodes++;
+            if ((nodes & 1023) == 0 && System.nanoTime() > deadline) aborted = true;
+            if (aborted) return 0;
+
+            long key = side == 2 ? hash ^ SIDE_KEY : hash;
+            int slot = (int) key & tableMask;
+            long data = tableData[slot];
+            int hint = -1;
+            if ((tableKeys[slot] ^ data) == key) {
+                hint = (int) (data & 0xFF) - 1;
+                int value = (int) (data >> 32);
+                int bound = (int) (data >>> 16) & 3;
+                if (((data >>> 8) & 0xFF) >= depth
+                        && (bound == EXACT
+                        || (bound == LOWER && value >= beta)
+                        || (bound == UPPER && value <= alpha))) {
+                    return value;
+                }
+            }
+            if (depth == 0 || stones == cellCount) {
+                return side == 1 ? eval : -eval;
+            }
+
+            int alphaOrig = alpha;
+            int best = -INFINITY;
+            int bestCell = -1;
+            for (int cell : ordered(side, hint)) {
+                place(cell, side);
+                int value = scoreAfter(cell, side, depth, alpha, beta);
+                remove(cell, side);
+                if (aborted) return 0;
+                if (value > best) {
+                    best = value;
+                    bestCell = cell;
+                }
+                if (best > alpha) alpha = best;
+                if (alpha >= beta) break;
+            }
+
+            int bound = best <= alphaOrig ? UPPER : best >= beta ? LOWER : EXACT;
+            long entry = ((long) best << 32) | ((long) bound << 16) | ((long) depth << 8) | (bestCell + 1);
+            tableData[slot] = entry;
+            tableKeys[slot] = key ^ entry;
+            return best;
+        }
+
+        // Value for the side that just played into cell.
+        int scoreAfter(int cell, int side, int depth, int alpha, int beta) {
+            if (completes(cell, side)) return WIN;
+            if (stones == cellCount) return 0;
+            int child = search(3 - side, depth - 1, toChild(-beta), toChild(-alpha));
+            return -toParent(child);
+        }
+
+        /** Empty cells adjacent to a mark, best incremental gain first. */
+        int[] ordered(int side, int first) {
+            int[] moves = candidates();
+            int[] gain = new int[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                int g = moves[i] == first ? Integer.MAX_VALUE
+                        : delta(moves[i], side) + delta(moves[i], 3 - side);
+                gain[i] = g;
+                for (int j = i; j > 0 && gain[j] > gain[j - 1]; j--) {
+                    int t = gain[j]; gain[j] = gain[j - 1]; gain[j - 1] = t;
+                    t = moves[j]; moves[j] = moves[j - 1]; moves[j - 1] = t;
+                }
+            }
+            return moves;
+        }
+
+        int[] candidates() {
+            if (stones == 0) {
+                return new int[] {(size / 2) * size + size / 2};
+            }
+            int[] buffer = new int[cellCount];
+            int count = 0;
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (cells[cell] == 0 && hasNeighbour(cell)) buffer[count++] = cell;
+            }
+            int[] moves = new int[count];
+            System.arraycopy(buffer, 0, moves, 0, count);
+            return moves;
+        }
+
+        boolean hasNeighbour(int cell) {
+            int row = cell / size, col = cell % size;
+            for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(size - 1, col + 1); c++) {
+                    if (cells[r * size + c] != 0) return true;
+                }
+            }
+            return false;
+        }
+
+        boolean wouldComplete(int cell, int side) {
+            cells[cell] = (byte) side;
+            boolean win = completes(cell, side);
+            cells[cell] = 0;
+            return win;
+        }
+
+        boolean completes(int cell, int side) {
+            int row = cell / size, col = cell % size;
+            for (int[] d : DIRECTIONS) {
+                int run = 1 + run(row, col, d[0], d[1], side) + run(row, col, -d[0], -d[1], side);
+                if (run >= k) return true;
+            }
+            return false;
+        }
+
+        int run(int row, int col, int dr, int dc, int side) {
+            int n = 0;
+            for (int r = row + dr, c = col + dc;
+                 r >= 0 && r < size && c >= 0 && c < size && cells[r * size + c] == side;
+                 r += dr, c += dc) {
+                n++;
+            }
+            return n;
+        }
+
+        void place(int cell, int side) {
+            eval += side == 1 ? delta(cell, 1) : -delta(cell, 2);
+            cells[cell] = (byte) side;
+            hash ^= ZOBRIST[side][cell];
+            stones++;
+        }
+
+        void remove(int cell, int side) {
+            cells[cell] = 0;
+            eval -= side == 1 ? delta(cell, 1) : -delta(cell, 2);
+            hash ^= ZOBRIST[side][cell];
+            stones--;
+        }
+
+        /**
+         * Change in {@code side}'s evaluation if it played into the empty
+         * cell: only the windows through that cell are rescanned.
+         */
+        int delta(int cell, int side) {
+            int row = cell / size, col = cell % size;
+            int gain = 0;
+            for (int[] d : DIRECTIONS) {
+                for (int offset = -(k - 1); offset <= 0; offset++) {
+                    int r0 = row + offset * d[0], c0 = col + offset * d[1];
+                    int r1 = r0 + (k - 1) * d[0], c1 = c0 + (k - 1) * d[1];
+                    if (r0 < 0 || r0 >= size || r1 < 0 || r1 >= size
+                            || c0 < 0 || c0 >= size || c1 < 0 || c1 >= size) continue;
+
+                    int own = 0, other = 0;
+                    for (int i = 0; i < k; i++) {
+                        byte v = cells[(r0 + i * d[0]) * size + c0 + i * d[1]];
+                        if (v == side) own++;
+                        else if (v != 0) other++;
+                    }
+                    if (other == 0) {
+                        // Our window grows by one mark.
+                        gain += WINDOW_WEIGHT[own + 1] - WINDOW_WEIGHT[own];
+                    } else if (own == 0) {
+                        // The opponent's window is now blocked.
+                        gain += WINDOW_WEIGHT[other];
+                    }
+                }
+            }
+            return gain;
+        }
+    }
+
+    // Win scores shrink by one per ply; see AlphaBetaAIPlayer.
+    private static int toParent(int value) {
+        return value > MATE_BOUND ? value - 1 : value < -MATE_BOUND ? value + 1 : value;
+    }
+
+    private static int toChild(int value) {
+        return value > MATE_BOUND ? value + 1 : value < -MATE_BOUND ? value - 1 : value;
+    }
+}
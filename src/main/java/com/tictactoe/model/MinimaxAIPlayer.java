@@ -0,0 +1,64 @@
+package com.tictactoe.model;
+
+/**
+ * Plain exhaustive minimax. Kept as the reference implementation the other
+ * engines are checked against; it searches the full tree on every move.
+ */
+public class MinimaxAIPlayer implements AIPlayer {
+
+    @Override
+    public Move getBestMove(Board board, Player aiPlayer) {
+        Player humanPlayer = (aiPlayer == Player.X) ? Player.O : Player.X;
+
+        int aiBits = board.bits(aiPlayer);
+        int humanBits = board.bits(humanPlayer);
+
+        int bestScore = Integer.MIN_VALUE;
+        Move bestMove = null;
+        long[] nodes = new long[1];
+
+        for (int cell = 0; cell < 9; cell++) {
+            int bit = 1 << cell;
+            if (((aiBits | humanBits) & bit) == 0) {
+                int score = minimax(aiBits | bit, humanBits, 0, false, nodes);
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = new Move(cell / 3, cell % 3);
+                }
+            }
+        }
+        if (bestMove != null) bestMove.nodes = nodes[0];
+        return bestMove;
+    }
+
+    private int minimax(int aiBits, int humanBits, int depth, boolean isMaximizing, long[] nodes) {
+        nodes[0]++;
+        if (Board.hasLine(aiBits)) {
+            return 10 - depth;
+        }
+        if (Board.hasLine(humanBits)) {
+            return depth - 10;
+        }
+        int occupied = aiBits | humanBits;
+        if (occupied == Board.FULL_MASK) {
+            return 0;
+        }
+
+        if (isMaximizing) {
+            int bestScore = Integer.MIN_VALUE;
+            for (int free = ~occupied & Board.FULL_MASK; free != 0; free &= free - 1) {
+                int score = minimax(aiBits | Integer.lowestOneBit(free), humanBits, depth + 1, false, nodes);
+                bestScore = Math.max(score, bestScore);
+            }
+            return bestScore;
+        } else {
+            int bestScore = Integer.MAX_VALUE;
+            for (int free = ~occupied & Board.FULL_MASK; free != 0; free &= free - 1) {
+                int score = minimax(aiBits, humanBits | Integer.lowestOneBit(free), depth + 1, true, nodes);
+                bestScore = Math.min(score, bestScore);
+            }
+            return bestScore;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.tictactoe.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append-only log of the moves of a game, one round per rematch. Each move
+ * is its row-major cell index packed into as few bits as the board needs,
+ * four up to 4x4 and eight at most, so a 3x3 round fits in one long. Moves
+ * alternate from the round's starting player, so marks are not stored.
+ * Only the last {@link #MAX_ROUNDS} rounds are kept; older ones are dropped
+ * as new ones start, and round numbers keep counting from the first.
+ *
+ * For the journal, a history also remembers how far it has been logged, so
+ * each change logs only the moves after that; see {@link #writeUnlogged}.
+ */
+public final class MoveHistory {
+
+    public static final int MAX_ROUNDS = 16;
+
+    private final int bits;
+    private final int perWord;
+    private long[] words;
+    private int moves;
+    // Where the next move goes, kept so recording needs no division.
+    private int word;
+    private int shift;
+    // Per kept round: index of its first move << 1 | starting player ordinal.
+    private int[] rounds;
+    private int roundCount;
+    private int droppedRounds;
+    // Round number and move within it up to which writeUnlogged has written.
+    // Not encoded: a decoded history is logged whole the first time.
+    private int loggedRound;
+    private int loggedMoves;
+
+    public MoveHistory(int size, Player starter) {
+        this(size);
+        rounds[0] = starter.ordinal();
+        roundCount = 1;
+    }
+
+    private MoveHistory(int size) {
+        this.bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(size * size - 1));
+        this.perWord = 64 / bits;
+        this.words = new long[1];
+        this.rounds = new int[1];
+    }
+
+    public void record(int cell) {
+        if (shift == perWord * bits) {
+            shift = 0;
+            if (++word == words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+        }
+        words[word] |= (long) cell << shift;
+        shift += bits;
+        moves++;
+    }
+
+    /** Starts the next round; a round without moves is reused. */
+    public void startRound(Player starter) {
+        if (roundLength(roundCount - 1) == 0) {
+            rounds[roundCount - 1] = moves << 1 | starter.ordinal();
+            return;
+        }
+        if (roundCount == MAX_ROUNDS) {
+            dropFirstRound();
+        }
+        if (roundCount == rounds.length) {
+            rounds = Arrays.copyOf(rounds, Math.min(rounds.length * 2, MAX_ROUNDS));
+        }
+        rounds[roundCount++] = moves << 1 | starter.ordinal();
+    }
+
+    // Rare: repacks the kept moves from the start of the log.
+    private void dropFirstRound() {
+        int dropped = rounds[1] >>> 1;
+        long[] kept = new long[Math.max(1, (moves - dropped + perWord - 1) / perWord)];
+        for (int i = dropped; i < moves; i++) {
+            kept[(i - dropped) / perWord] |= (long) cell(i) << ((i - dropped) % perWord * bits);
+        }
+        words = kept;
+        moves -= dropped;
+        seek();
+        for (int i = 1; i < roundCount; i++) {
+            rounds[i - 1] = rounds[i] - (dropped << 1);
+        }
+        roundCount--;
+        droppedRounds++;
+    }
+
+    public int roundCount() {
+        return roundCount;
+    }
+
+    /** One-based number of a kept round, counting dropped ones. */
+    public int roundNumber(int round) {
+        return droppedRounds + round + 1;
+    }
+
+    public Player starter(int round) {
+        return Player.values()[rounds[round] & 1];
+    }
+
+    public int roundLength(int round) {
+        int end = round + 1 < roundCount ? rounds[round + 1] >>> 1 : moves;
+        return end - (rounds[round] >>> 1);
+    }
+
+    /** Cell of the round's {@code index}-th move. */
+    public int cell(int round, int index) {
+        return cell((rounds[round] >>> 1) + index);
+    }
+
+    private int cell(int move) {
+        return (int) (words[move / perWord] >>> (move % perWord * bits)) & ((1 << bits) - 1);
+    }
+
+    /** Cells of the round's moves, in order. */
+    public int[] cells(int round) {
+        int[] cells = new int[roundLength(round)];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = cell(round, i);
+        }
+        return cells;
+    }
+
+    // Rough shallow size on a 64-bit JVM with compressed oops.
+    public long approxBytes() {
+        return 40 + 16 + 8L * words.length + 16 + 4L * rounds.length;
+    }
+
+    /** Size of {@link #write}'s output. */
+    int encodedBytes() {
+        return 12 + 4 * roundCount + 8 * ((moves + perWord - 1) / perWord);
+    }
+
+    void write(ByteBuffer out) {
+        out.putInt(droppedRounds);
+        out.putInt(roundCount);
+        out.putInt(moves);
+        for (int i = 0; i < roundCount; i++) {
+            out.putInt(rounds[i]);
+        }
+        for (int i = 0, n = (moves + perWord - 1) / perWord; i < n; i++) {
+            out.putLong(words[i]);
+        }
+    }
+
+    /** Upper bound on the size of {@link #writeUnlogged}'s output. */
+    int unloggedBytes() {
+        return 1 + 9 * roundCount + moves;
+    }
+
+    /**
+     * Writes the moves since the last call, as runs of cells placed by round
+     * number and index so that {@link #merge} can apply them more than once.
+     * Every kept round from the last logged one on is written, even if empty,
+     * so a rematch's round and starter are logged before its first move.
+     */
+    void writeUnlogged(ByteBuffer out) {
+        int first = Math.max(0, Math.min(roundCount - 1, loggedRound - droppedRounds - 1));
+        out.put((byte) (roundCount - first));
+        for (int round = first; round < roundCount; round++) {
+            int length = roundLength(round);
+            int from = roundNumber(round) == loggedRound ? Math.min(loggedMoves, length) : 0;
+            out.putInt(roundNumber(round));
+            out.put((byte) starter(round).ordinal());
+            out.putShort((short) from);
+            out.putShort((short) (length - from));
+            for (int i = from; i < length; i++) {
+                out.put((byte) cell(round, i));
+            }
+        }
+        loggedRound = roundNumber(roundCount - 1);
+        loggedMoves = roundLength(roundCount - 1);
+    }
+
+    /**
+     * Applies a {@link #writeUnlogged} run to the history, or to a new one if
+     * null, skipping moves it already has: replay may meet a run again after
+     * a snapshot that caught the game later. Returns the history.
+     */
+    static MoveHistory merge(MoveHistory history, ByteBuffer in, int size) {
+        int runs = in.get();
+        for (int run = 0; run < runs; run++) {
+            int number = in.getInt();
+            Player starter = Player.values()[in.get()];
+            int from = in.getShort();
+            int length = in.getShort();
+            if (history == null) {
+                history = new MoveHistory(size, starter);
+                history.droppedRounds = number - 1;
+            }
+            int last = history.roundCount - 1;
+            if (number > history.roundNumber(last)) {
+                history.startRound(starter);
+                last = history.roundCount - 1;
+            } else if (number < history.roundNumber(last)) {
+                // A finished round, already complete here.
+                in.position(in.position() + length);
+                continue;
+            }
+            if (history.roundLength(last) == 0) {
+                history.rounds[last] = history.rounds[last] & ~1 | starter.ordinal();
+            }
+            int have = history.roundLength(last);
+            for (int i = 0; i < length; i++) {
+                int cell = Byte.toUnsignedInt(in.get());
+                if (from + i >= have) history.record(cell);
+            }
+        }
+        return history;
+    }
+
+    static MoveHistory read(ByteBuffer in, int size) {
+        MoveHistory history = new MoveHistory(size);
+        history.droppedRounds = in.getInt();
+        history.roundCount = in.getInt();
+        int moves = in.getInt();
+        history.rounds = new int[history.roundCount];
+        for (int i = 0; i < history.roundCount; i++) {
+            history.rounds[i] = in.getInt();
+        }
+        history.moves = moves;
+        history.words = new long[Math.max(1, (moves + history.perWord - 1) / history.perWord)];
+        for (int i = 0, n = (moves + history.perWord - 1) / history.perWord; i < n; i++) {
+            history.words[i] = in.getLong();
+        }
+        history.seek();
+        return history;
+    }
+
+    // Positions the next move after the last one; a full last word is left
+    // for record() to move past.
+    private void seek() {
+        word = moves == 0 ? 0 : (moves - 1) / perWord;
+        shift = moves == 0 ? 0 : ((moves - 1) % perWord + 1) * bits;
+    }
+}
@@ -0,0 +1,69 @@
+package com.tictactoe.model;
+
+/**
+ * Fixed-width encoding of a game for boards up to 8x8: one long of X cells,
+ * one of O cells and one of metadata. Session ids and the move history do
+ * not fit and are kept by the caller.
+ *
+ * Metadata layout, low bits first: status (2), current player (1),
+ * starting player (1), presence/ready flags (4), AI mode + 1 (3),
+ * board size (4), win length (4), version (44).
+ */
+public final class PackedGame {
+
+    public static final int MAX_SIZE = 8;
+
+    private static final long VERSION_MASK = (1L << 44) - 1;
+
+    private static final GameStatus[] STATUSES = GameStatus.values();
+    private static final AIMode[] MODES = AIMode.values();
+
+    private PackedGame() {}
+
+    public static boolean fits(Game game) {
+        return game.getBoard().getSize() <= MAX_SIZE;
+    }
+
+    public static long xBits(Game game) {
+        return game.getBoard().copyBits(Player.X)[0];
+    }
+
+    public static long oBits(Game game) {
+        return game.getBoard().copyBits(Player.O)[0];
+    }
+
+    public static long meta(Game game) {
+        Board board = game.getBoard();
+        return game.getGameStatus().ordinal()
+                | (long) game.getCurrentPlayer().ordinal() << 2
+                | (long) game.getStartingPlayer().ordinal() << 3
+                | (long) game.presenceFlags() << 4
+                | (long) (game.getAiLevel() == null ? 0 : game.getAiLevel().ordinal() + 1) << 8
+                | (long) board.getSize() << 11
+                | (long) board.getWinLength() << 15
+                | (game.getVersion() & VERSION_MASK) << 19;
+    }
+
+    public static boolean isFinished(long meta) {
+        return STATUSES[(int) (meta & 3)] != GameStatus.IN_PROGRESS;
+    }
+
+    public static Game unpack(long xBits, long oBits, long meta, String playerXId, String playerOId,
+                              MoveHistory history) {
+        int size = (int) (meta >>> 11) & 0xF;
+        int winLength = (int) (meta >>> 15) & 0xF;
+        int mode = (int) (meta >>> 8) & 7;
+        Board board = new Board(size, winLength, new long[] {xBits}, new long[] {oBits});
+        return new Game(
+                board,
+                mode == 0 ? null : MODES[mode - 1],
+                Player.values()[(int) (meta >>> 2) & 1],
+                Player.values()[(int) (meta >>> 3) & 1],
+                STATUSES[(int) (meta & 3)],
+                (int) (meta >>> 4) & 0xF,
+                playerXId,
+                playerOId,
+                (meta >>> 19) & VERSION_MASK,
+                history);
+    }
+}
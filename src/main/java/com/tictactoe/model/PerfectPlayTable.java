@@ -0,0 +1,98 @@
+package com.tictactoe.model;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Best move and score for every position, indexed by {@link BoardKeys#key}.
+ * Scores follow {@link MinimaxAIPlayer}'s convention, so a lookup returns
+ * the same move the full search would.
+ */
+public final class PerfectPlayTable {
+
+    private static final byte UNSOLVED = Byte.MIN_VALUE;
+
+    private final byte[] bestCell = new byte[BoardKeys.POSITIONS];
+    private final byte[] score = new byte[BoardKeys.POSITIONS];
+
+    private int solvedPositions;
+    private final long buildNanos;
+
+    private PerfectPlayTable() {
+        long start = System.nanoTime();
+        Arrays.fill(score, UNSOLVED);
+        solve(0, 0);
+        buildNanos = System.nanoTime() - start;
+    }
+
+    private static class Holder {
+        private static final PerfectPlayTable INSTANCE = new PerfectPlayTable();
+
+        static {
+            LoggerFactory.getLogger(PerfectPlayTable.class).info("Perfect-play table ready: {}", INSTANCE.report());
+        }
+    }
+
+    public static PerfectPlayTable getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /** Returns the best cell (0-8) for the side owning {@code own}, or -1 if the game is over. */
+    public int bestCell(int own, int opp) {
+        int key = BoardKeys.key(own, opp);
+        return score[key] == UNSOLVED ? -1 : bestCell[key];
+    }
+
+    public int score(int own, int opp) {
+        return score[BoardKeys.key(own, opp)];
+    }
+
+    public String report() {
+        return String.format("%d positions solved, %d bytes, built in %.2f ms",
+                solvedPositions, getFootprintBytes(), buildNanos / 1e6);
+    }
+
+    public int getSolvedPositions() { return solvedPositions; }
+    public long getBuildNanos() { return buildNanos; }
+    public long getFootprintBytes() { return (long) bestCell.length + score.length; }
+
+    private int solve(int own, int opp) {
+        int key = BoardKeys.key(own, opp);
+        if (score[key] != UNSOLVED) {
+            return score[key];
+        }
+
+        int occupied = own | opp;
+        int best = Integer.MIN_VALUE;
+        int bestMove = -1;
+        for (int cell = 0; cell < 9; cell++) {
+            int bit = 1 << cell;
+            if ((occupied & bit) != 0) continue;
+
+            int next = own | bit;
+            int value;
+            if (Board.hasLine(next)) {
+                value = 10;
+            } else if ((next | opp) == Board.FULL_MASK) {
+                value = 0;
+            } else {
+                value = -decay(solve(opp, next));
+            }
+            if (value > best) {
+                best = value;
+                bestMove = cell;
+            }
+        }
+
+        bestCell[key] = (byte) bestMove;
+        score[key] = (byte) best;
+        solvedPositions++;
+        return best;
+    }
+
+    // A result one ply further away is worth one point less, as with minimax depth.
+    private static int decay(int value) {
+        return value > 0 ? value - 1 : value < 0 ? value + 1 : 0;
+    }
+}
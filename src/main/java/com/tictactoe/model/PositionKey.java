@@ -0,0 +1,115 @@
+package com.tictactoe.model;
+
+import java.util.Arrays;
+
+/**
+ * Symmetry-reduced key for a position on any board size, from the side to
+ * move's point of view: the side's own marks, then the opponent's, under
+ * whichever of the eight rotations and reflections gives the smallest bit
+ * words. Keys compare equal for positions that are images of each other,
+ * and {@link #toBoardCell} maps a cell in the canonical frame back onto
+ * the board the key was built from.
+ */
+public final class PositionKey {
+
+    // CELL_MAPS[size][t][cell] is cell under the t-th transform, INVERSE_MAPS the way back.
+    private static final short[][][] CELL_MAPS = new short[Board.MAX_SIZE + 1][][];
+    private static final short[][][] INVERSE_MAPS = new short[Board.MAX_SIZE + 1][][];
+
+    static {
+        for (int size = Board.MIN_SIZE; size <= Board.MAX_SIZE; size++) {
+            short[][] maps = new short[8][size * size];
+            short[][] inverse = new short[8][size * size];
+            for (int t = 0; t < 8; t++) {
+                for (int cell = 0; cell < size * size; cell++) {
+                    int r = cell / size, c = cell % size;
+                    // t & 3 quarter turns, then a mirror when t >= 4, as in BoardKeys
+                    for (int i = 0; i < (t & 3); i++) {
+                        int nr = c;
+                        c = size - 1 - r;
+                        r = nr;
+                    }
+                    if (t >= 4) c = size - 1 - c;
+                    maps[t][cell] = (short) (r * size + c);
+                    inverse[t][r * size + c] = (short) cell;
+                }
+            }
+            CELL_MAPS[size] = maps;
+            INVERSE_MAPS[size] = inverse;
+        }
+    }
+
+    private final int header;
+    private final long[] words;
+    private final int hash;
+    // Not part of equality: how this board maps onto the canonical frame.
+    private final int transform;
+
+    private PositionKey(int header, long[] words, int transform) {
+        this.header = header;
+        this.words = words;
+        this.transform = transform;
+        this.hash = 31 * header + Arrays.hashCode(words);
+    }
+
+    /**
+     * @param engine distinguishes positions searched by different engines;
+     *               at most 16 bits
+     */
+    public static PositionKey of(int engine, Board board, Player toMove) {
+        int size = board.getSize();
+        long[] own = board.copyBits(toMove);
+        long[] opp = board.copyBits(toMove == Player.X ? Player.O : Player.X);
+        int words = own.length;
+
+        long[] best = null;
+        int bestTransform = 0;
+        long[] candidate = new long[words * 2];
+        for (int t = 0; t < 8; t++) {
+            short[] map = CELL_MAPS[size][t];
+            Arrays.fill(candidate, 0);
+            scatter(own, map, candidate, 0);
+            scatter(opp, map, candidate, words);
+            if (best == null || Arrays.compareUnsigned(candidate, best) < 0) {
+                best = candidate.clone();
+                bestTransform = t;
+            }
+        }
+        int header = (engine << 16) | (size << 8) | board.getWinLength();
+        return new PositionKey(header, best, bestTransform);
+    }
+
+    private static void scatter(long[] bits, short[] map, long[] target, int offset) {
+        for (int w = 0; w < bits.length; w++) {
+            for (long rest = bits[w]; rest != 0; rest &= rest - 1) {
+                int cell = map[(w << 6) + Long.numberOfTrailingZeros(rest)];
+                target[offset + (cell >>> 6)] |= 1L << cell;
+            }
+        }
+    }
+
+    public int size() {
+        return (header >>> 8) & 0xFF;
+    }
+
+    /** Board cell to canonical cell. */
+    public int toCanonicalCell(int cell) {
+        return CELL_MAPS[size()][transform][cell];
+    }
+
+    /** Canonical cell to board cell. */
+    public int toBoardCell(int canonicalCell) {
+        return INVERSE_MAPS[size()][transform][canonicalCell];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PositionKey other
+                && header == other.header && hash == other.hash && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,22 @@
+package com.tictactoe.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Uniformly random legal move; the baseline the other engines are measured against. */
+public class RandomAIPlayer implements AIPlayer {
+
+    @Override
+    public Move getBestMove(Board board, Player aiPlayer) {
+        int cells = board.getSize() * board.getSize();
+        int empty = cells - board.getMoveCount();
+        if (empty == 0) return null;
+
+        int pick = ThreadLocalRandom.current().nextInt(empty);
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isOccupied(cell) && pick-- == 0) {
+                return new Move(cell / board.getSize(), cell % board.getSize(), 1);
+            }
+        }
+        return null;
+    }
+}
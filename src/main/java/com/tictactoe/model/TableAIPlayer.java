@@ -0,0 +1,12 @@
+package com.tictactoe.model;
+
+/** Perfect play by lookup in the shared {@link PerfectPlayTable}. */
+public class TableAIPlayer implements AIPlayer {
+
+    @Override
+    public Move getBestMove(Board board, Player aiPlayer) {
+        Player humanPlayer = (aiPlayer == Player.X) ? Player.O : Player.X;
+        int cell = PerfectPlayTable.getInstance().bestCell(board.bits(aiPlayer), board.bits(humanPlayer));
+        return cell < 0 ? null : new Move(cell / 3, cell % 3);
+    }
+}
@@ -0,0 +1,291 @@
+package com.tictactoe.persistence;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.service.GameChangeListener;
+import com.tictactoe.service.GameService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot plus write-ahead log, so games survive a restart or redeploy.
+ *
+ * Every change {@link GameService} reports is appended to the log shard the
+ * game's id hashes to; a game's records therefore stay in lane order. A game
+ * stored is logged whole; a change on its lane logs the game's state with
+ * only the moves since its last record, so the log does not repeat a long
+ * history at every move. Periodically all shards roll to a new generation
+ * and the live games are written to a snapshot, after which older logs are
+ * deleted. Recovery loads the newest snapshot and replays the logs from its
+ * generation on; the last state logged for a game wins, and moves are placed
+ * by position, so replay is right even if the snapshot caught that game
+ * mid-move.
+ */
+@Component
+@ConditionalOnProperty(name = "game.persistence.enabled", havingValue = "true")
+public class GameJournal implements GameChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x54545453;   // "TTTS"
+    private static final Pattern LOG_FILE = Pattern.compile("shard-(\\d+)-(\\d+)-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.snap");
+    private static final int SNAPSHOT_WINDOW = 1024;
+
+    private final GameService gameService;
+    private final Path dir;
+    private final JournalShard[] shards;
+    private long generation;
+
+    public GameJournal(GameService gameService,
+                       @Value("${game.persistence.dir:data}") String dir,
+                       @Value("${game.persistence.shards:4}") int shardCount,
+                       @Value("${game.persistence.segment-bytes:16777216}") int segmentBytes) {
+        this.gameService = gameService;
+        this.dir = Paths.get(dir);
+        this.shards = new JournalShard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new JournalShard(this.dir, i, segmentBytes);
+        }
+    }
+
+    // Runs before the web server starts, so no request sees a half-loaded store.
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(dir);
+        recover();
+        // A fresh snapshot folds the replayed logs away before new writes start.
+        snapshot();
+        gameService.setChangeListener(this);
+    }
+
+    @Override
+    public void gameSaved(String gameId, Game game) {
+        append(JournalRecords.PUT, gameId, game);
+    }
+
+    @Override
+    public void gameMutated(String gameId, Game game) {
+        append(JournalRecords.UPDATE, gameId, game);
+    }
+
+    @Override
+    public void gameRemoved(String gameId) {
+        append(JournalRecords.REMOVE, gameId, null);
+    }
+
+    private void append(byte type, String gameId, Game game) {
+        try {
+            shards[Math.floorMod(gameId.hashCode(), shards.length)].append(type, gameId, game);
+        } catch (IOException | RuntimeException e) {
+            log.error("Journal append for game {} failed", gameId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${game.persistence.flush-interval-ms:50}")
+    public void flush() {
+        for (JournalShard shard : shards) {
+            shard.flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${game.persistence.snapshot-interval-ms:60000}",
+            initialDelayString = "${game.persistence.snapshot-interval-ms:60000}")
+    public synchronized void snapshot() throws IOException {
+        long started = System.nanoTime();
+        long cut = ++generation;
+        for (JournalShard shard : shards) {
+            shard.roll(cut);
+        }
+
+        Path tmp = dir.resolve("snapshot.tmp");
+        int games = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(cut);
+            // Each game is encoded on its lane, sized as it is then. A window of
+            // lane tasks stays in flight; records are written as they were asked for.
+            Deque<CompletableFuture<ByteBuffer>> pending = new ArrayDeque<>();
+            for (String gameId : gameService.gameIds()) {
+                pending.add(gameService.inspect(gameId, game -> game == null ? null : encode(gameId, game)));
+                if (pending.size() == SNAPSHOT_WINDOW) {
+                    games += append(out, buffer, pending.poll().join());
+                }
+            }
+            while (!pending.isEmpty()) {
+                games += append(out, buffer, pending.poll().join());
+            }
+            buffer.putInt(0);
+            drain(out, buffer);
+            out.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(tmp, dir.resolve(snapshotName(cut)), StandardCopyOption.ATOMIC_MOVE);
+        deleteBefore(cut);
+
+        log.info("Journal snapshot {}: {} games in {} ms",
+                cut, games, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static ByteBuffer encode(String gameId, Game game) {
+        ByteBuffer record = ByteBuffer.allocate(JournalRecords.maxBytes(gameId, game));
+        JournalRecords.write(record, JournalRecords.PUT, gameId, game);
+        return record.flip();
+    }
+
+    // Keeps room for the end marker; a record larger than the buffer is written as is.
+    private static int append(FileChannel out, ByteBuffer buffer, ByteBuffer record) {
+        if (record == null) return 0;
+        if (buffer.remaining() < record.remaining() + 4) {
+            drain(out, buffer);
+        }
+        if (buffer.remaining() < record.remaining() + 4) {
+            write(out, record);
+        } else {
+            buffer.put(record);
+        }
+        return 1;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) {
+        buffer.flip();
+        write(out, buffer);
+        buffer.clear();
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) out.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Loads the newest snapshot and replays the logs after it; only reads the files. */
+    public void recover() throws IOException {
+        long started = System.nanoTime();
+        JournalRecords.Handler handler = new JournalRecords.Handler() {
+            @Override
+            public Game get(String gameId) {
+                return gameService.getGame(gameId);
+            }
+
+            @Override
+            public void put(String gameId, Game game) {
+                gameService.restoreGame(gameId, game);
+            }
+
+            @Override
+            public void remove(String gameId) {
+                gameService.deleteGame(gameId);
+            }
+        };
+
+        long snapshotGeneration = 0;
+        int snapshotGames = 0;
+        List<Path> logs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher snapshot = SNAPSHOT_FILE.matcher(name);
+                if (snapshot.matches()) {
+                    snapshotGeneration = Math.max(snapshotGeneration, Long.parseLong(snapshot.group(1)));
+                } else if (LOG_FILE.matcher(name).matches()) {
+                    logs.add(file);
+                }
+            }
+        }
+
+        if (snapshotGeneration > 0) {
+            ByteBuffer snapshot = map(dir.resolve(snapshotName(snapshotGeneration)));
+            if (snapshot.getInt() != SNAPSHOT_MAGIC || snapshot.getLong() != snapshotGeneration) {
+                throw new IOException("Corrupt snapshot " + snapshotName(snapshotGeneration));
+            }
+            snapshotGames = JournalRecords.read(snapshot, handler).records();
+        }
+
+        // Generation, then segment part, orders each shard's records.
+        long from = snapshotGeneration;
+        logs.removeIf(file -> logField(file, 2) < from);
+        logs.sort(Comparator.<Path>comparingLong(file -> logField(file, 2)).thenComparingLong(file -> logField(file, 3)));
+
+        int records = 0, torn = 0;
+        generation = snapshotGeneration;
+        for (Path log : logs) {
+            JournalRecords.Replay replay = JournalRecords.read(map(log), handler);
+            records += replay.records();
+            if (replay.torn()) torn++;
+            generation = Math.max(generation, logField(log, 2));
+        }
+
+        log.info("Journal recovery: {} games from snapshot {}, {} log records from {} files"
+                        + " ({} torn tails) in {} ms",
+                snapshotGames, snapshotGeneration, records, logs.size(), torn,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void deleteBefore(long cut) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher snapshot = SNAPSHOT_FILE.matcher(name);
+                if ((snapshot.matches() && Long.parseLong(snapshot.group(1)) < cut)
+                        || (LOG_FILE.matcher(name).matches() && logField(file, 2) < cut)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static long logField(Path file, int group) {
+        Matcher matcher = LOG_FILE.matcher(file.getFileName().toString());
+        matcher.matches();
+        return Long.parseLong(matcher.group(group));
+    }
+
+    private static String snapshotName(long generation) {
+        return String.format("snapshot-%010d.snap", generation);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        gameService.setChangeListener(null);
+        snapshot();
+        for (JournalShard shard : shards) {
+            shard.close();
+        }
+    }
+}
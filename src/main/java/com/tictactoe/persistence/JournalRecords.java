@@ -0,0 +1,104 @@
+package com.tictactoe.persistence;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Record framing shared by log segments and snapshots:
+ * {@code [body length][CRC32C of body][type][id length][id][game]}, ended by a
+ * zero length. Reading stops at the first record whose length or checksum
+ * does not hold, which is where a crash cut the last write short. A PUT
+ * holds the whole game; an UPDATE holds its state with only the moves not
+ * logged before (see {@link GameCodec#writeUpdate}), so a game's log grows
+ * with its moves rather than with its history at every move.
+ */
+final class JournalRecords {
+
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte UPDATE = 3;
+
+    private static final int HEADER = 8;
+
+    interface Handler {
+        /** The game as replayed so far, which an UPDATE applies to; null if none. */
+        Game get(String gameId);
+
+        void put(String gameId, Game game);
+
+        void remove(String gameId);
+    }
+
+    record Replay(int records, boolean torn) {}
+
+    private JournalRecords() {}
+
+    static int maxBytes(String gameId, Game game) {
+        return HEADER + 3 + gameId.length() * 3 + (game == null ? 0 : GameCodec.maxBytes(game));
+    }
+
+    static int maxUpdateBytes(String gameId, Game game) {
+        return HEADER + 3 + gameId.length() * 3 + GameCodec.maxUpdateBytes(game);
+    }
+
+    /** Appends one record at the buffer's position; game is null for REMOVE. */
+    static void write(ByteBuffer out, byte type, String gameId, Game game) {
+        int start = out.position();
+        out.position(start + HEADER);
+        byte[] id = gameId.getBytes(StandardCharsets.UTF_8);
+        out.put(type);
+        out.putShort((short) id.length);
+        out.put(id);
+        if (type == UPDATE) {
+            GameCodec.writeUpdate(game, out);
+        } else if (game != null) {
+            GameCodec.write(game, out);
+        }
+        int length = out.position() - start - HEADER;
+
+        CRC32C crc = new CRC32C();
+        crc.update(out.slice(start + HEADER, length));
+        out.putInt(start, length);
+        out.putInt(start + 4, (int) crc.getValue());
+    }
+
+    static Replay read(ByteBuffer in, Handler handler) {
+        int records = 0;
+        CRC32C crc = new CRC32C();
+        while (in.remaining() >= HEADER) {
+            int start = in.position();
+            int length = in.getInt(start);
+            if (length == 0) {
+                return new Replay(records, false);
+            }
+            if (length < 3 || length > in.remaining() - HEADER) {
+                return new Replay(records, true);
+            }
+            ByteBuffer body = in.slice(start + HEADER, length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != in.getInt(start + 4)) {
+                return new Replay(records, true);
+            }
+
+            byte type = body.get();
+            byte[] id = new byte[body.getShort()];
+            body.get(id);
+            String gameId = new String(id, StandardCharsets.UTF_8);
+            if (type == PUT) {
+                handler.put(gameId, GameCodec.read(body));
+            } else if (type == UPDATE) {
+                handler.put(gameId, GameCodec.readUpdate(body, handler.get(gameId)));
+            } else {
+                handler.remove(gameId);
+            }
+            in.position(start + HEADER + length);
+            records++;
+        }
+        return new Replay(records, false);
+    }
+}
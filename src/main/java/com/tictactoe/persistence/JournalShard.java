@@ -0,0 +1,103 @@
+package com.tictactoe.persistence;
+
+import com.tictactoe.model.Game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One append-only log: a chain of memory-mapped, preallocated segment files.
+ * An append is a copy into the mapping and never waits on the disk; pages
+ * reach it when {@link #flush} forces them, so a crash of the process loses
+ * nothing and a crash of the machine loses at most one flush interval. That
+ * includes moving to the next segment: the full one is left for the next
+ * flush to force.
+ */
+final class JournalShard {
+
+    private final Path dir;
+    private final int index;
+    private final int segmentBytes;
+    private final ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+
+    private MappedByteBuffer segment;
+    // Segments appended to since the last flush and replaced since; forced by it.
+    private final List<MappedByteBuffer> retired = new ArrayList<>();
+    private long generation;
+    private int part;
+    private boolean dirty;
+
+    JournalShard(Path dir, int index, int segmentBytes) {
+        this.dir = dir;
+        this.index = index;
+        this.segmentBytes = segmentBytes;
+    }
+
+    static String fileName(int shard, long generation, int part) {
+        return String.format("shard-%02d-%010d-%04d.log", shard, generation, part);
+    }
+
+    synchronized void append(byte type, String gameId, Game game) throws IOException {
+        if (segment == null) return;
+        scratch.clear();
+        JournalRecords.write(scratch, type, gameId, game);
+        scratch.flip();
+        // Keep room for the zero length that ends the segment.
+        if (segment.remaining() < scratch.remaining() + 4) {
+            open(generation, part + 1);
+        }
+        segment.put(scratch);
+        dirty = true;
+    }
+
+    /** Starts a new generation; records from here on belong after the snapshot cut. */
+    synchronized void roll(long newGeneration) throws IOException {
+        open(newGeneration, 0);
+    }
+
+    private void open(long newGeneration, int newPart) throws IOException {
+        Path path = dir.resolve(fileName(index, newGeneration, newPart));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            if (segment != null && dirty) retired.add(segment);
+            segment = next;
+        }
+        generation = newGeneration;
+        part = newPart;
+        dirty = false;
+    }
+
+    /** Group commit: one force covers every append since the last one. */
+    void flush() {
+        List<MappedByteBuffer> toForce;
+        synchronized (this) {
+            if (!dirty && retired.isEmpty()) return;
+            toForce = new ArrayList<>(retired);
+            retired.clear();
+            if (dirty) toForce.add(segment);
+            dirty = false;
+        }
+        // Outside the lock so appends keep going while the disk catches up.
+        for (MappedByteBuffer buffer : toForce) {
+            buffer.force();
+        }
+    }
+
+    synchronized void close() {
+        for (MappedByteBuffer buffer : retired) {
+            buffer.force();
+        }
+        retired.clear();
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.tictactoe.service;
+
+import com.tictactoe.dto.AICacheStats;
+import com.tictactoe.model.AIMode;
+import com.tictactoe.model.AIPlayer;
+import com.tictactoe.model.Board;
+import com.tictactoe.model.GameStatus;
+import com.tictactoe.model.Player;
+import com.tictactoe.model.PositionKey;
+import com.tictactoe.model.TableAIPlayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI replies shared by every game on this instance, keyed by mode and the
+ * symmetry-reduced position from the side to move's point of view, so a
+ * rotated or mirrored position is searched once for all sessions.
+ *
+ * An opening book is seeded at startup for the boards in
+ * {@code game.ai.book.boards}: every position the AI can face on 3x3, and
+ * the first {@code game.ai.book.grid-depth} player moves on larger boards.
+ * Book entries are never evicted; other replies are added as searches
+ * complete and trimmed least recently used beyond
+ * {@code game.ai.cache.max-entries}. Perfect 3x3 play is already a table
+ * lookup and bypasses the cache.
+ */
+@Component
+public class AIMoveCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AIMoveCache.class);
+
+    // Distinguishes player-to-move positions from AI replies while walking the book.
+    private static final int EXPANDED = 1 << 8;
+
+    private static final class Entry {
+        final short cell;   // in the key's canonical frame
+        final boolean book;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Entry(int cell, boolean book) {
+            this.cell = (short) cell;
+            this.book = book;
+        }
+    }
+
+    private final Map<PositionKey, Entry> entries = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxEntries;
+    private final String[] bookBoards;
+    private final int gridBookDepth;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicInteger bookEntries = new AtomicInteger();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public AIMoveCache(@Value("${game.ai.cache.enabled:true}") boolean enabled,
+                       @Value("${game.ai.cache.max-entries:200000}") int maxEntries,
+                       @Value("${game.ai.book.boards:3x3}") String[] bookBoards,
+                       @Value("${game.ai.book.grid-depth:1}") int gridBookDepth) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.bookBoards = bookBoards;
+        this.gridBookDepth = gridBookDepth;
+    }
+
+    /** Key for the AI's reply in this position, or null when the reply is not cached. */
+    public PositionKey keyFor(AIMode mode, Board board, Player side) {
+        if (!enabled || mode.getPlayer(board) instanceof TableAIPlayer) return null;
+        return PositionKey.of(mode.ordinal(), board, side);
+    }
+
+    /** The cached reply mapped onto the key's board, or null on a miss. */
+    public AIPlayer.Move get(PositionKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        entry.lastAccess = System.currentTimeMillis();
+        int cell = key.toBoardCell(entry.cell);
+        return new AIPlayer.Move(cell / key.size(), cell % key.size());
+    }
+
+    public void put(PositionKey key, AIPlayer.Move move) {
+        if (move == null) return;
+        entries.putIfAbsent(key, new Entry(key.toCanonicalCell(move.row * key.size() + move.col), false));
+        if (entries.size() > maxEntries && trimming.compareAndSet(false, true)) {
+            try {
+                trimToCapacity();
+            } finally {
+                trimming.set(false);
+            }
+        }
+    }
+
+    // Evicts the least recently used searched replies, leaving 5% headroom
+    // so the sort is not repeated on every insert.
+    private void trimToCapacity() {
+        List<Map.Entry<PositionKey, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<PositionKey, Entry> e : entries.entrySet()) {
+            if (!e.getValue().book) candidates.add(e);
+        }
+        candidates.sort((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess));
+        int target = Math.min(candidates.size(), entries.size() - maxEntries + maxEntries / 20);
+        for (int i = 0; i < target; i++) {
+            if (entries.remove(candidates.get(i).getKey(), candidates.get(i).getValue())) {
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedBook() {
+        if (!enabled || bookBoards.length == 0) return;
+        Thread.ofVirtual().name("ai-book").start(() -> {
+            long start = System.nanoTime();
+            for (String spec : bookBoards) {
+                String[] parts = spec.trim().toLowerCase().split("x");
+                try {
+                    int size = Integer.parseInt(parts[0]);
+                    int winLength = parts.length > 1 ? Integer.parseInt(parts[1]) : Math.min(size, 5);
+                    seed(size, winLength);
+                } catch (RuntimeException e) {
+                    log.warn("Skipping opening book for board '{}': {}", spec, e.toString());
+                }
+            }
+            log.info("Opening book ready: {} positions in {} ms",
+                    bookEntries.get(), (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    private void seed(int size, int winLength) {
+        Board empty = new Board(size, winLength);
+        int depth = empty.isClassic() ? Integer.MAX_VALUE : gridBookDepth;
+        for (AIMode mode : AIMode.values()) {
+            if (keyFor(mode, empty, Player.O) == null) continue;
+            Set<PositionKey> expanded = new HashSet<>();
+            // Either side may open, since the starting player alternates on rematch.
+            walk(mode, empty, Player.X, depth, expanded);
+            walk(mode, empty, Player.O, depth, expanded);
+        }
+    }
+
+    // The AI plays O. Every player move is tried, up to depth of them; the AI
+    // answers with its engine's choice, which becomes a book entry.
+    private void walk(AIMode mode, Board board, Player toMove, int depth, Set<PositionKey> expanded) {
+        if (board.isFull() || board.evaluate() != GameStatus.IN_PROGRESS) return;
+        int size = board.getSize();
+
+        if (toMove == Player.O) {
+            PositionKey key = PositionKey.of(mode.ordinal(), board, Player.O);
+            Entry entry = entries.get(key);
+            int cell;
+            if (entry != null && entry.book) {
+                cell = key.toBoardCell(entry.cell);
+            } else {
+                AIPlayer.Move move = mode.getPlayer(board).getBestMove(new Board(board), Player.O);
+                if (move == null) return;
+                cell = move.row * size + move.col;
+                entries.put(key, new Entry(key.toCanonicalCell(cell), true));
+                bookEntries.incrementAndGet();
+            }
+            Board next = new Board(board);
+            next.place(cell / size, cell % size, Player.O);
+            walk(mode, next, Player.X, depth, expanded);
+            return;
+        }
+
+        if (depth == 0 || !expanded.add(PositionKey.of(EXPANDED | mode.ordinal(), board, Player.X))) return;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (board.isOccupied(cell)) continue;
+            Board next = new Board(board);
+            next.place(cell / size, cell % size, Player.X);
+            walk(mode, next, Player.O, depth - 1, expanded);
+        }
+    }
+
+    public AICacheStats getStats() {
+        long h = hits.sum(), m = misses.sum();
+        return new AICacheStats(entries.size(), bookEntries.get(), maxEntries, h, m, evicted.get(),
+                h + m == 0 ? 0 : (double) h / (h + m));
+    }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public int size() { return entries.size(); }
+}
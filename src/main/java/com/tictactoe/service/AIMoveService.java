@@ -0,0 +1,133 @@
+package com.tictactoe.service;
+
+import com.tictactoe.dto.AICacheStats;
+import com.tictactoe.metrics.GameMetrics;
+import com.tictactoe.model.AIMode;
+import com.tictactoe.model.AIPlayer;
+import com.tictactoe.model.Board;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GridAIPlayer;
+import com.tictactoe.model.Player;
+import com.tictactoe.model.PositionKey;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Computes AI replies off the request thread. Searches run on virtual
+ * threads, at most {@code game.ai.max-concurrent} at a time; when that many
+ * are already running, or a search misses its deadline, a cheap fallback
+ * move is played instead so a game never stalls waiting for the AI.
+ * Replies found in the shared {@link AIMoveCache} are applied at once.
+ */
+@Service
+public class AIMoveService {
+
+    // Shallow searches that answer in well under a millisecond.
+    private static final AIPlayer CLASSIC_FALLBACK = AIMode.EASY.getPlayer();
+    private static final AIPlayer GRID_FALLBACK = new GridAIPlayer(1, 5);
+
+    private final GameService gameService;
+    private final GameBroadcaster broadcaster;
+    private final GameMetrics metrics;
+    private final AIMoveCache cache;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final long deadlineMillis;
+
+    public AIMoveService(GameService gameService, GameBroadcaster broadcaster, GameMetrics metrics, AIMoveCache cache,
+                         @Value("${game.ai.max-concurrent:64}") int maxConcurrent,
+                         @Value("${game.ai.move-deadline-ms:750}") long deadlineMillis) {
+        this.gameService = gameService;
+        this.broadcaster = broadcaster;
+        this.metrics = metrics;
+        this.cache = cache;
+        this.permits = new Semaphore(maxConcurrent);
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Starts the AI reply if one is owed. Must be called from the game's lane
+     * (see {@link GameService#execute}); the reply is applied on that lane
+     * too. The returned future completes once the move has been applied and
+     * broadcast, or immediately when it is not the AI's turn.
+     */
+    public CompletableFuture<Void> scheduleMove(String gameId, Game game) {
+        if (!game.isAITurn()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        Board snapshot = new Board(game.getBoard());
+        Player side = game.getCurrentPlayer();
+        AIMode mode = game.getAiLevel();
+        AIPlayer engine = mode.getPlayer(snapshot);
+
+        PositionKey key = cache.keyFor(mode, snapshot, side);
+        AIPlayer.Move cached = key == null ? null : cache.get(key);
+        if (cached != null) {
+            metrics.aiMove(mode, snapshot.isClassic(), "cache", System.nanoTime() - start, null);
+            apply(gameId, game, snapshot, cached);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (!permits.tryAcquire()) {
+            AIPlayer.Move move = fallbackMove(snapshot, side);
+            metrics.aiMove(mode, snapshot.isClassic(), "saturated", System.nanoTime() - start, move);
+            apply(gameId, game, snapshot, move);
+            return CompletableFuture.completedFuture(null);
+        }
+        // From here on the reply lands through the lane, not on this thread.
+
+        CompletableFuture<AIPlayer.Move> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(engine.getBestMove(snapshot, side));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                permits.release();
+            }
+        });
+
+        return result
+                .orTimeout(deadlineMillis, TimeUnit.MILLISECONDS)
+                .handleAsync((move, error) -> {
+                    String outcome = error == null ? "search" : error instanceof TimeoutException ? "timeout" : "error";
+                    AIPlayer.Move chosen = error == null ? move : fallbackMove(snapshot, side);
+                    if (error == null && key != null) cache.put(key, move);
+                    metrics.aiMove(mode, snapshot.isClassic(), outcome, System.nanoTime() - start, error == null ? move : null);
+                    return chosen;
+                }, executor)
+                .thenCompose(move -> gameService.execute(gameId, current -> {
+                    if (current != null) apply(gameId, current, snapshot, move);
+                    return null;
+                }));
+    }
+
+    private void apply(String gameId, Game game, Board searchedBoard, AIPlayer.Move move) {
+        if (game.applyAIMove(searchedBoard, move)) {
+            broadcaster.broadcastState(gameId, game);
+        }
+    }
+
+    public AICacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    private static AIPlayer.Move fallbackMove(Board board, Player side) {
+        return (board.isClassic() ? CLASSIC_FALLBACK : GRID_FALLBACK).getBestMove(board, side);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+package com.tictactoe.service;
+
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.metrics.GameMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token bucket per WebSocket session for chat sends: bursts of up to
+ * {@code game.chat.burst} messages, refilled at
+ * {@code game.chat.per-second}. Sits on the client inbound channel ahead of
+ * shard forwarding, so the node holding the session does the limiting;
+ * messages over the limit are dropped.
+ */
+@Component
+public class ChatRateLimiter implements ChannelInterceptor {
+
+    private static final String CHAT_PREFIX = "/app/chat/";
+
+    private final GameMetrics metrics;
+    private final double burst;
+    private final double perNano;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt = System.nanoTime();
+
+        Bucket(double tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    public ChatRateLimiter(GameMetrics metrics,
+                           @Value("${game.chat.burst:5}") double burst,
+                           @Value("${game.chat.per-second:1}") double perSecond) {
+        this.metrics = metrics;
+        this.burst = burst;
+        this.perNano = perSecond / 1e9;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (headers == null
+                || headers.getMessageType() != SimpMessageType.MESSAGE
+                || headers.getHeader(ClusterClient.FORWARDED_HEADER) != null
+                || headers.getSessionId() == null
+                || headers.getDestination() == null
+                || !headers.getDestination().startsWith(CHAT_PREFIX)) {
+            return message;
+        }
+        if (tryAcquire(headers.getSessionId())) {
+            return message;
+        }
+        metrics.chatDropped("rate");
+        return null;
+    }
+
+    private boolean tryAcquire(String sessionId) {
+        Bucket bucket = buckets.computeIfAbsent(sessionId, id -> new Bucket(burst));
+        synchronized (bucket) {
+            long now = System.nanoTime();
+            bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * perNano);
+            bucket.refilledAt = now;
+            if (bucket.tokens < 1) return false;
+            bucket.tokens--;
+            return true;
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        buckets.remove(event.getSessionId());
+    }
+}
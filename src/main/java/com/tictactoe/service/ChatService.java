@@ -0,0 +1,169 @@
+package com.tictactoe.service;
+
+import com.tictactoe.cluster.BroadcastRelay;
+import com.tictactoe.dto.ChatMessage;
+import com.tictactoe.metrics.GameMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat for the games owned here. Each game keeps its last
+ * {@code game.chat.history} messages in a ring for late joiners. Every
+ * message goes to {@code /topic/game/{id}/chat} on its own, as it always
+ * has; messages posted within {@code game.chat.batch-ms} of each other also
+ * go to {@code /topic/game/{id}/chat/batch} as one frame, a JSON array,
+ * oldest first. Messages carry a per-game sequence number so clients can
+ * merge the history with the live topic. All state of a game is touched
+ * only on its lane.
+ */
+@Service
+public class ChatService {
+
+    private final GameService gameService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TopicSubscriptions subscriptions;
+    private final GameMetrics metrics;
+    private final BroadcastRelay relay;
+    private final int historySize;
+    private final int maxLength;
+    private final int maxNameLength;
+    private final long batchMillis;
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chat-batcher").daemon().factory());
+
+    /** History ring and unsent batch of one game; guarded by the game's lane. */
+    private static final class Room {
+        final ChatMessage[] ring;
+        int next;
+        int count;
+        long seq;
+        List<ChatMessage> batch = new ArrayList<>();
+
+        Room(int size) {
+            ring = new ChatMessage[size];
+        }
+
+        void add(ChatMessage message) {
+            if (ring.length == 0) return;
+            ring[next] = message;
+            next = (next + 1) % ring.length;
+            count = Math.min(count + 1, ring.length);
+        }
+
+        List<ChatMessage> history() {
+            List<ChatMessage> messages = new ArrayList<>(count);
+            for (int i = count; i > 0; i--) {
+                messages.add(ring[(next - i + ring.length) % ring.length]);
+            }
+            return messages;
+        }
+    }
+
+    public ChatService(GameService gameService, SimpMessagingTemplate messagingTemplate,
+                       TopicSubscriptions subscriptions, GameMetrics metrics, ObjectProvider<BroadcastRelay> relay,
+                       @Value("${game.chat.history:50}") int historySize,
+                       @Value("${game.chat.max-length:500}") int maxLength,
+                       @Value("${game.chat.max-name-length:32}") int maxNameLength,
+                       @Value("${game.chat.batch-ms:100}") long batchMillis) {
+        this.gameService = gameService;
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptions = subscriptions;
+        this.metrics = metrics;
+        this.relay = relay.getIfAvailable();
+        this.historySize = Math.max(0, historySize);
+        this.maxLength = maxLength;
+        this.maxNameLength = maxNameLength;
+        this.batchMillis = batchMillis;
+    }
+
+    /** Posts a message to a game's chat; unknown games and empty or oversized messages are dropped. */
+    public void post(String gameId, ChatMessage message) {
+        gameService.submit(gameId, game -> {
+            String text = message.getMessage();
+            if (text == null || text.isBlank()) return;
+            if (text.length() > maxLength) {
+                metrics.chatDropped("length");
+                return;
+            }
+            String player = message.getPlayer();
+            if (player != null && player.length() > maxNameLength) {
+                message.setPlayer(player.substring(0, maxNameLength));
+            }
+
+            Room room = rooms.computeIfAbsent(gameId, id -> new Room(historySize));
+            message.setSeq(++room.seq);
+            message.setTimestamp(System.currentTimeMillis());
+            room.add(message);
+            metrics.chatMessage();
+            String topic = "/topic/game/" + gameId + "/chat";
+            if (hasSubscribers(topic)) {
+                messagingTemplate.convertAndSend(topic, message);
+            }
+
+            boolean first = room.batch.isEmpty();
+            room.batch.add(message);
+            if (batchMillis <= 0) {
+                flush(gameId, room);
+            } else if (first) {
+                timer.schedule(() -> gameService.submit(gameId, current -> flush(gameId, rooms.get(gameId))),
+                        batchMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /** The game's recent messages, oldest first, or null for an unknown game. */
+    public CompletableFuture<List<ChatMessage>> history(String gameId) {
+        return gameService.query(gameId, game -> {
+            if (game == null) return null;
+            Room room = rooms.get(gameId);
+            return room == null ? List.of() : room.history();
+        });
+    }
+
+    private void flush(String gameId, Room room) {
+        if (room == null || room.batch.isEmpty()) return;
+        List<ChatMessage> batch = room.batch;
+        room.batch = new ArrayList<>();
+        String topic = "/topic/game/" + gameId + "/chat/batch";
+        if (hasSubscribers(topic)) {
+            messagingTemplate.convertAndSend(topic, batch);
+        }
+    }
+
+    // Subscribers on other nodes count through the relay.
+    private boolean hasSubscribers(String topic) {
+        return subscriptions.hasSubscribers(topic) || (relay != null && relay.hasSubscribers(topic));
+    }
+
+    @EventListener
+    public void onGameEvicted(GameService.GameEvictedEvent event) {
+        rooms.remove(event.gameId());
+    }
+
+    // Games handed to another node or dropped by recovery go without an event.
+    @Scheduled(fixedDelayString = "${game.store.sweep-interval-ms:30000}")
+    public void prune() {
+        rooms.keySet().removeIf(gameId -> !gameService.contains(gameId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,182 @@
+package com.tictactoe.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.cluster.BroadcastRelay;
+import com.tictactoe.dto.GameDelta;
+import com.tictactoe.dto.GameEvent;
+import com.tictactoe.dto.GameResponse;
+import com.tictactoe.metrics.GameMetrics;
+import com.tictactoe.model.Game;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes game state to subscribers. State changes reported within
+ * {@code game.broadcast.coalesce-ms} of each other go out as one version;
+ * while the AI owes a reply the window stretches up to
+ * {@code game.broadcast.ai-hold-ms}, so a move and its answer usually
+ * travel together. Each version is serialized exactly
+ * once and the resulting payload is shared by every subscriber of the
+ * topic; SharedFrameStompEncoder then builds the frame around it once too.
+ * REST long-polls parked on the game are released with the same version.
+ */
+@Service
+public class GameBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TopicSubscriptions subscriptions;
+    private final GameService gameService;
+    private final GameMetrics metrics;
+    private final StatePolls polls;
+    private final ObjectMapper objectMapper;
+    private final BroadcastRelay relay;
+    private final boolean notifyEvicted;
+    private final long coalesceMillis;
+    private final long aiHoldMillis;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("broadcast-coalescer").daemon().factory());
+
+    /** Moves reported since the last published version; guarded by the game's lane. */
+    private static final class Pending {
+        final long since = System.currentTimeMillis();
+        boolean reset;
+        int[] cells = new int[2];
+        StringBuilder marks = new StringBuilder(2);
+
+        void add(int cell, char mark) {
+            if (marks.length() == cells.length) {
+                cells = Arrays.copyOf(cells, cells.length * 2);
+            }
+            cells[marks.length()] = cell;
+            marks.append(mark);
+        }
+    }
+
+    public GameBroadcaster(SimpMessagingTemplate messagingTemplate, TopicSubscriptions subscriptions,
+                           GameService gameService, GameMetrics metrics, StatePolls polls, ObjectMapper objectMapper,
+                           ObjectProvider<BroadcastRelay> relay,
+                           @Value("${game.store.notify-evicted:true}") boolean notifyEvicted,
+                           @Value("${game.broadcast.coalesce-ms:15}") long coalesceMillis,
+                           @Value("${game.broadcast.ai-hold-ms:150}") long aiHoldMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptions = subscriptions;
+        this.gameService = gameService;
+        this.metrics = metrics;
+        this.polls = polls;
+        this.objectMapper = objectMapper;
+        this.relay = relay.getIfAvailable();
+        this.notifyEvicted = notifyEvicted;
+        this.coalesceMillis = coalesceMillis;
+        this.aiHoldMillis = aiHoldMillis;
+    }
+
+    /**
+     * Reports a state change. Must run on the game's lane; the change is
+     * published from the lane too, after the coalescing window.
+     */
+    public void broadcastState(String gameId, Game game) {
+        long start = System.nanoTime();
+        boolean first = !pending.containsKey(gameId);
+        Pending changes = pending.computeIfAbsent(gameId, id -> new Pending());
+        int cell = game.takeLastMove();
+        if (cell == Game.BOARD_RESET) {
+            // Rematch: moves before the reset no longer matter.
+            changes.reset = true;
+            changes.marks.setLength(0);
+        } else if (cell >= 0) {
+            int size = game.getBoard().getSize();
+            changes.add(cell, game.getBoard().get(cell / size, cell % size).toString().charAt(0));
+        }
+
+        if (coalesceMillis <= 0) {
+            publish(gameId, game);
+        } else if (first) {
+            schedulePublish(gameId);
+        }
+        metrics.broadcastState().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void schedulePublish(String gameId) {
+        timer.schedule(() -> gameService.execute(gameId, current -> {
+            Pending changes = pending.get(gameId);
+            if (current == null) {
+                pending.remove(gameId);
+            } else if (changes != null && current.isAITurn()
+                    && System.currentTimeMillis() - changes.since < aiHoldMillis) {
+                schedulePublish(gameId);
+            } else {
+                publish(gameId, current);
+            }
+            return null;
+        }), coalesceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void publish(String gameId, Game game) {
+        Pending changes = pending.remove(gameId);
+        if (changes == null) return;
+        long start = System.nanoTime();
+
+        long seq = game.advanceVersion();
+        String topic = "/topic/game/" + gameId;
+        GameDelta delta = GameDelta.of(seq, changes.reset,
+                Arrays.copyOf(changes.cells, changes.marks.length()), changes.marks.toString(), game);
+        send(topic + "/delta", delta);
+        if (hasSubscribers(topic)) {
+            send(topic, GameResponse.from(gameId, game, null));
+        }
+        polls.published(gameId, game);
+        metrics.broadcastPublish().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Here or, through the relay, on another node.
+    private boolean hasSubscribers(String destination) {
+        return subscriptions.hasSubscribers(destination) || (relay != null && relay.hasSubscribers(destination));
+    }
+
+    // The broker hands this one payload array to every subscriber session.
+    private void send(String destination, Object payload) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(body, headers.getMessageHeaders()));
+    }
+
+    @EventListener
+    public void onGameEvicted(GameService.GameEvictedEvent event) {
+        pending.remove(event.gameId());
+        if (notifyEvicted) {
+            messagingTemplate.convertAndSend("/topic/game/" + event.gameId() + "/events",
+                    new GameEvent("EVICTED", event.reason().name()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
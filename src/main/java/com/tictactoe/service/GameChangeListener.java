@@ -0,0 +1,21 @@
+package com.tictactoe.service;
+
+import com.tictactoe.model.Game;
+
+/**
+ * Notified by {@link GameService} after a game is stored, mutated or
+ * removed. Called on the thread that made the change (the game's lane for
+ * mutations), so implementations must not block.
+ */
+public interface GameChangeListener {
+
+    /** The game was stored, replacing whatever was there. */
+    void gameSaved(String gameId, Game game);
+
+    /** The stored game was changed in place by a lane action. */
+    default void gameMutated(String gameId, Game game) {
+        gameSaved(gameId, game);
+    }
+
+    void gameRemoved(String gameId);
+}
@@ -1,25 +1,291 @@
 package com.tictactoe.service;
 
+import com.tictactoe.dto.GameStoreStats;
 import com.tictactoe.model.Game;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class GameService {
 
+    private static final Logger log = LoggerFactory.getLogger(GameService.class);
+
+    public enum EvictionReason { FINISHED, IDLE, CAPACITY, ABANDONED }
+
+    public record GameEvictedEvent(String gameId, EvictionReason reason) {}
+
     // This is the "Single Source of Truth
-    private final Map<String, Game> games = new ConcurrentHashMap<>();
+    private final GameStore store;
+
+    // Single-writer lanes: every mutation of a game runs on the lane its id
+    // hashes to, so updates to one game are serialized without a global lock
+    // while different games proceed in parallel.
+    private final ExecutorService[] stripes;
+    // Runs capacity trims, so the insert that crosses the limit does not
+    // pay for the sort.
+    private final ExecutorService trimmer =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("game-trim").factory());
+
+    private final ApplicationEventPublisher events;
+    private final int maxGames;
+    private final long finishedTtlMillis;
+    private final long idleTtlMillis;
+
+    private final AtomicLong[] evictions = new AtomicLong[EvictionReason.values().length];
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private volatile long approxBytesPerGame;
+
+    private static final GameChangeListener NO_LISTENER = new GameChangeListener() {
+        @Override public void gameSaved(String gameId, Game game) {}
+        @Override public void gameRemoved(String gameId) {}
+    };
+    private volatile GameChangeListener changeListener = NO_LISTENER;
+
+    public GameService(ApplicationEventPublisher events,
+                       @Value("${game.store.mode:object}") String storeMode,
+                       @Value("${game.executor.stripes:0}") int stripeCount,
+                       @Value("${game.store.max-games:100000}") int maxGames,
+                       @Value("${game.store.finished-ttl-ms:600000}") long finishedTtlMillis,
+                       @Value("${game.store.idle-ttl-ms:7200000}") long idleTtlMillis) {
+        this.store = "packed".equalsIgnoreCase(storeMode) ? new PackedGameStore() : new ObjectGameStore();
+        this.events = events;
+        this.maxGames = maxGames;
+        this.finishedTtlMillis = finishedTtlMillis;
+        this.idleTtlMillis = idleTtlMillis;
+        for (int i = 0; i < evictions.length; i++) {
+            evictions[i] = new AtomicLong();
+        }
+
+        int count = stripeCount > 0 ? stripeCount : Runtime.getRuntime().availableProcessors() * 2;
+        this.stripes = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("game-stripe-" + i).factory());
+        }
+    }
+
+    public String newGameId(int shard) {
+        return store.newGameId(shard);
+    }
+
+    /** Shard of the id; ids without one are hashed onto a shard. */
+    public int shardOf(String gameId) {
+        int shard = store.shardOf(gameId);
+        return shard >= 0 ? shard : Math.floorMod(gameId.hashCode(), GameStore.SHARDS);
+    }
+
+    public void setChangeListener(GameChangeListener listener) {
+        this.changeListener = listener == null ? NO_LISTENER : listener;
+    }
 
     public void saveGame(String gameId, Game game) {
-        games.put(gameId, game);
+        store.put(gameId, game);
+        changeListener.gameSaved(gameId, game);
+        if (store.size() > maxGames && trimming.compareAndSet(false, true)) {
+            trimmer.execute(this::trimOnce);
+        }
     }
 
+    /**
+     * Unsynchronized read; use {@link #execute} for anything that mutates the
+     * game. With the packed store this is a detached copy.
+     */
     public Game getGame(String gameId) {
-        return games.get(gameId);
+        return store.get(gameId);
+    }
+
+    /** Whether the game is held here; does not count as an access. */
+    public boolean contains(String gameId) {
+        return store.peek(gameId) != null;
     }
 
     public void deleteGame(String gameId) {
-        games.remove(gameId);
+        if (store.remove(gameId)) {
+            changeListener.gameRemoved(gameId);
+        }
+    }
+
+    /** Puts a recovered game back without notifying the change listener. */
+    public void restoreGame(String gameId, Game game) {
+        store.put(gameId, game);
+    }
+
+    /**
+     * Visits every stored game without touching its last access. Games are
+     * read outside their lanes, so one being mutated may be seen mid-move.
+     */
+    public void forEachGame(BiConsumer<String, Game> visitor) {
+        store.forEach((gameId, lastAccess, finished, approxBytes) -> {
+            Game game = store.peek(gameId);
+            if (game != null) visitor.accept(gameId, game);
+        });
+    }
+
+    /**
+     * Runs {@code action} on the game's lane. The action receives null if
+     * the game does not exist.
+     */
+    public <T> CompletableFuture<T> execute(String gameId, Function<Game, T> action) {
+        return CompletableFuture.supplyAsync(() -> {
+            Game game = store.get(gameId);
+            try {
+                return action.apply(game);
+            } finally {
+                if (game != null) writeBack(gameId, game);
+            }
+        }, stripeFor(gameId));
+    }
+
+    /** Read-only variant of {@link #execute}: nothing is written back. */
+    public <T> CompletableFuture<T> query(String gameId, Function<Game, T> action) {
+        return CompletableFuture.supplyAsync(() -> action.apply(store.get(gameId)), stripeFor(gameId));
+    }
+
+    /**
+     * {@link #query} for background readers such as snapshots: the game is
+     * read on its lane but the read does not count as an access, so it does
+     * not hold off idle eviction.
+     */
+    public <T> CompletableFuture<T> inspect(String gameId, Function<Game, T> action) {
+        return CompletableFuture.supplyAsync(() -> action.apply(store.peek(gameId)), stripeFor(gameId));
+    }
+
+    /** Ids of the stored games at the time of the call. */
+    public List<String> gameIds() {
+        List<String> ids = new ArrayList<>(store.size());
+        store.forEach((gameId, lastAccess, finished, approxBytes) -> ids.add(gameId));
+        return ids;
+    }
+
+    /** Fire-and-forget variant of {@link #execute}; unknown games are ignored. */
+    public void submit(String gameId, Consumer<Game> action) {
+        stripeFor(gameId).execute(() -> {
+            Game game = store.get(gameId);
+            if (game == null) return;
+            try {
+                action.accept(game);
+            } catch (RuntimeException e) {
+                log.warn("Action on game {} failed", gameId, e);
+            } finally {
+                writeBack(gameId, game);
+            }
+        });
+    }
+
+    private void writeBack(String gameId, Game game) {
+        if (store.writeBack(gameId, game)) {
+            changeListener.gameMutated(gameId, game);
+        }
+    }
+
+    private ExecutorService stripeFor(String gameId) {
+        return stripes[Math.floorMod(gameId.hashCode(), stripes.length)];
+    }
+
+    /** Drops finished and idle games, then trims to capacity. */
+    @Scheduled(fixedDelayString = "${game.store.sweep-interval-ms:30000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long[] totals = new long[2];
+        store.forEach((gameId, lastAccess, finished, approxBytes) -> {
+            long idle = now - lastAccess;
+            if (idle > idleTtlMillis) {
+                evict(gameId, EvictionReason.IDLE);
+            } else if (idle > finishedTtlMillis && finished) {
+                evict(gameId, EvictionReason.FINISHED);
+            } else {
+                totals[0] += approxBytes;
+                totals[1]++;
+            }
+        });
+        approxBytesPerGame = totals[1] == 0 ? 0 : totals[0] / totals[1];
+        if (trimming.compareAndSet(false, true)) {
+            trimOnce();
+        }
+    }
+
+    // Called by whoever set the trimming flag; at most one trim runs at a time.
+    private void trimOnce() {
+        try {
+            trimToCapacity();
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    // Evicts the least recently used games, leaving 5% headroom so the sort
+    // is not repeated on every insert. The store may briefly hold more than
+    // maxGames while a trim is queued.
+    private void trimToCapacity() {
+        int excess = store.size() - maxGames;
+        if (excess <= 0) return;
+
+        List<String> ids = new ArrayList<>();
+        List<Long> accessTimes = new ArrayList<>();
+        store.forEach((gameId, lastAccess, finished, approxBytes) -> {
+            ids.add(gameId);
+            accessTimes.add(lastAccess);
+        });
+        Integer[] order = new Integer[ids.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(accessTimes::get));
+
+        int target = Math.min(order.length, excess + maxGames / 20);
+        for (int i = 0; i < target; i++) {
+            evict(ids.get(order[i]), EvictionReason.CAPACITY);
+        }
+    }
+
+    /** Drops a game its players have left; called on the game's lane. */
+    public void evictAbandoned(String gameId) {
+        evict(gameId, EvictionReason.ABANDONED);
+    }
+
+    private void evict(String gameId, EvictionReason reason) {
+        if (store.remove(gameId)) {
+            changeListener.gameRemoved(gameId);
+            evictions[reason.ordinal()].incrementAndGet();
+            events.publishEvent(new GameEvictedEvent(gameId, reason));
+        }
+    }
+
+    public int gameCount() {
+        return store.size();
+    }
+
+    public GameStoreStats getStats() {
+        return new GameStoreStats(
+                store.size(),
+                maxGames,
+                evictions[EvictionReason.FINISHED.ordinal()].get(),
+                evictions[EvictionReason.IDLE.ordinal()].get(),
+                evictions[EvictionReason.CAPACITY.ordinal()].get(),
+                evictions[EvictionReason.ABANDONED.ordinal()].get(),
+                approxBytesPerGame
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        trimmer.shutdownNow();
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.tictactoe.service;
+
+import com.tictactoe.model.Game;
+
+/**
+ * Storage behind {@link GameService}. Implementations track last access so
+ * the service can evict idle games. Callers must hand every mutated game
+ * back through {@link #writeBack}; stores that return views rather than the
+ * stored instance rely on it.
+ */
+public interface GameStore {
+
+    interface Visitor {
+        void visit(String gameId, long lastAccess, boolean finished, long approxBytes);
+    }
+
+    /** Number of shards game ids are spread over; see ClusterMembership. */
+    int SHARDS = 1024;
+
+    /** Mints an unused id that encodes {@code shard}. */
+    String newGameId(int shard);
+
+    /** Shard encoded in an id minted here, or -1 for ids of another format. */
+    int shardOf(String gameId);
+
+    /** Returns the game and marks it as accessed, or null if unknown. */
+    Game get(String gameId);
+
+    /** Returns the game without marking it accessed, or null if unknown. */
+    Game peek(String gameId);
+
+    void put(String gameId, Game game);
+
+    /** Returns false if the game was removed while the caller held it. */
+    boolean writeBack(String gameId, Game game);
+
+    boolean remove(String gameId);
+
+    int size();
+
+    void forEach(Visitor visitor);
+}
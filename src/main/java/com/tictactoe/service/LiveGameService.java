@@ -0,0 +1,195 @@
+package com.tictactoe.service;
+
+import com.tictactoe.dto.JoinRequest;
+import com.tictactoe.dto.MoveRequest;
+import com.tictactoe.metrics.GameMetrics;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.Player;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commands of connected clients, whatever socket they arrive on: each runs
+ * on the game's lane, broadcasts the change and schedules the AI reply.
+ * Unknown games are ignored.
+ *
+ * A player who leaves, or whose connection drops, is marked away at once
+ * and keeps the seat for {@code game.presence.grace-ms}; rejoining in that
+ * time takes it back. After that the seat is freed, and a game with no
+ * seated player and no spectator left is evicted. A seat belongs to the
+ * connection that last joined it, so the late drop of a connection its
+ * player has already replaced changes nothing, and each absence gets a
+ * full grace period of its own.
+ */
+@Service
+public class LiveGameService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveGameService.class);
+
+    private final GameService gameService;
+    private final GameBroadcaster broadcaster;
+    private final AIMoveService aiMoveService;
+    private final GameMetrics metrics;
+    private final long graceMillis;
+
+    // Spectators per game, and games whose players are gone but which are
+    // still watched; both changed only on the game's lane.
+    private final Map<String, Integer> spectators = new ConcurrentHashMap<>();
+    private final Set<String> deserted = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("presence-grace").daemon().factory());
+
+    public LiveGameService(GameService gameService, GameBroadcaster broadcaster, AIMoveService aiMoveService,
+                           GameMetrics metrics, @Value("${game.presence.grace-ms:15000}") long graceMillis) {
+        this.gameService = gameService;
+        this.broadcaster = broadcaster;
+        this.aiMoveService = aiMoveService;
+        this.metrics = metrics;
+        this.graceMillis = graceMillis;
+    }
+
+    public void join(String gameId, JoinRequest request) {
+        gameService.submit(gameId, game -> {
+            String sessionId = request.getSessionId();
+            // Anything but X or O (the clients send "Spectator") only watches.
+            Player requestedPlayer = "X".equals(request.getPlayer()) ? Player.X
+                    : "O".equals(request.getPlayer()) ? Player.O : null;
+
+            boolean wasSpectator = requestedPlayer == null || !game.canJoinAsPlayer(sessionId, requestedPlayer);
+            metrics.joined(!wasSpectator);
+
+            if (!wasSpectator) {
+                game.assignPlayer(sessionId, requestedPlayer);
+                game.occupy(requestedPlayer, request.getConnectionId());
+                deserted.remove(gameId);
+
+                log.debug("Player {} (session {}) joined game {}", request.getPlayer(), sessionId, gameId);
+            } else {
+                spectators.merge(gameId, 1, Integer::sum);
+                metrics.spectatorsChanged(1);
+                log.debug("Session {} joined game {} as spectator", sessionId, gameId);
+            }
+
+            broadcaster.broadcastState(gameId, game);
+        });
+    }
+
+    public void move(String gameId, MoveRequest move) {
+        gameService.submit(gameId, game -> {
+            String sessionId = move.getSessionId();
+
+
+            if (!game.isSpectator(sessionId)) {
+                boolean success = metrics.timeMove(() -> game.makeMove(move.getRow(), move.getColumn(), move.getPlayer()));
+                if (success) {
+                    broadcaster.broadcastState(gameId, game);
+                    aiMoveService.scheduleMove(gameId, game);
+                }
+            } else {
+                metrics.spectatorMoveBlocked();
+                log.debug("Spectator {} tried to make a move in game {}", sessionId, gameId);
+            }
+        });
+    }
+
+    public void rematch(String gameId, JoinRequest request) {
+        metrics.rematchRequested();
+        gameService.submit(gameId, game -> {
+            if ("X".equals(request.getPlayer())) game.setPlayerXReady(true);
+            if ("O".equals(request.getPlayer())) game.setPlayerOReady(true);
+
+            if (game.isPlayerXReady() && game.isPlayerOReady()) {
+                game.resetBoard();
+            }
+            broadcaster.broadcastState(gameId, game);
+            aiMoveService.scheduleMove(gameId, game);
+        });
+    }
+
+    /** The session is gone from the game: its connection closed, or it said so. */
+    public void leave(String gameId, JoinRequest request) {
+        String sessionId = request.getSessionId();
+        gameService.submit(gameId, game -> {
+            Player seat = game.seatOf(sessionId);
+            if (seat == null) {
+                Integer watching = spectators.get(gameId);
+                if (watching == null) return;
+                if (watching > 1) {
+                    spectators.put(gameId, watching - 1);
+                } else {
+                    spectators.remove(gameId);
+                    if (deserted.remove(gameId)) gameService.evictAbandoned(gameId);
+                }
+                metrics.spectatorsChanged(-1);
+                return;
+            }
+            if (!game.isPresent(seat)) return;
+            if (!game.isHeldBy(seat, request.getConnectionId())) {
+                log.debug("Ignored leave of {} in game {} from replaced connection {}",
+                        seat, gameId, request.getConnectionId());
+                return;
+            }
+
+            int absence = game.markAway(seat);
+            log.debug("Player {} (session {}) left game {}", seat, sessionId, gameId);
+            broadcaster.broadcastState(gameId, game);
+            timer.schedule(() -> gameService.submit(gameId, current -> release(gameId, current, sessionId, absence)),
+                    graceMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void release(String gameId, Game game, String sessionId, int absence) {
+        Player seat = game.seatOf(sessionId);
+        // Back within the grace period, possibly gone again since.
+        if (seat == null || !game.isAwaySince(seat, absence)) return;
+
+        game.releaseSeat(seat);
+        metrics.seatReleased();
+        log.debug("Released seat {} of game {}", seat, gameId);
+        if (!game.isAbandoned()) {
+            broadcaster.broadcastState(gameId, game);
+        } else if (spectators.containsKey(gameId)) {
+            // Evicted when the last spectator leaves, unless a player joins first.
+            deserted.add(gameId);
+            broadcaster.broadcastState(gameId, game);
+        } else {
+            gameService.evictAbandoned(gameId);
+        }
+    }
+
+    @EventListener
+    public void onGameEvicted(GameService.GameEvictedEvent event) {
+        deserted.remove(event.gameId());
+        Integer watching = spectators.remove(event.gameId());
+        if (watching != null) metrics.spectatorsChanged(-watching);
+    }
+
+    // Games handed to another node or dropped by recovery go without an event.
+    @Scheduled(fixedDelayString = "${game.store.sweep-interval-ms:30000}")
+    public void prune() {
+        deserted.removeIf(gameId -> !gameService.contains(gameId));
+        spectators.keySet().removeIf(gameId -> {
+            if (gameService.contains(gameId)) return false;
+            Integer watching = spectators.get(gameId);
+            if (watching != null) metrics.spectatorsChanged(-watching);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,199 @@
+package com.tictactoe.service;
+
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.dto.JoinRequest;
+import com.tictactoe.dto.MatchRequest;
+import com.tictactoe.dto.MatchResponse;
+import com.tictactoe.metrics.GameMetrics;
+import com.tictactoe.model.Board;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pairs strangers into games. Players are matched first come, first served
+ * within a board variant (size and win length), so at most one player per
+ * variant is ever waiting: each variant has a single slot, and a request
+ * either takes the waiting ticket out of it with a CAS and pairs, or parks
+ * its own ticket there. Requests never block one another, and every
+ * request does its own pairing on the thread it arrived on.
+ *
+ * A pair gets a fresh game in a shard owned here, with both seats already
+ * assigned, and each player is told its game and mark on
+ * {@code /user/queue/match}. A ticket waiting longer than
+ * {@code game.match.max-wait-ms} is answered TIMEOUT. Each node pairs the
+ * sessions connected to it.
+ */
+@Service
+public class MatchmakingService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchmakingService.class);
+
+    public static final String QUEUE = "/queue/match";
+
+    private final GameService gameService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterMembership membership;
+    private final PresenceTracker presence;
+    private final GameMetrics metrics;
+    private final long maxWaitNanos;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // connection id -> its waiting ticket, for cancelling and timeouts
+    private final Map<String, Ticket> waiting = new ConcurrentHashMap<>();
+
+    private static final class Ticket {
+        final String connectionId;
+        final String sessionId;
+        final long enqueuedNanos = System.nanoTime();
+        volatile boolean cancelled;
+
+        Ticket(String connectionId, String sessionId) {
+            this.connectionId = connectionId;
+            this.sessionId = sessionId;
+        }
+    }
+
+    /** The waiting ticket of one board variant, if any. */
+    private static final class Bucket {
+        final int size;
+        final int winLength;
+        final AtomicReference<Ticket> slot = new AtomicReference<>();
+
+        Bucket(int size, int winLength) {
+            this.size = size;
+            this.winLength = winLength;
+        }
+    }
+
+    public MatchmakingService(GameService gameService, SimpMessagingTemplate messagingTemplate,
+                              ClusterMembership membership, PresenceTracker presence, GameMetrics metrics,
+                              @Value("${game.match.max-wait-ms:60000}") long maxWaitMillis) {
+        this.gameService = gameService;
+        this.messagingTemplate = messagingTemplate;
+        this.membership = membership;
+        this.presence = presence;
+        this.metrics = metrics;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /** Queues the connection for a game; a ticket it already holds is replaced. */
+    public void enqueue(String connectionId, MatchRequest request) {
+        int size = request.getSize();
+        int winLength = request.getWinLength() != null ? request.getWinLength() : Math.min(size, 5);
+        if (request.getSessionId() == null
+                || size < Board.MIN_SIZE || size > Board.MAX_SIZE
+                || winLength < 3 || winLength > size) {
+            notify(connectionId, new MatchResponse("INVALID", null, null, 0));
+            return;
+        }
+
+        Ticket ticket = new Ticket(connectionId, request.getSessionId());
+        Ticket previous = waiting.put(connectionId, ticket);
+        if (previous != null) {
+            previous.cancelled = true;
+        } else {
+            metrics.matchQueued(1);
+        }
+        Bucket bucket = buckets.computeIfAbsent(size + "x" + winLength, key -> new Bucket(size, winLength));
+        for (;;) {
+            Ticket other = bucket.slot.get();
+            if (other == null) {
+                if (bucket.slot.compareAndSet(null, ticket)) return;
+            } else if (other.cancelled) {
+                bucket.slot.compareAndSet(other, null);
+            } else if (bucket.slot.compareAndSet(other, null)) {
+                pair(bucket, other, ticket);
+                return;
+            }
+        }
+    }
+
+    /** Withdraws the connection's ticket, if it is still waiting. */
+    public void cancel(String connectionId) {
+        Ticket ticket = waiting.remove(connectionId);
+        if (ticket == null) return;
+        ticket.cancelled = true;
+        metrics.matchQueued(-1);
+        metrics.matchWait("cancelled", System.nanoTime() - ticket.enqueuedNanos);
+    }
+
+    private void pair(Bucket bucket, Ticket x, Ticket o) {
+        long now = System.nanoTime();
+        // A ticket cancelled since it was taken is paired anyway; see seat().
+        if (waiting.remove(x.connectionId, x)) metrics.matchQueued(-1);
+        if (waiting.remove(o.connectionId, o)) metrics.matchQueued(-1);
+
+        Game game = new Game(null, bucket.size, bucket.winLength);
+        game.assignPlayer(x.sessionId, Player.X);
+        game.assignPlayer(o.sessionId, Player.O);
+        game.occupy(Player.X, x.connectionId);
+        game.occupy(Player.O, o.connectionId);
+        String gameId = gameService.newGameId(membership.localShard());
+        gameService.saveGame(gameId, game);
+
+        metrics.matchMade();
+        for (Ticket ticket : new Ticket[] {x, o}) {
+            String mark = ticket == x ? "X" : "O";
+            long waited = now - ticket.enqueuedNanos;
+            metrics.matchWait("matched", waited);
+            metrics.joined(true);
+            seat(ticket, gameId, mark);
+            notify(ticket.connectionId,
+                    new MatchResponse("MATCHED", gameId, mark, TimeUnit.NANOSECONDS.toMillis(waited)));
+        }
+        log.debug("Matched {} and {} into game {}", x.sessionId, o.sessionId, gameId);
+    }
+
+    // Seats follow the connection from here on, so a drop frees them.
+    private void seat(Ticket ticket, String gameId, String mark) {
+        JoinRequest request = new JoinRequest();
+        request.setPlayer(mark);
+        request.setSessionId(ticket.sessionId);
+        request.setConnectionId(ticket.connectionId);
+        presence.joined(ticket.connectionId, gameId, request);
+        // Gone while being paired: its disconnect may have been handled before the seat was recorded.
+        if (ticket.cancelled) presence.leave(ticket.connectionId, gameId);
+    }
+
+    private void notify(String connectionId, MatchResponse response) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(connectionId);
+        headers.setLeaveMutable(true);
+        // With no user principal, a user name equal to the session id targets that session.
+        messagingTemplate.convertAndSendToUser(connectionId, QUEUE, response, headers.getMessageHeaders());
+    }
+
+    @Scheduled(fixedDelayString = "${game.match.sweep-interval-ms:1000}")
+    public void expire() {
+        long now = System.nanoTime();
+        waiting.values().removeIf(ticket -> {
+            long waited = now - ticket.enqueuedNanos;
+            if (waited < maxWaitNanos) return false;
+            ticket.cancelled = true;
+            metrics.matchQueued(-1);
+            metrics.matchWait("timeout", waited);
+            notify(ticket.connectionId, new MatchResponse("TIMEOUT", null, null, TimeUnit.NANOSECONDS.toMillis(waited)));
+            return true;
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cancel(event.getSessionId());
+    }
+}
@@ -0,0 +1,72 @@
+package com.tictactoe.service;
+
+import com.tictactoe.dto.GameResponse;
+import com.tictactoe.dto.MoveRequest;
+import com.tictactoe.metrics.GameMetrics;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A player's move as REST clients make it: applied on the game's lane,
+ * broadcast, and completed only once the AI reply (if any) has been played,
+ * so the caller sees the position it has to answer.
+ */
+@Service
+public class MoveService {
+
+    private final GameService gameService;
+    private final GameBroadcaster broadcaster;
+    private final AIMoveService aiMoveService;
+    private final GameMetrics metrics;
+
+    public MoveService(GameService gameService, GameBroadcaster broadcaster, AIMoveService aiMoveService,
+                       GameMetrics metrics) {
+        this.gameService = gameService;
+        this.broadcaster = broadcaster;
+        this.aiMoveService = aiMoveService;
+        this.metrics = metrics;
+    }
+
+    /** Completes with the resulting state, with an error set if the move was refused, or null for an unknown game. */
+    public CompletableFuture<GameResponse> play(String gameId, MoveRequest move) {
+        return gameService.execute(gameId, game -> {
+            if (game == null) {
+                return CompletableFuture.<GameResponse>completedFuture(null);
+            }
+
+            boolean success = metrics.timeMove(() -> game.makeMove(move.getRow(), move.getColumn(), move.getPlayer()));
+            if (!success) {
+                return CompletableFuture.completedFuture(GameResponse.from(gameId, game, "Invalid move"));
+            }
+
+            broadcaster.broadcastState(gameId, game);
+            return aiMoveService.scheduleMove(gameId, game)
+                    .thenCompose(ignored -> gameService.query(gameId,
+                            current -> GameResponse.from(gameId, current != null ? current : game, null)));
+        }).thenCompose(response -> response);
+    }
+
+    /**
+     * Plays the moves one after another, each after the previous one's AI
+     * reply, stopping at the first that is refused.
+     */
+    public CompletableFuture<Sequence> playAll(String gameId, List<MoveRequest> moves) {
+        CompletableFuture<Sequence> result = CompletableFuture.completedFuture(new Sequence(0, null, false));
+        for (MoveRequest move : moves) {
+            result = result.thenCompose(done -> done.stopped()
+                    ? CompletableFuture.completedFuture(done)
+                    : play(gameId, move).thenApply(response -> response == null || response.getError() != null
+                            ? new Sequence(done.applied(), response, true)
+                            : new Sequence(done.applied() + 1, response, false)));
+        }
+        return result;
+    }
+
+    /**
+     * Moves applied, and the state after the last move tried: null when no
+     * move was tried or the game is unknown.
+     */
+    public record Sequence(int applied, GameResponse last, boolean stopped) {}
+}
@@ -0,0 +1,102 @@
+package com.tictactoe.service;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameStatus;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Default store: live {@link Game} objects in a concurrent map keyed by shard-prefixed UUID. */
+public class ObjectGameStore implements GameStore {
+
+    private static final class Slot {
+        final Game game;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Slot(Game game) {
+            this.game = game;
+        }
+    }
+
+    // 36^2: adding it keeps leading zeros when formatting a shard in base 36.
+    private static final int SHARD_PREFIX_BASE = 36 * 36;
+
+    private final Map<String, Slot> games = new ConcurrentHashMap<>();
+
+    @Override
+    public String newGameId(int shard) {
+        // Two base-36 digits of shard, then a UUID: "0k-3f2b...".
+        String prefix = Integer.toString(shard + SHARD_PREFIX_BASE, 36).substring(1);
+        return prefix + "-" + UUID.randomUUID();
+    }
+
+    @Override
+    public int shardOf(String gameId) {
+        if (gameId.length() < 4 || gameId.charAt(2) != '-') return -1;
+        try {
+            int shard = Integer.parseInt(gameId.substring(0, 2), 36);
+            return shard < SHARDS ? shard : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public Game get(String gameId) {
+        Slot slot = games.get(gameId);
+        if (slot == null) return null;
+        slot.lastAccess = System.currentTimeMillis();
+        return slot.game;
+    }
+
+    @Override
+    public Game peek(String gameId) {
+        Slot slot = games.get(gameId);
+        return slot == null ? null : slot.game;
+    }
+
+    @Override
+    public void put(String gameId, Game game) {
+        games.put(gameId, new Slot(game));
+    }
+
+    @Override
+    public boolean writeBack(String gameId, Game game) {
+        // The map holds the live instance already.
+        return games.containsKey(gameId);
+    }
+
+    @Override
+    public boolean remove(String gameId) {
+        return games.remove(gameId) != null;
+    }
+
+    @Override
+    public int size() {
+        return games.size();
+    }
+
+    @Override
+    public void forEach(Visitor visitor) {
+        for (Map.Entry<String, Slot> entry : games.entrySet()) {
+            Slot slot = entry.getValue();
+            visitor.visit(entry.getKey(), slot.lastAccess,
+                    slot.game.getGameStatus() != GameStatus.IN_PROGRESS,
+                    approxBytes(entry.getKey(), slot.game));
+        }
+    }
+
+    // Rough shallow sizes on a 64-bit JVM with compressed oops.
+    private static long approxBytes(String gameId, Game game) {
+        long bytes = 48 + 24;                                      // map node + slot
+        bytes += 40 + gameId.length();                             // key
+        bytes += 64;                                               // Game
+        int words = (game.getBoard().getSize() * game.getBoard().getSize() + 63) / 64;
+        bytes += 32 + 2 * (16 + 8L * words);                       // Board + bit arrays
+        if (game.getPlayerXId() != null) bytes += 40 + game.getPlayerXId().length();
+        if (game.getPlayerOId() != null) bytes += 40 + game.getPlayerOId().length();
+        if (game.history() != null) bytes += game.history().approxBytes();
+        return bytes;
+    }
+}
@@ -0,0 +1,283 @@
+package com.tictactoe.service;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.model.MoveHistory;
+import com.tictactoe.model.PackedGame;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compact store: each game is a record of four longs (X cells, O cells,
+ * metadata, last access) in open-addressed primitive tables keyed by a
+ * numeric id, which the API exposes in base 36. The id's top bits hold its
+ * shard. {@link #get} decodes a
+ * short-lived {@link Game} view and {@link #writeBack} re-packs it.
+ *
+ * Session ids live in side maps only while a player is seated, and move
+ * histories from a game's first move; views share the stored history, which
+ * the game's lane appends to in place. Boards larger
+ * than {@link PackedGame#MAX_SIZE}, and ids not minted here, fall back to an
+ * {@link ObjectGameStore}.
+ */
+public class PackedGameStore implements GameStore {
+
+    private static final int SEGMENTS = 64;
+    private static final int STRIDE = 4;
+    private static final int X = 0, O = 1, META = 2, ACCESS = 3;
+    // Keys are positive longs: the shard in bits 53-62, random bits below.
+    private static final int SHARD_SHIFT = 53;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Map<Long, String> playerXIds = new ConcurrentHashMap<>();
+    private final Map<Long, String> playerOIds = new ConcurrentHashMap<>();
+    private final Map<Long, MoveHistory> histories = new ConcurrentHashMap<>();
+    private final ObjectGameStore overflow = new ObjectGameStore();
+
+    public PackedGameStore() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public String newGameId(int shard) {
+        long key;
+        do {
+            key = (long) shard << SHARD_SHIFT | (ThreadLocalRandom.current().nextLong() & ((1L << SHARD_SHIFT) - 1));
+        } while (key == 0 || segmentFor(key).contains(key));
+        return Long.toString(key, 36);
+    }
+
+    @Override
+    public int shardOf(String gameId) {
+        long key = parse(gameId);
+        return key == 0 ? overflow.shardOf(gameId) : (int) (key >>> SHARD_SHIFT);
+    }
+
+    @Override
+    public Game get(String gameId) {
+        return read(gameId, true);
+    }
+
+    @Override
+    public Game peek(String gameId) {
+        return read(gameId, false);
+    }
+
+    private Game read(String gameId, boolean touch) {
+        long key = parse(gameId);
+        if (key == 0) return touch ? overflow.get(gameId) : overflow.peek(gameId);
+
+        long[] record = new long[STRIDE];
+        if (!segmentFor(key).read(key, record, touch)) {
+            return touch ? overflow.get(gameId) : overflow.peek(gameId);
+        }
+        return PackedGame.unpack(record[X], record[O], record[META], playerXIds.get(key), playerOIds.get(key),
+                histories.get(key));
+    }
+
+    @Override
+    public void put(String gameId, Game game) {
+        long key = parse(gameId);
+        if (key == 0 || !PackedGame.fits(game)) {
+            overflow.put(gameId, game);
+            return;
+        }
+        store(key, game);
+    }
+
+    @Override
+    public boolean writeBack(String gameId, Game game) {
+        long key = parse(gameId);
+        if (key == 0 || !PackedGame.fits(game)) {
+            return overflow.writeBack(gameId, game);
+        }
+        // Never re-inserts: a game evicted while the action ran stays evicted.
+        if (!segmentFor(key).write(key, PackedGame.xBits(game), PackedGame.oBits(game), PackedGame.meta(game), false)) {
+            return false;
+        }
+        updateSessionId(playerXIds, key, game.getPlayerXId());
+        updateSessionId(playerOIds, key, game.getPlayerOId());
+        // Only a first move creates one; after that the view holds the stored instance.
+        if (game.history() != null) histories.putIfAbsent(key, game.history());
+        return true;
+    }
+
+    private void store(long key, Game game) {
+        segmentFor(key).write(key, PackedGame.xBits(game), PackedGame.oBits(game), PackedGame.meta(game), true);
+        updateSessionId(playerXIds, key, game.getPlayerXId());
+        updateSessionId(playerOIds, key, game.getPlayerOId());
+        if (game.history() == null) {
+            histories.remove(key);
+        } else {
+            histories.put(key, game.history());
+        }
+    }
+
+    private static void updateSessionId(Map<Long, String> ids, long key, String sessionId) {
+        if (sessionId == null) {
+            ids.remove(key);
+        } else {
+            ids.put(key, sessionId);
+        }
+    }
+
+    @Override
+    public boolean remove(String gameId) {
+        long key = parse(gameId);
+        if (key != 0 && segmentFor(key).remove(key)) {
+            playerXIds.remove(key);
+            playerOIds.remove(key);
+            histories.remove(key);
+            return true;
+        }
+        return overflow.remove(gameId);
+    }
+
+    @Override
+    public int size() {
+        int size = overflow.size();
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(Visitor visitor) {
+        for (Segment segment : segments) {
+            long[] snapshot = segment.snapshot();
+            for (int i = 0; i < snapshot.length; i += 3) {
+                long key = snapshot[i];
+                long bytes = 2L * (8 + STRIDE * 8);   // key + record at a load factor of one half
+                String xId = playerXIds.get(key), oId = playerOIds.get(key);
+                if (xId != null) bytes += 64 + xId.length();
+                if (oId != null) bytes += 64 + oId.length();
+                MoveHistory history = histories.get(key);
+                if (history != null) bytes += 64 + history.approxBytes();
+                visitor.visit(Long.toString(key, 36), snapshot[i + 2], PackedGame.isFinished(snapshot[i + 1]), bytes);
+            }
+        }
+        overflow.forEach(visitor);
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (mix(key) >>> 58)];
+    }
+
+    private static long parse(String gameId) {
+        try {
+            long key = gameId.length() <= 13 ? Long.parseLong(gameId, 36) : 0;
+            return Math.max(key, 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 31);
+    }
+
+    /** Linear-probing table of records; key 0 marks an empty slot. */
+    private static final class Segment {
+        private long[] keys = new long[16];
+        private long[] records = new long[16 * STRIDE];
+        private int size;
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized boolean contains(long key) {
+            return indexOf(key) >= 0;
+        }
+
+        synchronized boolean read(long key, long[] out, boolean touch) {
+            int index = indexOf(key);
+            if (index < 0) return false;
+            if (touch) records[index * STRIDE + ACCESS] = System.currentTimeMillis();
+            System.arraycopy(records, index * STRIDE, out, 0, STRIDE);
+            return true;
+        }
+
+        synchronized boolean write(long key, long x, long o, long meta, boolean insert) {
+            int index = indexOf(key);
+            if (index < 0) {
+                if (!insert) return false;
+                if ((size + 1) * 2 > keys.length) grow();
+                index = slot(key, keys.length);
+                while (keys[index] != 0) index = (index + 1) & (keys.length - 1);
+                keys[index] = key;
+                size++;
+            }
+            int base = index * STRIDE;
+            records[base + X] = x;
+            records[base + O] = o;
+            records[base + META] = meta;
+            records[base + ACCESS] = System.currentTimeMillis();
+            return true;
+        }
+
+        synchronized boolean remove(long key) {
+            int index = indexOf(key);
+            if (index < 0) return false;
+            int mask = keys.length - 1;
+            // Backward-shift deletion keeps probe chains intact without tombstones.
+            int gap = index;
+            for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                int home = slot(keys[i], keys.length);
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    System.arraycopy(records, i * STRIDE, records, gap * STRIDE, STRIDE);
+                    gap = i;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+            return true;
+        }
+
+        /** Triples of key, metadata and last access for every record. */
+        synchronized long[] snapshot() {
+            long[] out = new long[size * 3];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    out[n++] = keys[i];
+                    out[n++] = records[i * STRIDE + META];
+                    out[n++] = records[i * STRIDE + ACCESS];
+                }
+            }
+            return out;
+        }
+
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, keys.length); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) return i;
+            }
+            return -1;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldRecords = records;
+            keys = new long[oldKeys.length * 2];
+            records = new long[keys.length * STRIDE];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) continue;
+                int index = slot(oldKeys[i], keys.length);
+                while (keys[index] != 0) index = (index + 1) & (keys.length - 1);
+                keys[index] = oldKeys[i];
+                System.arraycopy(oldRecords, i * STRIDE, records, index * STRIDE, STRIDE);
+            }
+        }
+
+        private static int slot(long key, int capacity) {
+            return (int) mix(key) & (capacity - 1);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.tictactoe.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.cluster.StompForwardingInterceptor;
+import com.tictactoe.dto.JoinRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which games each connection has joined, kept on the node holding the
+ * connection. Sits on the client inbound channel ahead of shard forwarding
+ * to see every join, and when the connection closes, whether cleanly or
+ * after missed heartbeats, sends one leave per joined game to the game's
+ * owner; see {@link LiveGameService#leave}. Joins and leaves are stamped
+ * with the connection they came over, which the owner uses to ignore the
+ * leaves of connections a player has since replaced. Connections usually
+ * join one game, so each keeps a small array rather than a map.
+ */
+@Component
+public class PresenceTracker implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceTracker.class);
+
+    private static final Pattern PRESENCE_COMMAND = Pattern.compile("^/app/(join|leave)/([^/]+)$");
+
+    /** A join made over one connection. */
+    private record Seat(String gameId, JoinRequest request) {}
+
+    private static final Seat[] NONE = new Seat[0];
+
+    // Looked up late: the game services need the broker, whose configuration needs this.
+    private final ObjectProvider<LiveGameService> liveGameService;
+    private final ClusterMembership membership;
+    private final StompForwardingInterceptor forwarding;
+    private final ObjectMapper objectMapper;
+
+    // connection id -> its joins, at most one per game; arrays are replaced, never mutated
+    private final Map<String, Seat[]> connections = new ConcurrentHashMap<>();
+
+    public PresenceTracker(ObjectProvider<LiveGameService> liveGameService, ClusterMembership membership,
+                           StompForwardingInterceptor forwarding, ObjectMapper objectMapper) {
+        this.liveGameService = liveGameService;
+        this.membership = membership;
+        this.forwarding = forwarding;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (headers == null
+                || headers.getMessageType() != SimpMessageType.MESSAGE
+                || headers.getHeader(ClusterClient.FORWARDED_HEADER) != null
+                || headers.getSessionId() == null
+                || headers.getDestination() == null
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        Matcher matcher = PRESENCE_COMMAND.matcher(headers.getDestination());
+        if (!matcher.matches()) return message;
+
+        JoinRequest request;
+        try {
+            request = objectMapper.readValue(payload, JoinRequest.class);
+            request.setConnectionId(headers.getSessionId());
+            message = MessageBuilder.createMessage(objectMapper.writeValueAsBytes(request), message.getHeaders());
+        } catch (IOException e) {
+            // Left for the message handler to reject.
+            request = null;
+        }
+        if (matcher.group(1).equals("leave")) {
+            left(headers.getSessionId(), matcher.group(2));
+        } else if (request != null) {
+            joined(headers.getSessionId(), matcher.group(2), request);
+        }
+        return message;
+    }
+
+    public void joined(String connectionId, String gameId, JoinRequest request) {
+        Seat seat = new Seat(gameId, request);
+        connections.compute(connectionId, (id, seats) -> {
+            if (seats == null) return new Seat[] {seat};
+            for (int i = 0; i < seats.length; i++) {
+                if (seats[i].gameId().equals(gameId)) {
+                    Seat[] copy = seats.clone();
+                    copy[i] = seat;
+                    return copy;
+                }
+            }
+            Seat[] grown = Arrays.copyOf(seats, seats.length + 1);
+            grown[seats.length] = seat;
+            return grown;
+        });
+    }
+
+    /** Forgets the join without telling the owner, for a leave already on its way. */
+    public void left(String connectionId, String gameId) {
+        connections.computeIfPresent(connectionId, (id, seats) -> {
+            Seat[] kept = Arrays.stream(seats).filter(seat -> !seat.gameId().equals(gameId)).toArray(Seat[]::new);
+            return kept.length == 0 ? null : kept;
+        });
+    }
+
+    /** Leaves every game the connection joined. */
+    public void disconnected(String connectionId) {
+        Seat[] seats = connections.remove(connectionId);
+        if (seats == null) return;
+        for (Seat seat : seats) {
+            sendLeave(seat.gameId(), seat.request());
+        }
+    }
+
+    /** Leaves one game the connection joined, e.g. when it moves to another. */
+    public void leave(String connectionId, String gameId) {
+        Seat[] seats = connections.getOrDefault(connectionId, NONE);
+        left(connectionId, gameId);
+        for (Seat seat : seats) {
+            if (seat.gameId().equals(gameId)) sendLeave(gameId, seat.request());
+        }
+    }
+
+    private void sendLeave(String gameId, JoinRequest request) {
+        if (membership.isLocal(gameId)) {
+            liveGameService.getObject().leave(gameId, request);
+            return;
+        }
+        try {
+            forwarding.forward(gameId, "/app/leave/" + gameId,
+                    MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(request));
+        } catch (IOException e) {
+            log.warn("Could not forward leave of game {}", gameId, e);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId());
+    }
+}
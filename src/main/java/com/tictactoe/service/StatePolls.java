@@ -0,0 +1,102 @@
+package com.tictactoe.service;
+
+import com.tictactoe.dto.GameResponse;
+import com.tictactoe.model.Game;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-polls on game state for REST clients. A poll for a version the game
+ * has already passed is answered at once; otherwise it is parked, without a
+ * thread, until the broadcaster publishes the next version (one response is
+ * built and shared by every poll of the game) or until
+ * {@code game.poll.timeout-ms}, when it is answered 304.
+ */
+@Service
+public class StatePolls {
+
+    private final GameService gameService;
+    private final long timeoutMillis;
+    private final int maxParked;
+
+    private final Map<String, Set<DeferredResult<ResponseEntity<GameResponse>>>> parked = new ConcurrentHashMap<>();
+    private final AtomicInteger parkedCount = new AtomicInteger();
+
+    public StatePolls(GameService gameService,
+                      @Value("${game.poll.timeout-ms:30000}") long timeoutMillis,
+                      @Value("${game.poll.max-parked:10000}") int maxParked) {
+        this.gameService = gameService;
+        this.timeoutMillis = timeoutMillis;
+        this.maxParked = maxParked;
+    }
+
+    public long timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public DeferredResult<ResponseEntity<GameResponse>> await(String gameId, long sinceVersion) {
+        DeferredResult<ResponseEntity<GameResponse>> poll = new DeferredResult<>(timeoutMillis);
+        poll.onTimeout(() -> poll.setResult(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build()));
+        poll.onCompletion(() -> unpark(gameId, poll));
+
+        // Registered on the lane, so no version can be published in between.
+        gameService.query(gameId, game -> {
+            if (game == null) {
+                poll.setErrorResult(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+            } else if (game.getVersion() > sinceVersion) {
+                poll.setResult(response(gameId, game));
+            } else if (parkedCount.get() >= maxParked) {
+                poll.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many parked polls"));
+            } else {
+                parked.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(poll);
+                parkedCount.incrementAndGet();
+                // Timed out or dropped before it was parked: its completion has already run.
+                if (poll.isSetOrExpired()) unpark(gameId, poll);
+            }
+            return null;
+        });
+        return poll;
+    }
+
+    /** Completes the game's parked polls; called on the lane as a version is published. */
+    public void published(String gameId, Game game) {
+        Set<DeferredResult<ResponseEntity<GameResponse>>> polls = parked.remove(gameId);
+        if (polls == null) return;
+        ResponseEntity<GameResponse> response = response(gameId, game);
+        for (DeferredResult<ResponseEntity<GameResponse>> poll : polls) {
+            parkedCount.decrementAndGet();
+            poll.setResult(response);
+        }
+    }
+
+    public static ResponseEntity<GameResponse> response(String gameId, Game game) {
+        return ResponseEntity.ok().eTag(game.stateTag()).body(GameResponse.from(gameId, game, null));
+    }
+
+    private void unpark(String gameId, DeferredResult<ResponseEntity<GameResponse>> poll) {
+        parked.computeIfPresent(gameId, (id, polls) -> {
+            if (polls.remove(poll)) parkedCount.decrementAndGet();
+            return polls.isEmpty() ? null : polls;
+        });
+    }
+
+    @EventListener
+    public void onGameEvicted(GameService.GameEvictedEvent event) {
+        Set<DeferredResult<ResponseEntity<GameResponse>>> polls = parked.remove(event.gameId());
+        if (polls == null) return;
+        for (DeferredResult<ResponseEntity<GameResponse>> poll : polls) {
+            parkedCount.decrementAndGet();
+            poll.setErrorResult(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.tictactoe.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts STOMP subscribers per destination, so broadcasts to topics nobody
+ * listens on can skip serialization altogether. Sessions outside STOMP,
+ * such as {@code /ws-game}, count through {@link #watch}. Listeners hear
+ * when a destination gains its first subscriber or loses its last.
+ */
+@Component
+public class TopicSubscriptions {
+
+    public interface Listener {
+        void changed(String destination, boolean subscribed);
+    }
+
+    // session id -> subscription id -> destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public boolean hasSubscribers(String destination) {
+        AtomicInteger count = counts.get(destination);
+        return count != null && count.get() > 0;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Counts a subscriber that is not a STOMP subscription. */
+    public void watch(String destination) {
+        increment(destination);
+    }
+
+    public void unwatch(String destination) {
+        decrement(destination);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (headers.getSessionId() == null || headers.getSubscriptionId() == null || destination == null) return;
+
+        String previous = sessions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), destination);
+        if (previous != null) decrement(previous);
+        increment(destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(headers.getSessionId());
+        if (subscriptions == null || headers.getSubscriptionId() == null) return;
+        String destination = subscriptions.remove(headers.getSubscriptionId());
+        if (destination != null) decrement(destination);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions == null) return;
+        subscriptions.values().forEach(this::decrement);
+    }
+
+    // Listeners are called inside compute, so one destination's changes reach them in order.
+    private void increment(String destination) {
+        counts.compute(destination, (d, count) -> {
+            if (count == null) {
+                count = new AtomicInteger();
+                listeners.forEach(listener -> listener.changed(d, true));
+            }
+            count.incrementAndGet();
+            return count;
+        });
+    }
+
+    private void decrement(String destination) {
+        counts.computeIfPresent(destination, (d, count) -> {
+            if (count.decrementAndGet() > 0) return count;
+            listeners.forEach(listener -> listener.changed(d, false));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.tictactoe.socket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tictactoe.model.Board;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameStatus;
+import com.tictactoe.model.Player;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of the frames on {@code /ws-game}, all big-endian. The first byte
+ * is the opcode.
+ *
+ * <pre>
+ * client -> server
+ *   JOIN     01 role:u8 (0 X, 1 O, 2 spectator) gameId:utf8 [00 sessionToken:utf8...]
+ *   MOVE     02 row:u8 column:u8
+ *   REMATCH  03
+ *   STATE    04
+ * server -> client
+ *   SNAPSHOT 81 seq:i64 size:u8 winLength:u8 status:u8 turn:u8 starting:u8 flags:u8 cells:u8[size*size]
+ *   DELTA    82 seq:i64 reset:u8 moves:u16 status:u8 turn:u8 flags:u8 count:u16 (cell:u8 mark:u8)[count]
+ *   EVENT    83 typeLength:u8 type:utf8 detail:utf8...
+ *   ERROR    84 code:u8
+ * </pre>
+ *
+ * Status is 0 in progress, 1 draw, 2 X won, 3 O won; players and marks are
+ * 1 X, 2 O (0 an empty cell); flags are those of the JSON delta. The
+ * session token plays the part of the STOMP clients' {@code sessionId}: a
+ * client that sends the same one after reconnecting gets its seat back.
+ */
+final class BinaryFrames {
+
+    static final byte JOIN = 0x01;
+    static final byte MOVE = 0x02;
+    static final byte REMATCH = 0x03;
+    static final byte STATE = 0x04;
+
+    static final byte SNAPSHOT = (byte) 0x81;
+    static final byte DELTA = (byte) 0x82;
+    static final byte EVENT = (byte) 0x83;
+    static final byte ERROR = (byte) 0x84;
+
+    static final byte ERROR_MALFORMED = 1;
+    static final byte ERROR_NOT_JOINED = 2;
+    static final byte ERROR_UNKNOWN_GAME = 3;
+
+    private BinaryFrames() {}
+
+    static byte[] snapshot(Game game) {
+        Board board = game.getBoard();
+        int size = board.getSize();
+        ByteBuffer out = ByteBuffer.allocate(15 + size * size);
+        out.put(SNAPSHOT).putLong(game.getVersion())
+                .put((byte) size).put((byte) board.getWinLength())
+                .put((byte) game.getGameStatus().ordinal())
+                .put(mark(game.getCurrentPlayer())).put(mark(game.getStartingPlayer()))
+                .put((byte) game.presenceFlags());
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                out.put(mark(board.get(row, column)));
+            }
+        }
+        return out.array();
+    }
+
+    /** From the owner's REST view of a game, for games held by another node. */
+    static byte[] snapshot(JsonNode game) {
+        int size = game.get("size").asInt();
+        ByteBuffer out = ByteBuffer.allocate(15 + size * size);
+        int flags = (game.get("playerXPresent").asBoolean() ? 1 : 0) | (game.get("playerOPresent").asBoolean() ? 2 : 0)
+                | (game.get("playerXReady").asBoolean() ? 4 : 0) | (game.get("playerOReady").asBoolean() ? 8 : 0);
+        out.put(SNAPSHOT).putLong(game.get("seq").asLong())
+                .put((byte) size).put((byte) game.get("winLength").asInt())
+                .put((byte) GameStatus.valueOf(game.get("status").asText()).ordinal())
+                .put(mark(game.get("currentPlayer").asText())).put(mark(game.get("startingPlayer").asText()))
+                .put((byte) flags);
+        for (JsonNode row : game.get("board")) {
+            String cells = row.asText();
+            for (int column = 0; column < size; column++) {
+                out.put(mark(cells.charAt(column)));
+            }
+        }
+        return out.array();
+    }
+
+    /** From a delta as published to the JSON topic. */
+    static byte[] delta(JsonNode delta) {
+        JsonNode cells = delta.get("cells");
+        String marks = delta.get("marks").asText();
+        ByteBuffer out = ByteBuffer.allocate(17 + 2 * cells.size());
+        out.put(DELTA).putLong(delta.get("seq").asLong())
+                .put((byte) (delta.get("reset").asBoolean() ? 1 : 0))
+                .putShort((short) delta.get("moves").asInt())
+                .put((byte) GameStatus.valueOf(delta.get("status").asText()).ordinal())
+                .put(mark(delta.get("turn").asText()))
+                .put((byte) delta.get("flags").asInt())
+                .putShort((short) cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            out.put((byte) cells.get(i).asInt()).put(mark(marks.charAt(i)));
+        }
+        return out.array();
+    }
+
+    static byte[] event(String type, String detail) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        byte[] detailBytes = detail == null ? new byte[0] : detail.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 + typeBytes.length + detailBytes.length)
+                .put(EVENT).put((byte) typeBytes.length).put(typeBytes).put(detailBytes)
+                .array();
+    }
+
+    static byte[] error(byte code) {
+        return new byte[] {ERROR, code};
+    }
+
+    private static byte mark(Player player) {
+        return (byte) (player == null ? 0 : player == Player.X ? 1 : 2);
+    }
+
+    private static byte mark(String player) {
+        return player.isEmpty() ? 0 : mark(player.charAt(0));
+    }
+
+    private static byte mark(char mark) {
+        return (byte) (mark == 'X' ? 1 : mark == 'O' ? 2 : 0);
+    }
+}
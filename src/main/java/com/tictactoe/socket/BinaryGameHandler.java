@@ -0,0 +1,190 @@
+package com.tictactoe.socket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.cluster.ClusterClient;
+import com.tictactoe.cluster.ClusterMembership;
+import com.tictactoe.cluster.StompForwardingInterceptor;
+import com.tictactoe.dto.JoinRequest;
+import com.tictactoe.dto.MoveRequest;
+import com.tictactoe.service.GameService;
+import com.tictactoe.service.LiveGameService;
+import com.tictactoe.service.PresenceTracker;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Native WebSocket endpoint speaking {@link BinaryFrames}, for clients that
+ * do not need SockJS or STOMP. Commands go through the same
+ * {@link LiveGameService} as STOMP ones, or to the owning node as STOMP
+ * commands; a session sees the game it last joined, and leaves the one
+ * before. A join is answered with a snapshot, after which deltas follow.
+ */
+@Component
+public class BinaryGameHandler extends BinaryWebSocketHandler implements SubProtocolCapable {
+
+    public static final String SUBPROTOCOL = "tictactoe.v1";
+
+    private static final String[] ROLES = {"X", "O", "Spectator"};
+
+    private final BinarySessions sessions;
+    private final LiveGameService liveGameService;
+    private final GameService gameService;
+    private final ClusterMembership membership;
+    private final ClusterClient clusterClient;
+    private final StompForwardingInterceptor forwarding;
+    private final PresenceTracker presence;
+    private final ObjectMapper objectMapper;
+    private final Map<String, BinarySessions.Outbox> outboxes = new ConcurrentHashMap<>();
+
+    public BinaryGameHandler(BinarySessions sessions, LiveGameService liveGameService, GameService gameService,
+                             ClusterMembership membership, ClusterClient clusterClient,
+                             StompForwardingInterceptor forwarding, PresenceTracker presence,
+                             ObjectMapper objectMapper) {
+        this.sessions = sessions;
+        this.liveGameService = liveGameService;
+        this.gameService = gameService;
+        this.membership = membership;
+        this.clusterClient = clusterClient;
+        this.forwarding = forwarding;
+        this.presence = presence;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(SUBPROTOCOL);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        outboxes.put(session.getId(), sessions.open(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        BinarySessions.Outbox outbox = outboxes.remove(session.getId());
+        if (outbox != null) sessions.unwatch(outbox);
+        presence.disconnected(session.getId());
+    }
+
+    // Frames of one session arrive one at a time, so its commands keep their order.
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        BinarySessions.Outbox outbox = outboxes.get(session.getId());
+        if (outbox == null) return;
+        ByteBuffer frame = message.getPayload();
+        if (!frame.hasRemaining()) {
+            outbox.send(BinaryFrames.error(BinaryFrames.ERROR_MALFORMED));
+            return;
+        }
+        byte op = frame.get();
+        if (op == BinaryFrames.JOIN) {
+            join(outbox, frame);
+        } else if (outbox.gameId == null) {
+            outbox.send(BinaryFrames.error(BinaryFrames.ERROR_NOT_JOINED));
+        } else if (op == BinaryFrames.MOVE && frame.remaining() >= 2) {
+            MoveRequest move = new MoveRequest();
+            move.setRow(Byte.toUnsignedInt(frame.get()));
+            move.setColumn(Byte.toUnsignedInt(frame.get()));
+            move.setPlayer(outbox.player);
+            move.setSessionId(outbox.sessionId);
+            if (isLocal(outbox)) {
+                liveGameService.move(outbox.gameId, move);
+            } else {
+                forward(outbox, "/app/move/", move);
+            }
+        } else if (op == BinaryFrames.REMATCH) {
+            JoinRequest request = joinRequest(outbox);
+            if (isLocal(outbox)) {
+                liveGameService.rematch(outbox.gameId, request);
+            } else {
+                forward(outbox, "/app/rematch/", request);
+            }
+        } else if (op == BinaryFrames.STATE) {
+            snapshot(outbox);
+        } else {
+            outbox.send(BinaryFrames.error(BinaryFrames.ERROR_MALFORMED));
+        }
+    }
+
+    private void join(BinarySessions.Outbox outbox, ByteBuffer frame) {
+        int role = frame.hasRemaining() ? frame.get() : -1;
+        if (role < 0 || role >= ROLES.length || !frame.hasRemaining()) {
+            outbox.send(BinaryFrames.error(BinaryFrames.ERROR_MALFORMED));
+            return;
+        }
+        String gameId = StandardCharsets.UTF_8.decode(frame).toString();
+        String token = null;
+        int separator = gameId.indexOf('\0');
+        if (separator >= 0) {
+            token = gameId.substring(separator + 1);
+            gameId = gameId.substring(0, separator);
+        }
+        if (gameId.isEmpty() || (token != null && token.isEmpty())) {
+            outbox.send(BinaryFrames.error(BinaryFrames.ERROR_MALFORMED));
+            return;
+        }
+        if (outbox.gameId != null && !outbox.gameId.equals(gameId)) {
+            presence.leave(outbox.session.getId(), outbox.gameId);
+        }
+        outbox.player = ROLES[role];
+        outbox.sessionId = token != null ? token : outbox.session.getId();
+        // Watching first: deltas after the snapshot's version are not missed.
+        sessions.watch(outbox, gameId);
+
+        JoinRequest request = joinRequest(outbox);
+        presence.joined(outbox.session.getId(), gameId, request);
+        if (isLocal(outbox)) {
+            liveGameService.join(gameId, request);
+            snapshot(outbox);
+        } else {
+            forward(outbox, "/app/join/", request).thenRun(() -> snapshot(outbox));
+        }
+    }
+
+    // Queued on the lane behind any command of this session, so it reflects them.
+    private void snapshot(BinarySessions.Outbox outbox) {
+        String gameId = outbox.gameId;
+        CompletableFuture<byte[]> snapshot = isLocal(outbox)
+                ? gameService.query(gameId, game -> game == null ? null : BinaryFrames.snapshot(game))
+                : clusterClient.fetchGame(membership.ownerOf(gameId), gameId)
+                        .thenApply(game -> game == null ? null : BinaryFrames.snapshot(game));
+        snapshot.whenComplete((frame, error) -> outbox.send(frame != null
+                ? frame
+                : BinaryFrames.error(BinaryFrames.ERROR_UNKNOWN_GAME)));
+    }
+
+    private JoinRequest joinRequest(BinarySessions.Outbox outbox) {
+        JoinRequest request = new JoinRequest();
+        request.setPlayer(outbox.player);
+        request.setSessionId(outbox.sessionId);
+        request.setConnectionId(outbox.session.getId());
+        return request;
+    }
+
+    private boolean isLocal(BinarySessions.Outbox outbox) {
+        return membership.isLocal(outbox.gameId);
+    }
+
+    private CompletableFuture<Void> forward(BinarySessions.Outbox outbox, String prefix, Object command) {
+        try {
+            return forwarding.forward(outbox.gameId, prefix + outbox.gameId,
+                    MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(command));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.tictactoe.socket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.metrics.GameMetrics;
+import com.tictactoe.metrics.OutboundMessageMetrics;
+import com.tictactoe.service.TopicSubscriptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sessions of {@code /ws-game} and the games they watch. Sits on the broker
+ * channel, where every delta and event for a game passes once, whether
+ * published here or relayed from another node, and turns it into one binary
+ * frame shared by the sessions watching the game. Frames are queued per
+ * session and written in order off the publishing thread; a session more
+ * than {@code game.binary.max-queued} frames behind is closed.
+ */
+@Component
+public class BinarySessions implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(BinarySessions.class);
+
+    private final ObjectMapper objectMapper;
+    private final OutboundMessageMetrics outboundMetrics;
+    private final TopicSubscriptions subscriptions;
+    private final int maxQueued;
+    private final Executor writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, Set<Outbox>> watchers = new ConcurrentHashMap<>();
+
+    public BinarySessions(ObjectMapper objectMapper, OutboundMessageMetrics outboundMetrics,
+                          TopicSubscriptions subscriptions, @Value("${game.binary.max-queued:256}") int maxQueued) {
+        this.objectMapper = objectMapper;
+        this.outboundMetrics = outboundMetrics;
+        this.subscriptions = subscriptions;
+        this.maxQueued = maxQueued;
+    }
+
+    /** One session's outgoing frames and the game it watches. */
+    final class Outbox {
+        final WebSocketSession session;
+        private final Queue<BinaryMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        volatile String gameId;
+        volatile String player;
+        // The JOIN's session token, or the connection id without one.
+        volatile String sessionId;
+
+        Outbox(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void send(byte[] frame) {
+            if (overflowed) return;
+            if (queued.incrementAndGet() > maxQueued) {
+                overflowed = true;
+            } else {
+                queue.add(new BinaryMessage(frame));
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+
+        // Only the draining thread writes to or closes the session.
+        private void drain() {
+            do {
+                BinaryMessage frame;
+                while (!overflowed && (frame = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    try {
+                        if (session.isOpen()) {
+                            session.sendMessage(frame);
+                            outboundMetrics.binary(frame.getPayloadLength());
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        log.debug("Binary send to {} failed: {}", session.getId(), e.toString());
+                        overflowed = true;
+                    }
+                }
+                if (overflowed) {
+                    queue.clear();
+                    close(CloseStatus.SESSION_NOT_RELIABLE);
+                    return;
+                }
+                draining.set(false);
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void close(CloseStatus status) {
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                // Already gone.
+            }
+        }
+    }
+
+    Outbox open(WebSocketSession session) {
+        return new Outbox(session);
+    }
+
+    /** Moves the session to the game's fan-out; it stops watching any other. */
+    void watch(Outbox outbox, String gameId) {
+        unwatch(outbox);
+        outbox.gameId = gameId;
+        watchers.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(outbox);
+        // Counted as subscribers of the topics it is fed from, so they are relayed here.
+        subscriptions.watch(GameMetrics.TOPIC_PREFIX + gameId + "/delta");
+        subscriptions.watch(GameMetrics.TOPIC_PREFIX + gameId + "/events");
+    }
+
+    void unwatch(Outbox outbox) {
+        String gameId = outbox.gameId;
+        if (gameId == null) return;
+        boolean[] removed = {false};
+        watchers.computeIfPresent(gameId, (id, outboxes) -> {
+            removed[0] = outboxes.remove(outbox);
+            return outboxes.isEmpty() ? null : outboxes;
+        });
+        if (removed[0]) {
+            subscriptions.unwatch(GameMetrics.TOPIC_PREFIX + gameId + "/delta");
+            subscriptions.unwatch(GameMetrics.TOPIC_PREFIX + gameId + "/events");
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (watchers.isEmpty()) return message;
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null
+                || !destination.startsWith(GameMetrics.TOPIC_PREFIX)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        int idEnd = destination.indexOf('/', GameMetrics.TOPIC_PREFIX.length());
+        if (idEnd < 0) return message;
+        Set<Outbox> outboxes = watchers.get(destination.substring(GameMetrics.TOPIC_PREFIX.length(), idEnd));
+        if (outboxes == null) return message;
+
+        String suffix = destination.substring(idEnd);
+        try {
+            byte[] frame;
+            if (suffix.equals("/delta")) {
+                frame = BinaryFrames.delta(objectMapper.readTree(payload));
+            } else if (suffix.equals("/events")) {
+                JsonNode event = objectMapper.readTree(payload);
+                frame = BinaryFrames.event(event.path("type").asText(), event.path("detail").asText(null));
+            } else {
+                return message;
+            }
+            outboxes.forEach(outbox -> outbox.send(frame));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not encode {} for binary sessions", destination, e);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,116 @@
+package com.tictactoe.socket;
+
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * STOMP encoder that builds most of a broadcast's MESSAGE frame once. The
+ * broker hands every subscriber of a destination the same payload array,
+ * and their frames differ only in the {@code subscription} and
+ * {@code message-id} headers. Everything after those two lines is encoded
+ * for the first session and kept, keyed by payload identity, so each further
+ * session costs two short header lines and one copy. Other frames, and a
+ * MESSAGE whose other headers differ from the kept ones, are encoded as usual.
+ */
+public class SharedFrameStompEncoder extends StompEncoder {
+
+    private static final int SLOTS = 64;
+    private static final byte[] COMMAND = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+    private static final String SUBSCRIPTION = StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER;
+    private static final String MESSAGE_ID = StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER;
+
+    /** The frame after its command line, without the per-session headers. */
+    private record Shared(byte[] payload, Map<String, List<String>> headers, byte[] tail) {}
+
+    // Recent broadcasts; a collision only costs a full encode.
+    private final AtomicReferenceArray<Shared> recent = new AtomicReferenceArray<>(SLOTS);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Map<String, Object> headers, byte[] payload) {
+        Map<String, List<String>> nativeHeaders =
+                (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        if (payload.length == 0 || nativeHeaders == null
+                || StompHeaderAccessor.getCommand(headers) != StompCommand.MESSAGE) {
+            return super.encode(headers, payload);
+        }
+        String subscription = first(nativeHeaders, SUBSCRIPTION);
+        String messageId = first(nativeHeaders, MESSAGE_ID);
+        if (subscription == null || messageId == null) {
+            return super.encode(headers, payload);
+        }
+
+        int slot = System.identityHashCode(payload) & (SLOTS - 1);
+        Shared shared = recent.get(slot);
+        if (shared == null || shared.payload() != payload || !sameShared(shared.headers(), nativeHeaders)) {
+            shared = share(headers, nativeHeaders, payload);
+            recent.set(slot, shared);
+        }
+
+        byte[] subscriptionLine = line(SUBSCRIPTION, subscription);
+        byte[] messageIdLine = line(MESSAGE_ID, messageId);
+        byte[] frame = new byte[COMMAND.length + subscriptionLine.length + messageIdLine.length + shared.tail().length];
+        int at = 0;
+        System.arraycopy(COMMAND, 0, frame, at, COMMAND.length);
+        at += COMMAND.length;
+        System.arraycopy(subscriptionLine, 0, frame, at, subscriptionLine.length);
+        at += subscriptionLine.length;
+        System.arraycopy(messageIdLine, 0, frame, at, messageIdLine.length);
+        at += messageIdLine.length;
+        System.arraycopy(shared.tail(), 0, frame, at, shared.tail().length);
+        return frame;
+    }
+
+    private Shared share(Map<String, Object> headers, Map<String, List<String>> nativeHeaders, byte[] payload) {
+        Map<String, List<String>> sharedHeaders = new LinkedHashMap<>(nativeHeaders);
+        sharedHeaders.remove(SUBSCRIPTION);
+        sharedHeaders.remove(MESSAGE_ID);
+        Map<String, Object> frameHeaders = new LinkedHashMap<>(headers);
+        frameHeaders.put(NativeMessageHeaderAccessor.NATIVE_HEADERS, sharedHeaders);
+        byte[] frame = super.encode(frameHeaders, payload);
+        byte[] tail = new byte[frame.length - COMMAND.length];
+        System.arraycopy(frame, COMMAND.length, tail, 0, tail.length);
+        return new Shared(payload, sharedHeaders, tail);
+    }
+
+    // Same headers apart from the per-session ones, without copying either map.
+    private static boolean sameShared(Map<String, List<String>> shared, Map<String, List<String>> nativeHeaders) {
+        int count = 0;
+        for (Map.Entry<String, List<String>> header : nativeHeaders.entrySet()) {
+            String name = header.getKey();
+            if (name.equals(SUBSCRIPTION) || name.equals(MESSAGE_ID)) continue;
+            if (!header.getValue().equals(shared.get(name))) return false;
+            count++;
+        }
+        return count == shared.size();
+    }
+
+    private static String first(Map<String, List<String>> nativeHeaders, String name) {
+        List<String> values = nativeHeaders.get(name);
+        return values == null || values.size() != 1 ? null : values.get(0);
+    }
+
+    // Escaped as StompEncoder escapes headers of frames other than CONNECT(ED).
+    private static byte[] line(String name, String value) {
+        StringBuilder line = new StringBuilder(name.length() + value.length() + 2).append(name).append(':');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> line.append("\\\\");
+                case ':' -> line.append("\\c");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> line.append(c);
+            }
+        }
+        return line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
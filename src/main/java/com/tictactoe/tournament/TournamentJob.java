@@ -0,0 +1,222 @@
+package com.tictactoe.tournament;
+
+import com.tictactoe.dto.TournamentStatus;
+import com.tictactoe.dto.TournamentStatus.State;
+import com.tictactoe.model.AIMode;
+import com.tictactoe.model.AIPlayer;
+import com.tictactoe.model.AlphaBetaAIPlayer;
+import com.tictactoe.model.Board;
+import com.tictactoe.model.GameStatus;
+import com.tictactoe.model.GridAIPlayer;
+import com.tictactoe.model.Player;
+import com.tictactoe.model.RandomAIPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One tournament: every pair of the listed engines plays
+ * {@code gamesPerPairing} games, taking X in turn. Games are numbered and
+ * the range is halved down to small slices, so idle workers steal from
+ * busy ones. Each worker plays on one board it clears between games, and
+ * results go straight into shared counters that status reads while the
+ * tournament runs.
+ */
+final class TournamentJob {
+
+    // Searches on large boards are limited by depth here, not by the clock.
+    private static final long GRID_DEPTH_BUDGET_MILLIS = 60_000;
+
+    private final String id;
+    private final int size;
+    private final int winLength;
+    private final int gamesPerPairing;
+    private final int randomOpening;
+    private final List<String> names;
+    private final AIPlayer[] engines;
+    private final int[][] pairings;
+    private final LongAdder[][] results;   // per pairing: first wins, second wins, draws, moves
+    private final LongAdder played = new LongAdder();
+    private final long total;
+    private final int grain;
+    private final ThreadLocal<Board> boards;
+
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile boolean cancelled;
+
+    /** @throws IllegalArgumentException for an unknown engine or an unplayable board */
+    TournamentJob(String id, List<String> engineNames, int gamesPerPairing, int size, int winLength,
+                  int randomOpening, int parallelism) {
+        if (engineNames == null || engineNames.size() < 2) {
+            throw new IllegalArgumentException("At least two engines are required");
+        }
+        if (gamesPerPairing < 1) {
+            throw new IllegalArgumentException("gamesPerPairing must be positive");
+        }
+        Board shape = new Board(size, winLength);
+        this.id = id;
+        this.size = size;
+        this.winLength = winLength;
+        this.gamesPerPairing = gamesPerPairing;
+        this.randomOpening = Math.max(0, randomOpening);
+        this.names = List.copyOf(engineNames);
+        this.engines = new AIPlayer[names.size()];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = engine(names.get(i), shape);
+        }
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int a = 0; a < engines.length; a++) {
+            for (int b = a + 1; b < engines.length; b++) {
+                pairs.add(new int[] {a, b});
+            }
+        }
+        this.pairings = pairs.toArray(int[][]::new);
+        this.results = new LongAdder[pairings.length][4];
+        for (LongAdder[] counters : results) {
+            for (int i = 0; i < counters.length; i++) counters[i] = new LongAdder();
+        }
+        this.total = (long) pairings.length * gamesPerPairing;
+        this.grain = (int) Math.max(1, Math.min(1024, total / (parallelism * 16L)));
+        this.boards = ThreadLocal.withInitial(() -> new Board(size, winLength));
+    }
+
+    static AIPlayer engine(String name, Board shape) {
+        String key = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        if (key.equals("random")) {
+            return new RandomAIPlayer();
+        }
+        if (key.startsWith("depth-")) {
+            int depth;
+            try {
+                depth = Integer.parseInt(key.substring("depth-".length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unknown engine: " + name);
+            }
+            if (depth < 1) throw new IllegalArgumentException("Depth must be positive: " + name);
+            return shape.isClassic()
+                    ? new AlphaBetaAIPlayer(Math.min(depth, AlphaBetaAIPlayer.UNLIMITED_DEPTH))
+                    : new GridAIPlayer(depth, GRID_DEPTH_BUDGET_MILLIS);
+        }
+        AIMode mode = AIMode.parse(key);
+        if (mode == null) throw new IllegalArgumentException("Unknown engine: " + name);
+        return mode.getPlayer(shape);
+    }
+
+    String id() { return id; }
+    boolean isRunning() { return state == State.RUNNING; }
+    long startNanos() { return startNanos; }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /** Plays every game; called once, on a worker of the tournament pool. */
+    void run() {
+        try {
+            new Slice(0, total).invoke();
+            state = cancelled ? State.CANCELLED : State.DONE;
+        } catch (RuntimeException e) {
+            error = e.toString();
+            state = State.FAILED;
+        } finally {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    private final class Slice extends RecursiveAction {
+        private final long from;
+        private final long to;
+
+        Slice(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                long mid = (from + to) >>> 1;
+                invokeAll(new Slice(from, mid), new Slice(mid, to));
+                return;
+            }
+            Board board = boards.get();
+            for (long game = from; game < to && !cancelled; game++) {
+                play(game, board);
+            }
+        }
+    }
+
+    private void play(long game, Board board) {
+        int pairing = (int) (game / gamesPerPairing);
+        boolean firstIsX = (game & 1) == 0;
+        AIPlayer first = engines[pairings[pairing][0]];
+        AIPlayer second = engines[pairings[pairing][1]];
+
+        board.clear();
+        GameStatus result = firstIsX ? playOut(board, first, second) : playOut(board, second, first);
+
+        LongAdder[] counters = results[pairing];
+        if (result == GameStatus.DRAW) {
+            counters[2].increment();
+        } else {
+            boolean firstWon = (result == GameStatus.X_WON) == firstIsX;
+            counters[firstWon ? 0 : 1].increment();
+        }
+        counters[3].add(board.getMoveCount());
+        played.increment();
+    }
+
+    private GameStatus playOut(Board board, AIPlayer x, AIPlayer o) {
+        int cells = size * size;
+        Player toMove = Player.X;
+        while (board.getMoveCount() < cells) {
+            int cell;
+            if (board.getMoveCount() < randomOpening) {
+                cell = randomEmptyCell(board);
+            } else {
+                AIPlayer.Move move = (toMove == Player.X ? x : o).getBestMove(board, toMove);
+                if (move == null) break;
+                cell = move.row * size + move.col;
+            }
+            int row = cell / size, column = cell % size;
+            // An engine that plays an illegal move forfeits.
+            if (!board.place(row, column, toMove)) {
+                return toMove == Player.X ? GameStatus.O_WON : GameStatus.X_WON;
+            }
+            if (board.completesLine(row, column, toMove)) {
+                return toMove == Player.X ? GameStatus.X_WON : GameStatus.O_WON;
+            }
+            toMove = toMove == Player.X ? Player.O : Player.X;
+        }
+        return GameStatus.DRAW;
+    }
+
+    private int randomEmptyCell(Board board) {
+        int pick = ThreadLocalRandom.current().nextInt(size * size - board.getMoveCount());
+        for (int cell = 0; ; cell++) {
+            if (!board.isOccupied(cell) && pick-- == 0) return cell;
+        }
+    }
+
+    TournamentStatus status() {
+        List<TournamentStatus.Pairing> pairingResults = new ArrayList<>(pairings.length);
+        for (int p = 0; p < pairings.length; p++) {
+            LongAdder[] counters = results[p];
+            long firstWins = counters[0].sum(), secondWins = counters[1].sum(), draws = counters[2].sum();
+            long games = firstWins + secondWins + draws;
+            pairingResults.add(new TournamentStatus.Pairing(names.get(pairings[p][0]), names.get(pairings[p][1]),
+                    games, firstWins, secondWins, draws, games == 0 ? 0 : (double) counters[3].sum() / games));
+        }
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return new TournamentStatus(id, state, size, winLength, played.sum(), total,
+                (end - startNanos) / 1_000_000, pairingResults, error);
+    }
+}
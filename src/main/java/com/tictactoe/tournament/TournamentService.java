@@ -0,0 +1,115 @@
+package com.tictactoe.tournament;
+
+import com.tictactoe.dto.TournamentRequest;
+import com.tictactoe.dto.TournamentStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Runs tournaments on a dedicated fork-join pool of
+ * {@code game.tournament.parallelism} workers (all cores by default), apart
+ * from the game lanes and AI searches. At most
+ * {@code game.tournament.max-running} run at once; the last
+ * {@code game.tournament.max-jobs} are kept for polling.
+ */
+@Service
+public class TournamentService {
+
+    private static final Logger log = LoggerFactory.getLogger(TournamentService.class);
+
+    private final ForkJoinPool pool;
+    private final Map<String, TournamentJob> jobs = new ConcurrentHashMap<>();
+    private final int maxRunning;
+    private final int maxJobs;
+    private final long maxGames;
+
+    public TournamentService(@Value("${game.tournament.parallelism:0}") int parallelism,
+                             @Value("${game.tournament.max-running:1}") int maxRunning,
+                             @Value("${game.tournament.max-jobs:20}") int maxJobs,
+                             @Value("${game.tournament.max-games:1000000}") long maxGames) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(workers, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("tournament-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.maxRunning = maxRunning;
+        this.maxJobs = maxJobs;
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an invalid request
+     * @throws IllegalStateException    when {@code max-running} tournaments are already running
+     */
+    public synchronized TournamentStatus start(TournamentRequest request) {
+        int size = request.getSize();
+        int winLength = request.getWinLength() != null ? request.getWinLength() : Math.min(size, 5);
+        TournamentJob job = new TournamentJob(UUID.randomUUID().toString(), request.getEngines(),
+                request.getGamesPerPairing(), size, winLength, request.getRandomOpening(), pool.getParallelism());
+        TournamentStatus status = job.status();
+        if (status.getGamesTotal() > maxGames) {
+            throw new IllegalArgumentException("At most " + maxGames + " games per tournament");
+        }
+        if (jobs.values().stream().filter(TournamentJob::isRunning).count() >= maxRunning) {
+            throw new IllegalStateException("A tournament is already running");
+        }
+
+        jobs.put(job.id(), job);
+        trimFinished();
+        pool.execute(() -> {
+            job.run();
+            TournamentStatus done = job.status();
+            log.info("Tournament {} {}: {} games in {} ms ({} games/s)", done.getId(), done.getState(),
+                    done.getGamesPlayed(), done.getElapsedMillis(), Math.round(done.getGamesPerSecond()));
+        });
+        return status;
+    }
+
+    public TournamentStatus status(String id) {
+        TournamentJob job = jobs.get(id);
+        return job == null ? null : job.status();
+    }
+
+    /** Newest first. */
+    public List<TournamentStatus> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparingLong(TournamentJob::startNanos).reversed())
+                .map(TournamentJob::status)
+                .toList();
+    }
+
+    /** Stops after the games in progress; the results so far are kept. */
+    public TournamentStatus cancel(String id) {
+        TournamentJob job = jobs.get(id);
+        if (job == null) return null;
+        job.cancel();
+        return job.status();
+    }
+
+    private void trimFinished() {
+        jobs.values().stream()
+                .filter(job -> !job.isRunning())
+                .sorted(Comparator.comparingLong(TournamentJob::startNanos))
+                .limit(Math.max(0, jobs.size() - maxJobs))
+                .toList()
+                .forEach(job -> jobs.remove(job.id()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(TournamentJob::cancel);
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,264 @@
+package com.tictactoe.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.TicTacToeApplication;
+import com.tictactoe.service.GameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several sharded nodes in one JVM on localhost, each a full application
+ * context with its own port. Checks that every node agrees on who owns a
+ * game and that only the owner holds it, that REST and STOMP commands sent
+ * to another node are applied on the owner, and that games follow their
+ * shards when a node joins and when one leaves, or as soon as the owner
+ * can take them after a push failed.
+ */
+class ShardedClusterTest {
+
+    private static final String SECRET = "cluster-test-secret";
+    private static final int GAMES = 30;
+
+    private final String clusterName = "sharded-cluster-test-" + UUID.randomUUID();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    void stopNodes() {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            if (nodes.get(i).isActive()) nodes.get(i).close();
+        }
+    }
+
+    @Test
+    void gamesLiveOnTheirOwnerAndFollowRingChanges() throws Exception {
+        int[] ports = freePorts(3);
+        String a = url(ports[0]), b = url(ports[1]), c = url(ports[2]);
+        ConfigurableApplicationContext nodeA = start(ports[0]);
+        ConfigurableApplicationContext nodeB = start(ports[1], a);
+        await("A and B see each other", () -> ringSize(nodeA) == 2 && ringSize(nodeB) == 2);
+
+        // Each node mints ids in shards it owns, and both agree on that.
+        Map<String, Integer> moves = new LinkedHashMap<>();
+        Map<String, String> creators = new LinkedHashMap<>();
+        for (int i = 0; i < GAMES; i++) {
+            String creator = i % 2 == 0 ? a : b;
+            String gameId = newGame(creator);
+            creators.put(gameId, creator);
+            moves.put(gameId, 0);
+        }
+        for (Map.Entry<String, String> game : creators.entrySet()) {
+            assertThat(owner(nodeA, game.getKey())).isEqualTo(game.getValue());
+            assertThat(owner(nodeB, game.getKey())).isEqualTo(game.getValue());
+        }
+        assertHeldByOwners(moves, nodeA, nodeB);
+
+        // A move sent to the other node is applied on the owner.
+        int i = 0;
+        for (Map.Entry<String, String> game : creators.entrySet()) {
+            String other = game.getValue().equals(a) ? b : a;
+            JsonNode response = move(other, game.getKey(), i % 3, i / 3 % 3);
+            assertThat(response.get("error").isNull()).isTrue();
+            assertThat(response.get("gameId").asText()).isEqualTo(game.getKey());
+            moves.merge(game.getKey(), 1, Integer::sum);
+            i++;
+        }
+        assertHeldByOwners(moves, nodeA, nodeB);
+
+        // So is a STOMP command sent over the other node's connection.
+        String remote = creators.entrySet().stream().filter(game -> game.getValue().equals(b))
+                .map(Map.Entry::getKey).findFirst().orElseThrow();
+        WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        StompSession session = stomp.connectAsync(a.replace("http", "ws") + "/ws-tictactoe/websocket",
+                new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+        try {
+            session.send("/app/move/" + remote, Map.of("row", 2, "column", 2));
+            moves.merge(remote, 1, Integer::sum);
+            await("STOMP move applied on B", () -> moveCount(nodeB, remote) == moves.get(remote));
+        } finally {
+            session.disconnect();
+            stomp.stop();
+        }
+
+        // A joining node is pushed the games of the shards it took over.
+        ConfigurableApplicationContext nodeC = start(ports[2], a, b);
+        await("all three see each other",
+                () -> ringSize(nodeA) == 3 && ringSize(nodeB) == 3 && ringSize(nodeC) == 3);
+        awaitHeldByOwners(moves, nodeA, nodeB, nodeC);
+        assertThat(creators.keySet().stream().filter(gameId -> owner(nodeC, gameId).equals(c)))
+                .as("games moved to C").isNotEmpty();
+
+        // A leaving node hands its games to their new owners before it stops.
+        List<String> onB = creators.keySet().stream().filter(gameId -> owner(nodeB, gameId).equals(b)).toList();
+        assertThat(onB).isNotEmpty();
+        nodeB.close();
+        await("B has left", () -> ringSize(nodeA) == 2 && ringSize(nodeC) == 2);
+        awaitHeldByOwners(moves, nodeA, nodeC);
+
+        // Commands reach the new owners, through either node.
+        for (String gameId : onB) {
+            String other = owner(nodeA, gameId).equals(a) ? c : a;
+            assertThat(get(other, "/api/game/" + gameId).statusCode()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void failedHandoffIsRetriedUntilTheOwnerTakesTheGames() throws Exception {
+        int[] ports = freePorts(2);
+        String a = url(ports[0]), b = url(ports[1]);
+        ConfigurableApplicationContext nodeA = start(ports[0]);
+        Map<String, Integer> moves = new LinkedHashMap<>();
+        for (int i = 0; i < GAMES; i++) {
+            moves.put(newGame(a), 0);
+        }
+
+        // A learns of B before B is up, so its pushes to B fail.
+        nodeA.getBean(ClusterMembership.class).join(List.of(b));
+        List<String> forB = moves.keySet().stream().filter(gameId -> owner(nodeA, gameId).equals(b)).toList();
+        assertThat(forB).isNotEmpty();
+        Thread.sleep(1000);
+        // Each retry takes the games off the lane for the push, so read until they are back.
+        await("games kept on A", () -> forB.stream().allMatch(gameId -> moveCount(nodeA, gameId) == 0));
+
+        // B's announcement leaves A's ring as it was; only the retry moves the games.
+        ConfigurableApplicationContext nodeB = start(ports[1], a);
+        awaitHeldByOwners(moves, nodeA, nodeB);
+        for (String gameId : forB) {
+            assertThat(get(a, "/api/game/" + gameId).statusCode()).isEqualTo(200);
+        }
+    }
+
+    private ConfigurableApplicationContext start(int port, String... peers) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TicTacToeApplication.class).run(
+                "--server.port=" + port,
+                "--game.cluster.self=" + url(port),
+                "--game.cluster.peers=" + String.join(",", peers),
+                "--game.cluster.secret=" + SECRET,
+                "--game.broker.mode=embedded",
+                "--game.cluster.handoff-retry-ms=200",
+                "--game.cluster.name=" + clusterName);
+        nodes.add(context);
+        return context;
+    }
+
+    // Every game is held by the node all of them name as owner, with its moves.
+    private void assertHeldByOwners(Map<String, Integer> moves, ConfigurableApplicationContext... members) {
+        for (Map.Entry<String, Integer> game : moves.entrySet()) {
+            String owner = owner(members[0], game.getKey());
+            for (ConfigurableApplicationContext member : members) {
+                assertThat(owner(member, game.getKey())).isEqualTo(owner);
+                String self = member.getBean(ClusterMembership.class).getSelf();
+                if (self.equals(owner)) {
+                    assertThat(moveCount(member, game.getKey())).as("moves of %s on %s", game.getKey(), self)
+                            .isEqualTo(game.getValue());
+                } else {
+                    assertThat(member.getBean(GameService.class).contains(game.getKey()))
+                            .as("%s still on %s", game.getKey(), self).isFalse();
+                }
+            }
+        }
+    }
+
+    private void awaitHeldByOwners(Map<String, Integer> moves, ConfigurableApplicationContext... members)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (true) {
+            try {
+                assertHeldByOwners(moves, members);
+                return;
+            } catch (AssertionError e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("timed out: " + what);
+            Thread.sleep(100);
+        }
+    }
+
+    private static String owner(ConfigurableApplicationContext node, String gameId) {
+        return node.getBean(ClusterMembership.class).ownerOf(gameId);
+    }
+
+    private static int ringSize(ConfigurableApplicationContext node) {
+        return node.getBean(ClusterMembership.class).getNodes().size();
+    }
+
+    // -1 when the node does not hold the game.
+    private static int moveCount(ConfigurableApplicationContext node, String gameId) {
+        return node.getBean(GameService.class)
+                .query(gameId, game -> game == null ? -1 : game.getBoard().getMoveCount())
+                .join();
+    }
+
+    private String newGame(String node) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(node + "/api/game/new"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("gameId").asText();
+    }
+
+    private JsonNode move(String node, String gameId, int row, int column) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                        URI.create(node + "/api/game/" + gameId + "/move"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        objectMapper.writeValueAsString(Map.of("row", row, "column", column))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String node, String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(node + path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String url(int port) {
+        return "http://localhost:" + port;
+    }
+
+    private static int[] freePorts(int count) throws IOException {
+        int[] ports = new int[count];
+        List<ServerSocket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                ServerSocket socket = new ServerSocket(0);
+                sockets.add(socket);
+                ports[i] = socket.getLocalPort();
+            }
+        } finally {
+            for (ServerSocket socket : sockets) socket.close();
+        }
+        return ports;
+    }
+}
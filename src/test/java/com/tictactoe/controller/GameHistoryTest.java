@@ -0,0 +1,127 @@
+package com.tictactoe.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replay of a game's rounds at GET /api/game/{id}/history and the catch-up
+ * a spectator gets on subscribing to /app/game/{id}/history.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameHistoryTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void historyReplaysEachRoundWithItsOutcome() throws Exception {
+        String gameId = objectMapper.readTree(send("POST", "/api/game/new").body()).get("gameId").asText();
+        // X takes the top row; both marks then ask for a rematch over STOMP.
+        int[][] moves = {{0, 0}, {1, 1}, {0, 1}, {2, 2}, {0, 2}};
+        for (int[] move : moves) {
+            move(gameId, move[0], move[1]);
+        }
+
+        WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        StompSession session = stomp.connectAsync("ws://localhost:" + port + "/ws-tictactoe/websocket",
+                new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+        try {
+            session.send("/app/rematch/" + gameId, Map.of("player", "X", "sessionId", "s"));
+            session.send("/app/rematch/" + gameId, Map.of("player", "O", "sessionId", "s"));
+            awaitRounds(gameId, 2);
+            // O starts the rematch.
+            move(gameId, 1, 1);
+
+            JsonNode history = objectMapper.readTree(send("GET", "/api/game/" + gameId + "/history").body());
+            assertThat(history.get("size").asInt()).isEqualTo(3);
+            JsonNode rounds = history.get("rounds");
+            assertThat(rounds).hasSize(2);
+            assertThat(rounds.get(0).get("round").asInt()).isEqualTo(1);
+            assertThat(rounds.get(0).get("cells").toString()).isEqualTo("[0,4,1,8,2]");
+            assertThat(rounds.get(0).get("marks").asText()).isEqualTo("XOXOX");
+            assertThat(rounds.get(0).get("status").asText()).isEqualTo("X_WON");
+            assertThat(rounds.get(1).get("cells").toString()).isEqualTo("[4]");
+            assertThat(rounds.get(1).get("marks").asText()).isEqualTo("O");
+            assertThat(rounds.get(1).get("status").asText()).isEqualTo("IN_PROGRESS");
+
+            CompletableFuture<JsonNode> catchUp = new CompletableFuture<>();
+            session.subscribe("/app/game/" + gameId + "/history", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return JsonNode.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    catchUp.complete((JsonNode) payload);
+                }
+            });
+            // The coalesced publish of the last move may land in between and advance seq.
+            JsonNode replay = catchUp.get(10, TimeUnit.SECONDS);
+            assertThat(replay.get("gameId")).isEqualTo(history.get("gameId"));
+            assertThat(replay.get("rounds")).isEqualTo(rounds);
+            assertThat(replay.get("seq").asLong()).isGreaterThanOrEqualTo(history.get("seq").asLong());
+        } finally {
+            session.disconnect();
+            stomp.stop();
+        }
+    }
+
+    @Test
+    void unknownGameHasNoHistory() throws Exception {
+        assertThat(send("GET", "/api/game/no-such-game/history").statusCode()).isEqualTo(404);
+    }
+
+    private void move(String gameId, int row, int column) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/game/" + gameId + "/move"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        objectMapper.writeValueAsString(Map.of("row", row, "column", column))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(objectMapper.readTree(response.body()).get("error").isNull()).isTrue();
+    }
+
+    private void awaitRounds(String gameId, int rounds) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            JsonNode history = objectMapper.readTree(send("GET", "/api/game/" + gameId + "/history").body());
+            if (history.get("rounds").size() >= rounds) return;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("no round " + rounds);
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
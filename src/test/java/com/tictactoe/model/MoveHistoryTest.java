@@ -0,0 +1,156 @@
+package com.tictactoe.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoveHistoryTest {
+
+    @Test
+    void movesComeBackInOrderAcrossWords() {
+        // Four bits a move on 3x3, so the 17th move starts a second word.
+        MoveHistory history = new MoveHistory(3, Player.X);
+        int[] cells = new int[40];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (i * 5) % 9;
+            history.record(cells[i]);
+        }
+        assertThat(history.cells(0)).containsExactly(cells);
+    }
+
+    @Test
+    void largeBoardsUseWiderCells() {
+        MoveHistory history = new MoveHistory(15, Player.O);
+        int[] cells = {0, 224, 112, 17, 200, 1, 223};
+        for (int cell : cells) history.record(cell);
+        assertThat(history.cells(0)).containsExactly(cells);
+        assertThat(history.starter(0)).isEqualTo(Player.O);
+    }
+
+    @Test
+    void roundsAreKeptApartAndAnEmptyRoundIsReused() {
+        MoveHistory history = new MoveHistory(3, Player.X);
+        history.record(4);
+        history.record(0);
+        history.startRound(Player.O);
+        history.startRound(Player.X);
+        history.record(8);
+
+        assertThat(history.roundCount()).isEqualTo(2);
+        assertThat(history.cells(0)).containsExactly(4, 0);
+        assertThat(history.cells(1)).containsExactly(8);
+        assertThat(history.starter(1)).isEqualTo(Player.X);
+        assertThat(history.roundNumber(1)).isEqualTo(2);
+    }
+
+    @Test
+    void oldestRoundsAreDroppedAndNumberingContinues() {
+        MoveHistory history = new MoveHistory(3, Player.X);
+        int rounds = MoveHistory.MAX_ROUNDS + 4;
+        for (int round = 0; round < rounds; round++) {
+            if (round > 0) history.startRound(round % 2 == 0 ? Player.X : Player.O);
+            history.record(round % 9);
+            history.record((round + 1) % 9);
+            history.record((round + 2) % 9);
+        }
+
+        assertThat(history.roundCount()).isEqualTo(MoveHistory.MAX_ROUNDS);
+        for (int r = 0; r < history.roundCount(); r++) {
+            int round = history.roundNumber(r) - 1;
+            assertThat(round).isEqualTo(r + 4);
+            assertThat(history.cells(r)).containsExactly(round % 9, (round + 1) % 9, (round + 2) % 9);
+            assertThat(history.starter(r)).isEqualTo(round % 2 == 0 ? Player.X : Player.O);
+        }
+        // Recording goes on after the repack.
+        history.record(7);
+        assertThat(history.cells(history.roundCount() - 1)).endsWith(7);
+    }
+
+    @Test
+    void survivesTheCodecWithTheGame() {
+        Game game = new Game(null, 4, 4);
+        game.makeMove(0, 0, null);
+        game.makeMove(1, 1, null);
+        game.makeMove(3, 2, null);
+        game.resetBoard();
+        game.makeMove(2, 2, null);
+
+        ByteBuffer out = ByteBuffer.allocate(GameCodec.maxBytes(game));
+        GameCodec.write(game, out);
+        Game restored = GameCodec.read(out.flip());
+
+        MoveHistory history = restored.history();
+        assertThat(history.roundCount()).isEqualTo(2);
+        assertThat(history.cells(0)).containsExactly(0, 5, 14);
+        assertThat(history.cells(1)).containsExactly(10);
+        assertThat(history.starter(1)).isEqualTo(Player.O);
+        restored.makeMove(0, 3, null);
+        assertThat(restored.history().cells(1)).containsExactly(10, 3);
+    }
+
+    @Test
+    void updatesCarryOnlyTheMovesSinceTheLastOne() {
+        Game game = new Game(null, 15, 5);
+        for (int round = 0; round < 4; round++) {
+            for (int move = 0; move < 40; move++) {
+                game.makeMove(move % 15, move / 15 * 3 + round % 3, null);
+            }
+            game.resetBoard();
+        }
+        GameCodec.writeUpdate(game, ByteBuffer.allocate(GameCodec.maxUpdateBytes(game)));
+
+        game.makeMove(7, 7, null);
+        ByteBuffer update = ByteBuffer.allocate(GameCodec.maxUpdateBytes(game));
+        GameCodec.writeUpdate(game, update);
+        ByteBuffer whole = ByteBuffer.allocate(GameCodec.maxBytes(game));
+        GameCodec.write(game, whole);
+        // One run of one cell, against four rounds of forty moves.
+        assertThat(update.position()).isLessThan(whole.position() - 150);
+    }
+
+    @Test
+    void updatesReplayedTwiceOrAfterALaterCopyChangeNothing() {
+        Game game = new Game(null, 3, 3);
+        Game replayed = GameCodec.read(encode(game));
+        List<ByteBuffer> updates = new ArrayList<>();
+        int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+        for (int[] move : moves) {
+            game.makeMove(move[0], move[1], null);
+            updates.add(update(game));
+        }
+        game.resetBoard();
+        updates.add(update(game));
+        game.makeMove(2, 2, null);
+        updates.add(update(game));
+
+        for (ByteBuffer update : updates) {
+            replayed = GameCodec.readUpdate(update.duplicate(), replayed);
+        }
+        assertThat(encode(replayed)).isEqualTo(encode(game));
+
+        // As after a snapshot taken past the first three updates.
+        Game fromSnapshot = GameCodec.read(encode(game));
+        for (ByteBuffer update : updates) {
+            fromSnapshot = GameCodec.readUpdate(update.duplicate(), fromSnapshot);
+        }
+        assertThat(encode(fromSnapshot)).isEqualTo(encode(game));
+        assertThat(fromSnapshot.history().roundCount()).isEqualTo(2);
+        assertThat(fromSnapshot.history().starter(1)).isEqualTo(Player.O);
+    }
+
+    private static ByteBuffer update(Game game) {
+        ByteBuffer out = ByteBuffer.allocate(GameCodec.maxUpdateBytes(game));
+        GameCodec.writeUpdate(game, out);
+        return out.flip();
+    }
+
+    private static ByteBuffer encode(Game game) {
+        ByteBuffer out = ByteBuffer.allocate(GameCodec.maxBytes(game));
+        GameCodec.write(game, out);
+        return out.flip();
+    }
+}
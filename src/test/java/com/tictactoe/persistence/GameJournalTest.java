@@ -0,0 +1,138 @@
+package com.tictactoe.persistence;
+
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameCodec;
+import com.tictactoe.model.MoveHistory;
+import com.tictactoe.service.GameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Games written through the journal come back whole after a crash, that
+ * is without the snapshot a clean shutdown writes, however many segments
+ * their records span.
+ */
+class GameJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    private final List<GameService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(GameService::shutdown);
+    }
+
+    @Test
+    void recoversEveryChangeAcrossSegmentsAfterACrash() throws Exception {
+        GameService writer = service();
+        GameJournal journal = new GameJournal(writer, dir.toString(), 2, SEGMENT_BYTES);
+        journal.start();
+
+        Map<String, Game> games = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            Game game = new Game(null, 3, 3);
+            String gameId = writer.newGameId(i);
+            writer.saveGame(gameId, game);
+            games.put(gameId, game);
+        }
+        // Two rounds each: X wins along the top row, then a rematch starts.
+        int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+        for (Map.Entry<String, Game> game : games.entrySet()) {
+            for (int[] move : moves) {
+                game.getValue().makeMove(move[0], move[1], null);
+                writer.saveGame(game.getKey(), game.getValue());
+            }
+            game.getValue().resetBoard();
+            game.getValue().makeMove(1, 1, null);
+            writer.saveGame(game.getKey(), game.getValue());
+        }
+        // No shutdown snapshot, as after a crash.
+        journal.flush();
+        writer.setChangeListener(null);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(file -> file.getFileName().toString().endsWith("-0001.log")))
+                    .as("records span several segments").isNotEmpty();
+        }
+
+        GameService restored = service();
+        new GameJournal(restored, dir.toString(), 2, SEGMENT_BYTES).recover();
+        assertThat(restored.gameCount()).isEqualTo(games.size());
+        for (Map.Entry<String, Game> game : games.entrySet()) {
+            Game back = restored.getGame(game.getKey());
+            assertThat(back).isNotNull();
+            assertThat(encode(back)).as(game.getKey()).isEqualTo(encode(game.getValue()));
+        }
+    }
+
+    @Test
+    void recoversLaneChangesLoggedAsMovesPastTheKeptRounds() throws Exception {
+        GameService writer = service();
+        GameJournal journal = new GameJournal(writer, dir.toString(), 2, 1 << 20);
+        journal.start();
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String gameId = writer.newGameId(i);
+            writer.saveGame(gameId, new Game(null, 15, 5));
+            ids.add(gameId);
+        }
+        // More rounds than a history keeps, with a snapshot part way through.
+        for (int round = 0; round < MoveHistory.MAX_ROUNDS + 4; round++) {
+            if (round == 6) journal.snapshot();
+            for (String gameId : ids) {
+                for (int move = 0; move < 12; move++) {
+                    int cell = (move * 37 + round) % 225;
+                    writer.execute(gameId, game -> game.makeMove(cell / 15, cell % 15, null)).join();
+                }
+                writer.execute(gameId, game -> {
+                    game.resetBoard();
+                    return null;
+                }).join();
+            }
+        }
+        for (String gameId : ids) {
+            writer.execute(gameId, game -> game.makeMove(7, 7, null)).join();
+        }
+        journal.flush();
+        writer.setChangeListener(null);
+
+        GameService restored = service();
+        new GameJournal(restored, dir.toString(), 2, 1 << 20).recover();
+        for (String gameId : ids) {
+            Game expected = writer.query(gameId, game -> game).join();
+            Game back = restored.getGame(gameId);
+            assertThat(back.history().roundNumber(0)).isGreaterThan(1);
+            assertThat(encode(back)).as(gameId).isEqualTo(encode(expected));
+        }
+    }
+
+    private GameService service() {
+        GameService service = new GameService(event -> { }, "object", 0, 100_000, 600_000, 7_200_000);
+        services.add(service);
+        return service;
+    }
+
+    private static byte[] encode(Game game) {
+        ByteBuffer out = ByteBuffer.allocate(GameCodec.maxBytes(game));
+        GameCodec.write(game, out);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+}
@@ -0,0 +1,307 @@
+package com.tictactoe.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.dto.JoinRequest;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.GameStatus;
+import com.tictactoe.model.MoveHistory;
+import com.tictactoe.model.Player;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many clients play one game at once, over REST and STOMP. Every mutation
+ * runs on the game's lane, so whatever the interleaving the game must stay
+ * a position reachable by legal play: each accepted move is on the board
+ * exactly once, the marks alternate from the round's starter, and nothing
+ * is played after the round is decided. A checker reads the game on its
+ * lane throughout, so a torn update would be seen, not just a bad ending.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameConcurrencyStressTest {
+
+    private static final int REST_CLIENTS = 32;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private LiveGameService liveGameService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void everyAcceptedMoveLandsExactlyOnce() throws Exception {
+        String gameId = newGame(8);
+        join(gameId, "X", "sx");
+        join(gameId, "O", "so");
+        gameService.query(gameId, game -> null).get(5, TimeUnit.SECONDS);
+
+        AtomicInteger accepted = new AtomicInteger();
+        Set<Integer> acceptedCells = ConcurrentHashMap.newKeySet();
+        ConcurrentLinkedQueue<String> torn = new ConcurrentLinkedQueue<>();
+        try (Checker checker = new Checker(gameId, torn);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> done = new ArrayList<>();
+            for (int c = 0; c < REST_CLIENTS; c++) {
+                done.add(CompletableFuture.runAsync(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int cell : shuffledCells(64)) {
+                        String player = random.nextBoolean() ? "X" : "O";
+                        JsonNode response = post(gameId, cell / 8, cell % 8, player);
+                        if (response.get("error").isNull()) {
+                            accepted.incrementAndGet();
+                            assertThat(acceptedCells.add(cell)).as("cell %d accepted twice", cell).isTrue();
+                        }
+                    }
+                }, clients));
+            }
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(120, TimeUnit.SECONDS);
+        }
+
+        assertThat(torn).isEmpty();
+        gameService.query(gameId, game -> {
+            assertConsistent(game);
+            assertThat(game.getBoard().getMoveCount()).isEqualTo(accepted.get());
+            assertThat(game.history().roundLength(game.history().roundCount() - 1)).isEqualTo(accepted.get());
+            if (game.getGameStatus() == GameStatus.IN_PROGRESS) {
+                // Every client tried every cell, so only a decided game has free ones.
+                assertThat(accepted.get()).isEqualTo(64);
+            }
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void rematchesRacingMovesKeepEveryRoundLegal() throws Exception {
+        String gameId = newGame(3);
+        WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        String url = "ws://localhost:" + port + "/ws-tictactoe/websocket";
+
+        List<StompSession> sessions = new ArrayList<>();
+        String[] seats = {"X", "O", "Spectator", "Spectator"};
+        for (int i = 0; i < seats.length; i++) {
+            StompSession session = stomp.connectAsync(url, new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+            session.send("/app/join/" + gameId, Map.of("player", seats[i], "sessionId", "s" + i));
+            sessions.add(session);
+        }
+
+        ConcurrentLinkedQueue<String> torn = new ConcurrentLinkedQueue<>();
+        try (Checker checker = new Checker(gameId, torn);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> done = new ArrayList<>();
+            for (int i = 0; i < sessions.size(); i++) {
+                StompSession session = sessions.get(i);
+                String seat = i < 2 ? seats[i] : (i % 2 == 0 ? "X" : "O");
+                String sessionId = "s" + i;
+                done.add(CompletableFuture.runAsync(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int n = 0; n < 400; n++) {
+                        if (random.nextInt(10) == 0) {
+                            session.send("/app/rematch/" + gameId, Map.of("player", seat, "sessionId", sessionId));
+                        } else {
+                            int cell = random.nextInt(9);
+                            session.send("/app/move/" + gameId, Map.of("row", cell / 3, "column", cell % 3,
+                                    "player", seat, "sessionId", sessionId));
+                        }
+                    }
+                }, clients));
+            }
+            for (int c = 0; c < REST_CLIENTS / 4; c++) {
+                done.add(CompletableFuture.runAsync(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int n = 0; n < 100; n++) {
+                        int cell = random.nextInt(9);
+                        post(gameId, cell / 3, cell % 3, random.nextBoolean() ? "X" : "O");
+                    }
+                }, clients));
+            }
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(120, TimeUnit.SECONDS);
+
+            // A session's messages are handled in order and the lane runs in
+            // order, so its snapshot reply comes after all of its moves.
+            CountDownLatch drained = new CountDownLatch(sessions.size());
+            for (StompSession session : sessions) {
+                session.subscribe("/app/game/" + gameId + "/snapshot", new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return byte[].class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        drained.countDown();
+                    }
+                });
+            }
+            assertThat(drained.await(30, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            sessions.forEach(StompSession::disconnect);
+            stomp.stop();
+        }
+
+        assertThat(torn).isEmpty();
+        gameService.query(gameId, game -> {
+            assertConsistent(game);
+            assertThat(game.history().roundCount()).isGreaterThan(1);
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    /** Reads the game on its lane in a loop, recording what is inconsistent. */
+    private final class Checker implements AutoCloseable {
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final Thread thread;
+
+        Checker(String gameId, ConcurrentLinkedQueue<String> torn) {
+            thread = Thread.ofVirtual().start(() -> {
+                while (running.get()) {
+                    try {
+                        gameService.query(gameId, game -> {
+                            assertConsistent(game);
+                            return null;
+                        }).join();
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (Throwable e) {
+                        torn.add(String.valueOf(e.getCause() != null ? e.getCause() : e));
+                        return;
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+    }
+
+    // Each kept round replays legally, and the last one is the board.
+    private static void assertConsistent(Game game) {
+        MoveHistory history = game.history();
+        if (history == null) {
+            assertThat(game.getBoard().getMoveCount()).isZero();
+            return;
+        }
+        int size = game.getBoard().getSize();
+        for (int round = 0; round < history.roundCount(); round++) {
+            int[] cells = history.cells(round);
+            Player[] board = new Player[size * size];
+            Player player = history.starter(round);
+            GameStatus status = GameStatus.IN_PROGRESS;
+            for (int i = 0; i < cells.length; i++) {
+                assertThat(status).as("move after the round was decided").isEqualTo(GameStatus.IN_PROGRESS);
+                assertThat(board[cells[i]]).as("cell %d played twice", cells[i]).isNull();
+                board[cells[i]] = player;
+                status = replayStatus(board, size, game.getBoard().getWinLength(), cells[i], player, i + 1);
+                player = player == Player.X ? Player.O : Player.X;
+            }
+            if (round == history.roundCount() - 1) {
+                for (int cell = 0; cell < board.length; cell++) {
+                    assertThat(game.getBoard().get(cell / size, cell % size)).as("cell %d", cell).isEqualTo(board[cell]);
+                }
+                assertThat(game.getGameStatus()).isEqualTo(status);
+                assertThat(game.getStartingPlayer()).isEqualTo(history.starter(round));
+                if (status == GameStatus.IN_PROGRESS) {
+                    assertThat(game.getCurrentPlayer()).isEqualTo(player);
+                }
+            }
+        }
+    }
+
+    private static GameStatus replayStatus(Player[] board, int size, int winLength, int cell, Player player, int moves) {
+        int row = cell / size, column = cell % size;
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int[] d : directions) {
+            int run = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int r = row + sign * d[0], c = column + sign * d[1];
+                while (r >= 0 && r < size && c >= 0 && c < size && board[r * size + c] == player) {
+                    run++;
+                    r += sign * d[0];
+                    c += sign * d[1];
+                }
+            }
+            if (run >= winLength) return player == Player.X ? GameStatus.X_WON : GameStatus.O_WON;
+        }
+        return moves == size * size ? GameStatus.DRAW : GameStatus.IN_PROGRESS;
+    }
+
+    private String newGame(int size) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/game/new?size=" + size + "&winLength=" + size))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("gameId").asText();
+    }
+
+    private void join(String gameId, String player, String sessionId) {
+        JoinRequest request = new JoinRequest();
+        request.setPlayer(player);
+        request.setSessionId(sessionId);
+        liveGameService.join(gameId, request);
+    }
+
+    private JsonNode post(String gameId, int row, int column, String player) {
+        try {
+            String body = objectMapper.writeValueAsString(Map.of("row", row, "column", column, "player", player));
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/game/" + gameId + "/move"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(200);
+            return objectMapper.readTree(response.body());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Integer> shuffledCells(int count) {
+        List<Integer> cells = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) cells.add(i);
+        Collections.shuffle(cells);
+        return cells;
+    }
+}
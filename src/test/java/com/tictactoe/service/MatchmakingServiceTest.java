@@ -0,0 +1,162 @@
+package com.tictactoe.service;
+
+import com.tictactoe.model.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Requests on /app/match and the answers on /user/queue/match: players of
+ * the same board are paired into one game with both seats taken, other
+ * boards wait apart, a player who leaves the queue is never paired, and
+ * one nobody joins is told TIMEOUT.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"game.match.max-wait-ms=1000", "game.match.sweep-interval-ms=100"})
+class MatchmakingServiceTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GameService gameService;
+
+    private final WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+    private final List<Client> clients = new ArrayList<>();
+
+    /** A connection subscribed to its match queue. */
+    private final class Client {
+        final StompSession session;
+        final BlockingQueue<Map<String, Object>> answers = new LinkedBlockingQueue<>();
+
+        Client() throws Exception {
+            stomp.setMessageConverter(new MappingJackson2MessageConverter());
+            session = stomp.connectAsync("ws://localhost:" + port + "/ws-tictactoe/websocket",
+                    new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+            session.subscribe("/user" + MatchmakingService.QUEUE, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return Map.class;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    answers.add((Map<String, Object>) payload);
+                }
+            });
+            clients.add(this);
+        }
+
+        void match(String sessionId, int size) {
+            session.send("/app/match", Map.of("sessionId", sessionId, "size", size));
+        }
+
+        Map<String, Object> answer(long timeoutMillis) throws InterruptedException {
+            return answers.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @AfterEach
+    void disconnect() {
+        clients.stream().map(client -> client.session).filter(StompSession::isConnected)
+                .forEach(StompSession::disconnect);
+        stomp.stop();
+    }
+
+    @Test
+    void playersOfOneBoardArePairedIntoGamesWithBothSeatsTaken() throws Exception {
+        int count = 10;
+        for (int i = 0; i < count; i++) {
+            new Client().match("p" + i, 3);
+        }
+
+        Map<String, Map<String, String>> seatsByGame = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> answer = clients.get(i).answer(10_000);
+            assertThat(answer).isNotNull();
+            assertThat(answer.get("status")).isEqualTo("MATCHED");
+            Map<String, String> seats = seatsByGame.computeIfAbsent((String) answer.get("gameId"), id -> new HashMap<>());
+            assertThat(seats.put((String) answer.get("player"), "p" + i)).as("mark given twice").isNull();
+        }
+        assertThat(seatsByGame).hasSize(count / 2);
+
+        for (Map.Entry<String, Map<String, String>> game : seatsByGame.entrySet()) {
+            Map<String, String> seats = game.getValue();
+            gameService.query(game.getKey(), stored -> {
+                assertThat(stored.getPlayerXId()).isEqualTo(seats.get("X"));
+                assertThat(stored.getPlayerOId()).isEqualTo(seats.get("O"));
+                assertThat(stored.isPresent(Player.X)).isTrue();
+                assertThat(stored.isPresent(Player.O)).isTrue();
+                return null;
+            }).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void differentBoardsWaitApartUntilTimeout() throws Exception {
+        Client small = new Client();
+        Client large = new Client();
+        small.match("small", 3);
+        large.match("large", 4);
+
+        for (Client client : List.of(small, large)) {
+            Map<String, Object> answer = client.answer(10_000);
+            assertThat(answer).isNotNull();
+            assertThat(answer.get("status")).isEqualTo("TIMEOUT");
+            assertThat(((Number) answer.get("waitedMillis")).longValue()).isGreaterThanOrEqualTo(1000);
+        }
+    }
+
+    @Test
+    void playerWhoLeftTheQueueIsNotPaired() throws Exception {
+        Client gone = new Client();
+        gone.match("gone", 5);
+        Client cancelled = new Client();
+        Thread.sleep(200);
+        gone.session.disconnect();
+        Thread.sleep(200);
+
+        cancelled.match("cancelled", 5);
+        cancelled.session.send("/app/match/cancel", Map.of());
+        Client first = new Client();
+        Client second = new Client();
+        Thread.sleep(200);
+        first.match("first", 5);
+        second.match("second", 5);
+
+        Map<String, Object> firstAnswer = first.answer(10_000);
+        Map<String, Object> secondAnswer = second.answer(10_000);
+        assertThat(firstAnswer.get("status")).isEqualTo("MATCHED");
+        assertThat(secondAnswer.get("status")).isEqualTo("MATCHED");
+        assertThat(firstAnswer.get("gameId")).isEqualTo(secondAnswer.get("gameId"));
+        assertThat(cancelled.answer(1500)).as("a cancelled ticket gets no answer").isNull();
+    }
+
+    @Test
+    void invalidBoardIsRejected() throws Exception {
+        Client client = new Client();
+        client.match("p", 20);
+        assertThat(client.answer(10_000).get("status")).isEqualTo("INVALID");
+    }
+}
@@ -0,0 +1,174 @@
+package com.tictactoe.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tictactoe.model.Game;
+import com.tictactoe.model.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seats follow the connections that hold them: a dropped player is marked
+ * absent at once, keeps the seat if back within the grace period and loses
+ * it after; a connection the player has replaced can no longer drop it; a
+ * game nobody holds or watches any more is evicted.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "game.presence.grace-ms=1000")
+class PresenceTrackerTest {
+
+    private static final long GRACE_MILLIS = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final WebSocketStompClient stomp = new WebSocketStompClient(new StandardWebSocketClient());
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    @AfterEach
+    void disconnect() {
+        sessions.stream().filter(StompSession::isConnected).forEach(StompSession::disconnect);
+        stomp.stop();
+    }
+
+    @Test
+    void playerBackWithinGraceKeepsTheSeat() throws Exception {
+        String gameId = newGame();
+        StompSession x = join(gameId, "X", "sx");
+        join(gameId, "O", "so");
+        await(gameId, game -> game.isPresent(Player.X) && game.isPresent(Player.O));
+
+        x.disconnect();
+        await(gameId, game -> !game.isPresent(Player.X) && "sx".equals(game.getPlayerXId()));
+
+        join(gameId, "X", "sx");
+        await(gameId, game -> game.isPresent(Player.X));
+        Thread.sleep(GRACE_MILLIS * 2);
+        await(gameId, game -> game.isPresent(Player.X) && "sx".equals(game.getPlayerXId()));
+    }
+
+    @Test
+    void lateDropOfAReplacedConnectionKeepsTheSeat() throws Exception {
+        String gameId = newGame();
+        StompSession old = join(gameId, "X", "sx");
+        join(gameId, "O", "so");
+        await(gameId, game -> "sx".equals(game.getPlayerXId()) && game.isPresent(Player.O));
+
+        // Back on a new connection before the server noticed the old one drop.
+        join(gameId, "X", "sx");
+        Thread.sleep(200);
+        old.disconnect();
+        Thread.sleep(GRACE_MILLIS * 2);
+        await(gameId, game -> game.isPresent(Player.X) && "sx".equals(game.getPlayerXId()));
+    }
+
+    @Test
+    void eachAbsenceGetsAFullGracePeriod() throws Exception {
+        String gameId = newGame();
+        StompSession first = join(gameId, "X", "sx");
+        join(gameId, "O", "so");
+        await(gameId, game -> "sx".equals(game.getPlayerXId()) && game.isPresent(Player.O));
+
+        first.disconnect();
+        await(gameId, game -> !game.isPresent(Player.X));
+        StompSession second = join(gameId, "X", "sx");
+        await(gameId, game -> game.isPresent(Player.X));
+        Thread.sleep(GRACE_MILLIS / 2);
+        second.disconnect();
+        long secondLeft = System.currentTimeMillis();
+        await(gameId, game -> !game.isPresent(Player.X));
+
+        // The first absence's grace runs out here; the second's has not.
+        Thread.sleep(GRACE_MILLIS * 3 / 4);
+        assertThat(System.currentTimeMillis() - secondLeft).isLessThan(GRACE_MILLIS);
+        await(gameId, game -> "sx".equals(game.getPlayerXId()));
+        await(gameId, game -> game.getPlayerXId() == null);
+    }
+
+    @Test
+    void seatIsReleasedAfterGrace() throws Exception {
+        String gameId = newGame();
+        join(gameId, "X", "sx");
+        StompSession o = join(gameId, "O", "so");
+        await(gameId, game -> "so".equals(game.getPlayerOId()) && game.isPresent(Player.O));
+
+        o.disconnect();
+        await(gameId, game -> game.getPlayerOId() == null && !game.isPresent(Player.O));
+
+        join(gameId, "O", "so2");
+        await(gameId, game -> "so2".equals(game.getPlayerOId()) && game.isPresent(Player.O));
+    }
+
+    @Test
+    void abandonedGameIsEvictedWhenItsLastSpectatorGoes() throws Exception {
+        String gameId = newGame();
+        StompSession x = join(gameId, "X", "sx");
+        StompSession spectator = join(gameId, "Spectator", "ss");
+        await(gameId, game -> "sx".equals(game.getPlayerXId()));
+
+        x.send("/app/leave/" + gameId, Map.of("player", "X", "sessionId", "sx"));
+        await(gameId, Game::isAbandoned);
+        Thread.sleep(GRACE_MILLIS);
+        assertThat(gameService.contains(gameId)).as("kept while watched").isTrue();
+
+        spectator.disconnect();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (gameService.contains(gameId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(gameService.contains(gameId)).isFalse();
+    }
+
+    private StompSession join(String gameId, String player, String sessionId) throws Exception {
+        stomp.setMessageConverter(new MappingJackson2MessageConverter());
+        StompSession session = stomp.connectAsync("ws://localhost:" + port + "/ws-tictactoe/websocket",
+                new StompSessionHandlerAdapter() {}).get(10, TimeUnit.SECONDS);
+        session.send("/app/join/" + gameId, Map.of("player", player, "sessionId", sessionId));
+        sessions.add(session);
+        return session;
+    }
+
+    // Reads the game on its lane until the condition holds.
+    private void await(String gameId, Predicate<Game> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Boolean holds = gameService.query(gameId, game -> game != null && condition.test(game))
+                    .get(5, TimeUnit.SECONDS);
+            if (holds) return;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("game " + gameId + " did not reach the expected state");
+    }
+
+    private String newGame() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/game/new"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("gameId").asText();
+    }
+}
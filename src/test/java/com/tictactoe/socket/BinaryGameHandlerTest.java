@@ -0,0 +1,223 @@
+package com.tictactoe.socket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Join, move, rematch and state over {@code /ws-game}, checked frame by
+ * frame against the layout in {@link BinaryFrames}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BinaryGameHandlerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Client> clients = new ArrayList<>();
+
+    /** One /ws-game connection and the frames it has received. */
+    private static final class Client extends BinaryWebSocketHandler {
+        final BlockingQueue<ByteBuffer> frames = new LinkedBlockingQueue<>();
+        WebSocketSession session;
+
+        @Override
+        protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+            frames.add(message.getPayload());
+        }
+
+        void send(byte... frame) throws Exception {
+            session.sendMessage(new BinaryMessage(frame));
+        }
+
+        void join(int role, String gameId) throws Exception {
+            byte[] id = gameId.getBytes(StandardCharsets.UTF_8);
+            send(ByteBuffer.allocate(2 + id.length).put(BinaryFrames.JOIN).put((byte) role).put(id).array());
+        }
+
+        void join(int role, String gameId, String token) throws Exception {
+            join(role, gameId + '\0' + token);
+        }
+
+        /** The next frame with this opcode that matches, skipping others. */
+        ByteBuffer next(byte op, Predicate<ByteBuffer> matches) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (System.nanoTime() < deadline) {
+                ByteBuffer frame = frames.poll(100, TimeUnit.MILLISECONDS);
+                if (frame != null && frame.get(0) == op && matches.test(frame.duplicate())) {
+                    return frame;
+                }
+            }
+            throw new AssertionError("no frame " + op + " within 10 s");
+        }
+
+        ByteBuffer next(byte op) throws InterruptedException {
+            return next(op, frame -> true);
+        }
+    }
+
+    @AfterEach
+    void closeClients() throws Exception {
+        for (Client client : clients) {
+            if (client.session != null) client.session.close();
+        }
+    }
+
+    @Test
+    void negotiatesTheSubprotocol() throws Exception {
+        assertThat(connect().session.getAcceptedProtocol()).isEqualTo(BinaryGameHandler.SUBPROTOCOL);
+    }
+
+    @Test
+    void joinAnswersWithSnapshotAndMovesArriveAsDeltas() throws Exception {
+        String gameId = newGame();
+        Client x = connect();
+        Client o = connect();
+
+        x.join(0, gameId);
+        ByteBuffer snapshot = x.next(BinaryFrames.SNAPSHOT);
+        snapshot.get();
+        snapshot.getLong();
+        assertThat(snapshot.get()).isEqualTo((byte) 3);
+        assertThat(snapshot.get()).isEqualTo((byte) 3);
+        assertThat(snapshot.get()).as("status").isEqualTo((byte) 0);
+        assertThat(snapshot.get()).as("turn").isEqualTo((byte) 1);
+        snapshot.get();
+        snapshot.get();
+        for (int cell = 0; cell < 9; cell++) {
+            assertThat(snapshot.get()).isZero();
+        }
+        o.join(1, gameId);
+        o.next(BinaryFrames.SNAPSHOT);
+
+        x.send(BinaryFrames.MOVE, (byte) 1, (byte) 1);
+        ByteBuffer delta = o.next(BinaryFrames.DELTA, frame -> hasMove(frame, 4, 1));
+        delta.position(1 + 8 + 1 + 2 + 1);
+        assertThat(delta.get()).as("turn").isEqualTo((byte) 2);
+
+        o.send(BinaryFrames.MOVE, (byte) 0, (byte) 0);
+        x.next(BinaryFrames.DELTA, frame -> hasMove(frame, 0, 2));
+
+        x.send(BinaryFrames.STATE);
+        ByteBuffer state = x.next(BinaryFrames.SNAPSHOT);
+        assertThat(state.get(15)).as("cell 0").isEqualTo((byte) 2);
+        assertThat(state.get(15 + 4)).as("cell 4").isEqualTo((byte) 1);
+        assertThat(state.getLong(1)).isGreaterThan(snapshot.getLong(1));
+    }
+
+    @Test
+    void rematchByBothPlayersClearsTheBoard() throws Exception {
+        String gameId = newGame();
+        Client x = connect();
+        Client o = connect();
+        x.join(0, gameId);
+        x.next(BinaryFrames.SNAPSHOT);
+        o.join(1, gameId);
+        o.next(BinaryFrames.SNAPSHOT);
+        x.send(BinaryFrames.MOVE, (byte) 0, (byte) 0);
+        o.next(BinaryFrames.DELTA, frame -> hasMove(frame, 0, 1));
+
+        x.send(BinaryFrames.REMATCH);
+        o.send(BinaryFrames.REMATCH);
+        ByteBuffer reset = x.next(BinaryFrames.DELTA, frame -> frame.get(9) == 1);
+        assertThat(reset.getShort(10)).as("moves").isZero();
+
+        x.send(BinaryFrames.STATE);
+        ByteBuffer state = x.next(BinaryFrames.SNAPSHOT);
+        assertThat(state.get(15)).as("cell 0").isZero();
+        assertThat(state.get(13)).as("starting").isEqualTo((byte) 2);
+    }
+
+    @Test
+    void reconnectingPlayerTakesTheSeatBackWithItsToken() throws Exception {
+        String gameId = newGame();
+        Client x = connect();
+        Client o = connect();
+        x.join(0, gameId, "tx");
+        x.next(BinaryFrames.SNAPSHOT);
+        o.join(1, gameId, "to");
+        o.next(BinaryFrames.SNAPSHOT);
+
+        x.session.close();
+        o.next(BinaryFrames.DELTA, frame -> (frame.get(14) & 1) == 0);
+
+        Client back = connect();
+        back.join(0, gameId, "tx");
+        back.next(BinaryFrames.SNAPSHOT, frame -> (frame.get(14) & 1) != 0);
+        back.send(BinaryFrames.MOVE, (byte) 1, (byte) 1);
+        o.next(BinaryFrames.DELTA, frame -> hasMove(frame, 4, 1));
+    }
+
+    @Test
+    void badFramesAreAnsweredWithErrors() throws Exception {
+        Client client = connect();
+
+        client.send(BinaryFrames.STATE);
+        assertThat(client.next(BinaryFrames.ERROR).get(1)).isEqualTo(BinaryFrames.ERROR_NOT_JOINED);
+
+        client.send();
+        assertThat(client.next(BinaryFrames.ERROR).get(1)).isEqualTo(BinaryFrames.ERROR_MALFORMED);
+
+        client.send(BinaryFrames.JOIN, (byte) 7);
+        assertThat(client.next(BinaryFrames.ERROR).get(1)).isEqualTo(BinaryFrames.ERROR_MALFORMED);
+
+        client.join(0, "", "tx");
+        assertThat(client.next(BinaryFrames.ERROR).get(1)).isEqualTo(BinaryFrames.ERROR_MALFORMED);
+
+        client.join(2, "no-such-game");
+        assertThat(client.next(BinaryFrames.ERROR).get(1)).isEqualTo(BinaryFrames.ERROR_UNKNOWN_GAME);
+    }
+
+    // DELTA: op seq:8 reset moves:2 status turn flags count:2, then (cell, mark) pairs from byte 17.
+    private static boolean hasMove(ByteBuffer delta, int cell, int mark) {
+        int count = delta.getShort(15);
+        for (int i = 0; i < count; i++) {
+            if (delta.get(17 + 2 * i) == cell && delta.get(18 + 2 * i) == mark) return true;
+        }
+        return false;
+    }
+
+    private Client connect() throws Exception {
+        Client client = new Client();
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketProtocol(BinaryGameHandler.SUBPROTOCOL);
+        client.session = new StandardWebSocketClient()
+                .execute(client, headers, URI.create("ws://localhost:" + port + "/ws-game"))
+                .get(10, TimeUnit.SECONDS);
+        clients.add(client);
+        return client;
+    }
+
+    private String newGame() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/game/new"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("gameId").asText();
+    }
+}